@@ -0,0 +1,135 @@
+package cn.allbs.weightscale.benchmark;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.transport.CaptureReader;
+import cn.allbs.weightscale.transport.CaptureWriter;
+import cn.allbs.weightscale.transport.SimulatedScaleTransport;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 CaptureReplayBenchmark
+ * </p>
+ * 用录制文件中的数据块测量解码吞吐量，数据块的大小和切分位置与现场读到的一致。
+ * 通过 -p capture=&lt;录制文件&gt; 指定现场录制的文件，不指定时生成一份含丢字节和校验错误的模拟录制。
+ * 结果为每秒完整回放的次数，bytes 和 frames 为每秒解码的字节数和帧数。
+ *
+ * @author ChenQi
+ * @date 2026/10/5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptureReplayBenchmark {
+
+    /**
+     * 录制文件路径，为空时使用模拟录制
+     */
+    @Param({""})
+    private String capture;
+
+    private byte[][] chunks;
+
+    private final FrameDecoder decoder = new FrameDecoder();
+
+    private final WeightReading reading = new WeightReading();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long bytes;
+
+        public long frames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            frames = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        Path file = capture.isEmpty() ? simulatedCapture() : Path.of(capture);
+        List<byte[]> loaded = new ArrayList<>();
+        try (CaptureReader reader = new CaptureReader(file)) {
+            while (reader.next()) {
+                loaded.add(Arrays.copyOf(reader.data(), reader.length()));
+            }
+        }
+        chunks = loaded.toArray(new byte[0][]);
+    }
+
+    private static Path simulatedCapture() throws IOException {
+        Random random = new Random(42);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 10000; i++) {
+            byte[] frame = SimulatedScaleTransport.continuousFrame(30000 + random.nextInt(100));
+            int roll = random.nextInt(100);
+            if (roll < 2) {
+                frame[frame.length - 2] ^= 0x01;
+            } else if (roll < 4) {
+                int drop = random.nextInt(frame.length);
+                stream.write(frame, 0, drop);
+                stream.write(frame, drop + 1, frame.length - drop - 1);
+                continue;
+            }
+            stream.write(frame, 0, frame.length);
+        }
+        byte[] data = stream.toByteArray();
+        Path file = Files.createTempFile("replay-benchmark", ".wscap");
+        file.toFile().deleteOnExit();
+        try (CaptureWriter writer = new CaptureWriter(file, "SIM1")) {
+            for (int off = 0; off < data.length; ) {
+                // 串口每次读到的字节数不固定
+                int len = Math.min(data.length - off, 1 + random.nextInt(64));
+                writer.append(data, off, len);
+                off += len;
+            }
+        }
+        return file;
+    }
+
+    @Benchmark
+    public long replay(Counters counters) {
+        long sum = 0;
+        for (byte[] chunk : chunks) {
+            decoder.feed(chunk, 0, chunk.length);
+            counters.bytes += chunk.length;
+            while (decoder.next()) {
+                if (SerialPortUtil.decodeWeight(decoder.frame(), 0, decoder.frameLength(), reading) == WeightReading.OK) {
+                    sum += reading.getValue();
+                    counters.frames++;
+                }
+            }
+        }
+        return sum;
+    }
+}
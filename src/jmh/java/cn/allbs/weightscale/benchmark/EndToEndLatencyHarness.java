@@ -0,0 +1,492 @@
+package cn.allbs.weightscale.benchmark;
+
+import cn.allbs.weightscale.WeightScaleApplication;
+import cn.allbs.weightscale.config.SerialPortManager;
+import cn.allbs.weightscale.model.PortStats;
+import cn.allbs.weightscale.transport.SerialTransport;
+import cn.allbs.weightscale.transport.SerialTransportFactory;
+import cn.allbs.weightscale.transport.SimulatedScaleTransport;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 类 EndToEndLatencyHarness
+ * </p>
+ * 端到端延迟压测：在同一进程中启动服务，使用模拟串口和 {@link MiniRedisServer}，
+ * 由压测程序控制每一帧的发送时间，统计从发出一帧到该重量写入Redis、以及通过 /currentWeight 可见的延迟，
+ * 同时并发请求接口，输出 p50/p99/p999、丢帧数、每个串口的CPU和堆占用，每次运行写一个报告文件。
+ * <pre>
+ * mvn -Pjmh compile exec:exec -Djmh.main=cn.allbs.weightscale.benchmark.EndToEndLatencyHarness \
+ *     -Djmh.args="--ports 16 --rate 10 --duration 30 --modes polling,event"
+ * </pre>
+ *
+ * @author ChenQi
+ * @date 2026/9/28
+ */
+public class EndToEndLatencyHarness {
+
+    /**
+     * 重量从该值开始逐帧加一，帧内容唯一，可以由重量反查发送时间
+     */
+    private static final long BASE_WEIGHT = 100000;
+
+    private static final String KEY_PREFIX = "pc:weight:bench:";
+
+    private static final String PORT_PREFIX = "SIM";
+
+    private static final Pattern DATA = Pattern.compile("\"data\"\\s*:\\s*\"?(-?\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        List<Map<String, String>> reports = new ArrayList<>();
+        for (String mode : options.modes) {
+            reports.add(run(options, mode));
+        }
+        printComparison(reports);
+        System.exit(0);
+    }
+
+    private static Map<String, String> run(Options options, String mode) throws Exception {
+        Track[] tracks = new Track[options.ports];
+        Map<String, Track> byKey = new HashMap<>();
+        int capacity = options.rate * (options.warmup + options.duration + 10) + 16;
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = new Track(PORT_PREFIX + (i + 1), capacity);
+            byKey.put(KEY_PREFIX + tracks[i].portName, tracks[i]);
+        }
+        try (MiniRedisServer redis = new MiniRedisServer((key, value, arrivedAt) -> {
+            Track track = byKey.get(key);
+            if (track != null) {
+                track.onRedis(parseWeight(value), arrivedAt);
+            }
+        })) {
+            // 以命令行参数传入，优先于application.yml
+            String[] arguments = properties(options, mode, redis.getPort()).entrySet().stream()
+                    .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                    .toArray(String[]::new);
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(WeightScaleApplication.class).run(arguments);
+            try {
+                return measure(options, mode, tracks, context);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, Object> properties(Options options, String mode, int redisPort) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "bench");
+        properties.put("server.port", 0);
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", redisPort);
+        properties.put("spring.data.redis.password", "");
+        properties.put("serial.transport", SerialTransportFactory.SIMULATED);
+        properties.put("serial.simulator.ports", options.ports);
+        properties.put("serial.simulator.name-prefix", PORT_PREFIX);
+        properties.put("serial.simulator.frame-rate", 0);
+        properties.put("serial.simulator.noise", 0);
+        properties.put("serial.archive.dir", "target/e2e/archive");
+        properties.put("logging.level.cn.allbs", options.logLevel);
+        for (int i = 1; i <= options.ports; i++) {
+            properties.put("serial.bench." + PORT_PREFIX + i, KEY_PREFIX + PORT_PREFIX + i);
+            properties.put("serial.bench.settings." + PORT_PREFIX + i + ".mode", mode);
+        }
+        return properties;
+    }
+
+    private static Map<String, String> measure(Options options, String mode, Track[] tracks,
+                                               ConfigurableApplicationContext context) throws Exception {
+        int httpPort = Integer.parseInt(context.getEnvironment().getProperty("local.server.port", "7878"));
+        Map<String, SerialTransport> transports = new HashMap<>();
+        for (SerialTransport transport : context.getBean(SerialTransportFactory.class).discover()) {
+            transports.put(transport.getName(), transport);
+        }
+        awaitOpen(transports.values());
+        long heapBaseline = usedHeapAfterGc();
+
+        ScheduledExecutorService emitters = Executors.newScheduledThreadPool(2);
+        long period = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        for (int i = 0; i < tracks.length; i++) {
+            Track track = tracks[i];
+            SimulatedScaleTransport transport = (SimulatedScaleTransport) transports.get(track.portName);
+            // 各串口错开发送
+            emitters.scheduleAtFixedRate(() -> track.emit(transport), period * i / tracks.length, period, TimeUnit.NANOSECONDS);
+        }
+        TimeUnit.SECONDS.sleep(options.warmup);
+        for (Track track : tracks) {
+            track.measureFrom = track.emitted;
+        }
+
+        com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpuStart = os.getProcessCpuTime();
+        long wallStart = System.nanoTime();
+        HttpLoad httpLoad = new HttpLoad(httpPort, tracks, options.httpClients);
+        httpLoad.start();
+        TimeUnit.SECONDS.sleep(options.duration);
+        for (Track track : tracks) {
+            track.measureTo = track.emitted;
+        }
+        httpLoad.stop();
+        long cpuNanos = os.getProcessCpuTime() - cpuStart;
+        long wallNanos = System.nanoTime() - wallStart;
+        emitters.shutdownNow();
+        emitters.awaitTermination(1, TimeUnit.SECONDS);
+        // 等待轮询周期和Redis写入完成
+        TimeUnit.SECONDS.sleep(2);
+        long heapGrowth = usedHeapAfterGc() - heapBaseline;
+
+        long emitted = 0;
+        long decoded = 0;
+        for (PortStats stats : context.getBean(SerialPortManager.class).getPortStats()) {
+            decoded += stats.getFramesDecoded();
+        }
+        LongList redisLatencies = new LongList();
+        LongList httpLatencies = new LongList();
+        long inWindow = 0;
+        long redisVisible = 0;
+        for (Track track : tracks) {
+            emitted += track.emitted;
+            inWindow += track.measureTo - track.measureFrom;
+            synchronized (track) {
+                redisVisible += track.redisSeen.get(track.measureFrom, track.measureTo).cardinality();
+                redisLatencies.addAll(track.redisLatencies);
+                httpLatencies.addAll(track.httpLatencies);
+            }
+        }
+
+        Map<String, String> report = new LinkedHashMap<>();
+        report.put("mode", mode);
+        report.put("ports", String.valueOf(options.ports));
+        report.put("rate", String.valueOf(options.rate));
+        report.put("duration", String.valueOf(options.duration));
+        report.put("httpClients", String.valueOf(options.httpClients));
+        report.put("framesEmitted", String.valueOf(emitted));
+        report.put("framesDecoded", String.valueOf(decoded));
+        report.put("framesLost", String.valueOf(emitted - decoded));
+        report.put("framesInWindow", String.valueOf(inWindow));
+        report.put("redisVisible", String.valueOf(redisVisible));
+        report.put("redisSkipped", String.valueOf(inWindow - redisVisible));
+        putPercentiles(report, "redis", redisLatencies);
+        putPercentiles(report, "http", httpLatencies);
+        putPercentiles(report, "httpRequest", httpLoad.requestLatencies());
+        report.put("httpRequests", String.valueOf(httpLoad.requestLatencies().size()));
+        report.put("httpErrors", String.valueOf(httpLoad.errors.get()));
+        report.put("cpuMillisPerSecondPerPort", format((double) cpuNanos / wallNanos * 1000 / options.ports));
+        report.put("heapGrowthKbPerPort", format(heapGrowth / 1024.0 / options.ports));
+        writeReport(options.out, report);
+        return report;
+    }
+
+    private static void awaitOpen(Iterable<SerialTransport> transports) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        for (SerialTransport transport : transports) {
+            while (!transport.isOpen() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        }
+        // 事件方式在打开后才注册监听
+        TimeUnit.MILLISECONDS.sleep(500);
+    }
+
+    private static long parseWeight(String value) {
+        String digits = value.replace("\"", "").trim();
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void putPercentiles(Map<String, String> report, String name, LongList latencies) {
+        long[] sorted = latencies.toSortedArray();
+        report.put(name + ".samples", String.valueOf(sorted.length));
+        report.put(name + ".p50Ms", format(percentile(sorted, 0.50)));
+        report.put(name + ".p99Ms", format(percentile(sorted, 0.99)));
+        report.put(name + ".p999Ms", format(percentile(sorted, 0.999)));
+        report.put(name + ".maxMs", format(sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    private static void writeReport(Path dir, Map<String, String> report) throws IOException {
+        Files.createDirectories(dir);
+        String name = String.format("e2e-%s-%sp-%shz-%s.txt", report.get("mode"), report.get("ports"), report.get("rate"),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        StringBuilder content = new StringBuilder();
+        report.forEach((key, value) -> content.append(key).append('=').append(value).append('\n'));
+        Path file = dir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+
+    private static void printComparison(List<Map<String, String>> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+        StringBuilder table = new StringBuilder("\n");
+        table.append(String.format("%-28s", "metric"));
+        for (Map<String, String> report : reports) {
+            table.append(String.format("%16s", report.get("mode")));
+        }
+        table.append('\n');
+        for (String key : reports.get(0).keySet()) {
+            table.append(String.format("%-28s", key));
+            for (Map<String, String> report : reports) {
+                table.append(String.format("%16s", report.get(key)));
+            }
+            table.append('\n');
+        }
+        System.out.println(table);
+    }
+
+    /**
+     * 单个串口的发送和可见记录
+     */
+    private static class Track {
+
+        private final String portName;
+
+        private final long[] emittedAt;
+
+        private volatile int emitted;
+
+        private volatile int measureFrom = Integer.MAX_VALUE;
+
+        private volatile int measureTo = Integer.MAX_VALUE;
+
+        private final BitSet redisSeen = new BitSet();
+
+        private final LongList redisLatencies = new LongList();
+
+        private final LongList httpLatencies = new LongList();
+
+        private int httpLastSeen = -1;
+
+        private Track(String portName, int capacity) {
+            this.portName = portName;
+            this.emittedAt = new long[capacity];
+        }
+
+        private void emit(SimulatedScaleTransport transport) {
+            int sequence = emitted;
+            if (sequence >= emittedAt.length) {
+                return;
+            }
+            emittedAt[sequence] = System.nanoTime();
+            emitted = sequence + 1;
+            transport.emitWeight(BASE_WEIGHT + sequence);
+        }
+
+        private boolean inWindow(int sequence) {
+            return sequence >= measureFrom && sequence < measureTo && sequence < emitted;
+        }
+
+        private synchronized void onRedis(long weight, long arrivedAt) {
+            int sequence = (int) (weight - BASE_WEIGHT);
+            if (inWindow(sequence) && !redisSeen.get(sequence)) {
+                redisSeen.set(sequence);
+                redisLatencies.add(arrivedAt - emittedAt[sequence]);
+            }
+        }
+
+        private synchronized void onHttp(long weight, long receivedAt) {
+            int sequence = (int) (weight - BASE_WEIGHT);
+            if (inWindow(sequence) && sequence > httpLastSeen) {
+                httpLastSeen = sequence;
+                httpLatencies.add(receivedAt - emittedAt[sequence]);
+            }
+        }
+    }
+
+    /**
+     * 并发请求 /currentWeight 的客户端
+     */
+    private static class HttpLoad {
+
+        private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+        private final int port;
+
+        private final Track[] tracks;
+
+        private final Thread[] threads;
+
+        private final LongList[] requestLatencies;
+
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private volatile boolean running = true;
+
+        private HttpLoad(int port, Track[] tracks, int clients) {
+            this.port = port;
+            this.tracks = tracks;
+            this.threads = new Thread[clients];
+            this.requestLatencies = new LongList[clients];
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                requestLatencies[i] = new LongList();
+                threads[i] = new Thread(() -> poll(client), "http-load-" + i);
+                threads[i].setDaemon(true);
+            }
+        }
+
+        private void start() {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+        }
+
+        private void stop() throws InterruptedException {
+            running = false;
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        }
+
+        private void poll(int client) {
+            int next = client;
+            while (running) {
+                Track track = tracks[next++ % tracks.length];
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/currentWeight?portName=" + track.portName))
+                        .timeout(Duration.ofSeconds(2)).GET().build();
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    long receivedAt = System.nanoTime();
+                    requestLatencies[client].add(receivedAt - start);
+                    Matcher matcher = DATA.matcher(response.body());
+                    if (matcher.find()) {
+                        track.onHttp(Long.parseLong(matcher.group(1)), receivedAt);
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private LongList requestLatencies() {
+            LongList all = new LongList();
+            for (LongList latencies : requestLatencies) {
+                all.addAll(latencies);
+            }
+            return all;
+        }
+    }
+
+    /**
+     * 不装箱的long列表
+     */
+    private static class LongList {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void addAll(LongList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * 命令行参数
+     */
+    private static class Options {
+
+        private int ports = 2;
+
+        private int rate = 10;
+
+        private int duration = 30;
+
+        private int warmup = 5;
+
+        private int httpClients = 4;
+
+        private List<String> modes = List.of("polling", "event");
+
+        private String logLevel = "WARN";
+
+        private Path out = Path.of("target", "e2e");
+
+        private static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--ports" -> options.ports = Integer.parseInt(value);
+                    case "--rate" -> options.rate = Integer.parseInt(value);
+                    case "--duration" -> options.duration = Integer.parseInt(value);
+                    case "--warmup" -> options.warmup = Integer.parseInt(value);
+                    case "--http-clients" -> options.httpClients = Integer.parseInt(value);
+                    case "--modes" -> options.modes = List.of(value.split(","));
+                    case "--log-level" -> options.logLevel = value;
+                    case "--out" -> options.out = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package cn.allbs.weightscale.benchmark;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.transport.SimulatedScaleTransport;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 FrameDecoderBenchmark
+ * </p>
+ * 流式解码的吞吐量。输入按串口实际情况混合正常帧、校验错误帧和错位的残缺数据，
+ * 并按 chunk 大小分批写入，模拟每次从串口读到的字节数。结果为每秒解码的帧数。
+ *
+ * @author ChenQi
+ * @date 2026/9/26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameDecoderBenchmark {
+
+    /**
+     * 每次调用解码的帧数
+     */
+    private static final int FRAMES = 1024;
+
+    /**
+     * 校验错误帧的比例（%）
+     */
+    @Param({"0", "5"})
+    private int badChecksumPercent;
+
+    /**
+     * 错位残缺帧的比例（%）
+     */
+    @Param({"0", "5"})
+    private int misalignedPercent;
+
+    /**
+     * 每次写入解码器的字节数
+     */
+    @Param({"12", "64", "1024"})
+    private int chunk;
+
+    private byte[] stream;
+
+    private final FrameDecoder decoder = new FrameDecoder();
+
+    private final WeightReading reading = new WeightReading();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < FRAMES; i++) {
+            byte[] frame = SimulatedScaleTransport.continuousFrame(30000 + random.nextInt(100));
+            int roll = random.nextInt(100);
+            if (roll < badChecksumPercent) {
+                frame[frame.length - 2] ^= 0x01;
+            } else if (roll < badChecksumPercent + misalignedPercent) {
+                // 只发出帧的后半部分，解码器需要丢弃后重新对齐
+                int cut = 1 + random.nextInt(frame.length - 2);
+                out.write(frame, cut, frame.length - cut);
+                continue;
+            }
+            out.write(frame, 0, frame.length);
+        }
+        stream = out.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long decode() {
+        long sum = 0;
+        for (int off = 0; off < stream.length; off += chunk) {
+            decoder.feed(stream, off, Math.min(chunk, stream.length - off));
+            while (decoder.next()) {
+                if (SerialPortUtil.decodeWeight(decoder.frame(), 0, decoder.frameLength(), reading) == WeightReading.OK) {
+                    sum += reading.getValue();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public boolean latest() {
+        boolean found = false;
+        for (int off = 0; off < stream.length; off += chunk) {
+            decoder.feed(stream, off, Math.min(chunk, stream.length - off));
+            found |= decoder.latest();
+        }
+        return found;
+    }
+}
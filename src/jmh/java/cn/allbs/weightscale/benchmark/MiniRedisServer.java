@@ -0,0 +1,164 @@
+package cn.allbs.weightscale.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 类 MiniRedisServer
+ * </p>
+ * 压测用的最小Redis替身，只实现RESP2协议下服务写入的命令，不保存数据。
+ * 每条SET命令到达时回调 {@link SetListener}，用于记录重量在Redis中可见的时间。
+ *
+ * @author ChenQi
+ * @date 2026/9/28
+ */
+public class MiniRedisServer implements Closeable {
+
+    /**
+     * SET命令回调，在连接线程中调用
+     */
+    public interface SetListener {
+
+        /**
+         * @param key        键
+         * @param value      值，JSON序列化后的字符串
+         * @param arrivedAt  到达时间（System.nanoTime）
+         */
+        void onSet(String key, String value, long arrivedAt);
+    }
+
+    private final ServerSocket serverSocket;
+
+    private final SetListener listener;
+
+    private final List<Socket> connections = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    public MiniRedisServer(SetListener listener) throws IOException {
+        this.listener = listener;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "mini-redis-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (connections) {
+                    connections.add(socket);
+                }
+                Thread thread = new Thread(() -> serve(socket), "mini-redis-conn");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (running) {
+                List<String> command = readCommand(in);
+                long arrivedAt = System.nanoTime();
+                reply(command, arrivedAt, out);
+                // 流水线中的命令全部读完再刷出应答
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // 连接关闭
+        }
+    }
+
+    private void reply(List<String> command, long arrivedAt, OutputStream out) throws IOException {
+        String name = command.isEmpty() ? "" : command.get(0).toUpperCase(Locale.ROOT);
+        switch (name) {
+            // 不支持RESP3，客户端退回RESP2
+            case "HELLO" -> write(out, "-ERR unknown command 'HELLO'\r\n");
+            case "PING" -> write(out, "+PONG\r\n");
+            case "SET" -> {
+                listener.onSet(command.get(1), command.get(2), arrivedAt);
+                write(out, "+OK\r\n");
+            }
+            case "GET" -> write(out, "$-1\r\n");
+            case "LPUSH", "RPUSH", "DEL", "EXISTS", "PUBLISH" -> write(out, ":1\r\n");
+            default -> write(out, "+OK\r\n");
+        }
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        List<String> args = new ArrayList<>();
+        if (header.isEmpty() || header.charAt(0) != '*') {
+            // 内联命令
+            for (String part : header.trim().split("\\s+")) {
+                args.add(part);
+            }
+            return args;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        for (int i = 0; i < count; i++) {
+            String lengthLine = readLine(in);
+            int length = Integer.parseInt(lengthLine.substring(1));
+            byte[] data = in.readNBytes(length);
+            if (data.length < length) {
+                throw new EOFException();
+            }
+            readLine(in);
+            args.add(new String(data, StandardCharsets.UTF_8));
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\r') {
+                in.read();
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+        throw new EOFException();
+    }
+
+    private static void write(OutputStream out, String reply) throws IOException {
+        out.write(reply.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        synchronized (connections) {
+            for (Socket socket : connections) {
+                socket.close();
+            }
+        }
+    }
+}
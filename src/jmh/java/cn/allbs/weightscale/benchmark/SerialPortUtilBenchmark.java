@@ -0,0 +1,84 @@
+package cn.allbs.weightscale.benchmark;
+
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.transport.SimulatedScaleTransport;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 SerialPortUtilBenchmark
+ * </p>
+ * 单帧解析、指令生成、校验和十六进制转换的耗时，配合 -prof gc 查看每次调用的分配量
+ *
+ * @author ChenQi
+ * @date 2026/9/26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerialPortUtilBenchmark {
+
+    private byte[] frame;
+
+    private byte[] response;
+
+    private String hex;
+
+    private final WeightReading reading = new WeightReading();
+
+    @Setup
+    public void setup() {
+        frame = SimulatedScaleTransport.continuousFrame(31460);
+        response = SimulatedScaleTransport.responseFrame((byte) 'A', (byte) 'B', 31460);
+        hex = SerialPortUtil.byteArrayToHexString(frame);
+    }
+
+    @Benchmark
+    public String parseWeightData() {
+        return SerialPortUtil.parseWeightData(frame);
+    }
+
+    @Benchmark
+    public int decodeWeight() {
+        return SerialPortUtil.decodeWeight(frame, 0, frame.length, reading);
+    }
+
+    @Benchmark
+    public int decodeAddressedResponse() {
+        return SerialPortUtil.decodeWeight(response, 0, response.length, reading);
+    }
+
+    @Benchmark
+    public byte[] generateCommand() {
+        return SerialPortUtil.generateCommand("A", 'B');
+    }
+
+    @Benchmark
+    public byte calculateXorChecksum() {
+        return SerialPortUtil.calculateXorChecksum(frame, 1, frame.length - 4);
+    }
+
+    @Benchmark
+    public String byteArrayToHexString() {
+        return SerialPortUtil.byteArrayToHexString(frame);
+    }
+
+    @Benchmark
+    public byte[] hexStringToByteArray() {
+        return SerialPortUtil.hexStringToByteArray(hex);
+    }
+}
@@ -0,0 +1,342 @@
+package cn.allbs.weightscale.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 类 ArchiveSegment
+ * </p>
+ * 一个内存映射的归档段文件，布局为：
+ * <pre>
+ * 0   magic "WSTS"(4) + 版本(4) + 创建时间(8) + 记录数(8) + 数据位数(8) + 数据块数(4)，其余保留至64字节
+ * 64  稀疏时间索引: {@link #INDEX_ENTRIES} 项，每项为数据块第一条记录的时间戳(8) + 数据块在数据区的位位置(8)
+ * {@link #DATA_START} 起为按 {@link RecordCodec} 压缩的记录，每 {@link #BLOCK_SIZE} 条一个数据块
+ * </pre>
+ * 文件按需成倍扩大映射区域，最大为 maxSize。记录写入后才更新头部的记录数和数据位数，
+ * 进程异常退出时最多丢失最后一条未提交的记录。只有一个写线程；读取方只读取已提交的部分，不加锁。
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+class ArchiveSegment implements Closeable {
+
+    static final int MAGIC = 0x57535453;
+
+    static final int VERSION = 1;
+
+    /**
+     * 每个数据块的记录数
+     */
+    static final int BLOCK_SIZE = 256;
+
+    /**
+     * 索引项数，写满后由下一个段文件继续
+     */
+    static final int INDEX_ENTRIES = 1024;
+
+    private static final int HEADER_SIZE = 64;
+
+    static final int DATA_START = HEADER_SIZE + INDEX_ENTRIES * 16;
+
+    private static final int INITIAL_SIZE = DATA_START + 16 * 1024;
+
+    private static final int OFF_CREATED = 8;
+
+    private static final int OFF_RECORDS = 16;
+
+    private static final int OFF_DATA_BITS = 24;
+
+    private static final int OFF_BLOCKS = 32;
+
+    private static final Object UNSAFE;
+
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 不可用时等GC回收映射
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final long maxSize;
+
+    private volatile MappedByteBuffer buffer;
+
+    private volatile long dataBits;
+
+    private volatile int blocks;
+
+    private long records;
+
+    private final RecordCodec encoder = new RecordCodec();
+
+    private final BitBuffer writer = new BitBuffer();
+
+    private ArchiveSegment(Path file, FileChannel channel, MappedByteBuffer buffer, long maxSize) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 打开段文件用于追加，文件不存在时创建
+     *
+     * @param file    文件
+     * @param maxSize 文件最大字节数
+     * @return 段
+     */
+    static ArchiveSegment openForAppend(Path file, long maxSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+            ArchiveSegment segment = new ArchiveSegment(file, channel, buffer, maxSize);
+            if (created) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putLong(OFF_CREATED, System.currentTimeMillis());
+            } else {
+                segment.readHeader();
+                segment.restoreEncoder();
+            }
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 只读打开段文件
+     *
+     * @param file 文件
+     * @return 段
+     */
+    static ArchiveSegment openReadOnly(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // 关闭文件后映射仍然有效
+            ArchiveSegment segment = new ArchiveSegment(file, null, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0);
+            try {
+                segment.readHeader();
+            } catch (IOException e) {
+                segment.close();
+                throw e;
+            }
+            return segment;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if (buffer.capacity() < DATA_START || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an archive segment: " + file);
+        }
+        records = buffer.getLong(OFF_RECORDS);
+        blocks = buffer.getInt(OFF_BLOCKS);
+        dataBits = buffer.getLong(OFF_DATA_BITS);
+        if (blocks < 0 || blocks > INDEX_ENTRIES || dataBits < 0 || DATA_START + (dataBits + 7) / 8 > buffer.capacity()) {
+            throw new IOException("Corrupted archive segment header: " + file);
+        }
+    }
+
+    /**
+     * 重新解码最后一个数据块，恢复编码器状态后才能继续追加
+     */
+    private void restoreEncoder() {
+        if (records == 0) {
+            return;
+        }
+        int lastBlock = blocks - 1;
+        BitBuffer in = new BitBuffer().reset(buffer, DATA_START, blockOffset(lastBlock));
+        encoder.reset();
+        for (long i = (long) lastBlock * BLOCK_SIZE; i < records; i++) {
+            encoder.decode(in);
+        }
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param timestamp 时间戳（毫秒），不小于上一条
+     * @param value     重量定点数
+     * @param flags     标志位
+     * @return 是否写入，段已满时返回false
+     */
+    boolean append(long timestamp, long value, int flags) throws IOException {
+        boolean newBlock = records % BLOCK_SIZE == 0;
+        if (newBlock && blocks >= INDEX_ENTRIES) {
+            return false;
+        }
+        if (!ensureCapacity(dataBits + RecordCodec.MAX_RECORD_BITS)) {
+            return false;
+        }
+        MappedByteBuffer current = buffer;
+        if (newBlock) {
+            encoder.reset();
+            current.putLong(HEADER_SIZE + blocks * 16, timestamp);
+            current.putLong(HEADER_SIZE + blocks * 16 + 8, dataBits);
+        }
+        writer.reset(current, DATA_START, dataBits);
+        encoder.encode(writer, timestamp, value, flags);
+        records++;
+        current.putLong(OFF_RECORDS, records);
+        current.putLong(OFF_DATA_BITS, writer.position());
+        if (newBlock) {
+            current.putInt(OFF_BLOCKS, blocks + 1);
+            blocks++;
+        }
+        dataBits = writer.position();
+        return true;
+    }
+
+    private boolean ensureCapacity(long bits) throws IOException {
+        long required = DATA_START + (bits + 7) / 8;
+        if (required <= buffer.capacity()) {
+            return true;
+        }
+        long size = buffer.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        size = Math.min(size, Math.min(maxSize, Integer.MAX_VALUE));
+        if (size < required) {
+            return false;
+        }
+        // 映射超出文件长度时文件随之扩大，旧的映射由GC回收
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return true;
+    }
+
+    /**
+     * 按时间顺序读取 [from, to] 内的记录，从第一条记录时间不晚于 from 的数据块开始解码
+     *
+     * @param from    开始时间戳（毫秒，含）
+     * @param to      结束时间戳（毫秒，含）
+     * @param visitor 接收记录
+     * @return visitor是否要求继续读取
+     */
+    boolean scan(long from, long to, RecordVisitor visitor) {
+        // 先读取已提交的位置，再读取映射，映射扩大后才会提交超出旧映射的数据
+        long end = dataBits;
+        int count = blocks;
+        MappedByteBuffer current = buffer;
+        if (count == 0) {
+            return true;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (current.getLong(HEADER_SIZE + mid * 16) <= from) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        RecordCodec decoder = new RecordCodec();
+        BitBuffer in = new BitBuffer().reset(current, DATA_START, blockOffset(current, low));
+        int inBlock = 0;
+        while (in.position() < end) {
+            if (inBlock == BLOCK_SIZE) {
+                decoder.reset();
+                inBlock = 0;
+            }
+            decoder.decode(in);
+            inBlock++;
+            long timestamp = decoder.timestamp();
+            if (timestamp > to) {
+                return false;
+            }
+            if (timestamp >= from && !visitor.accept(timestamp, decoder.value(), decoder.flags())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long blockOffset(int block) {
+        return blockOffset(buffer, block);
+    }
+
+    private static long blockOffset(MappedByteBuffer buffer, int block) {
+        return buffer.getLong(HEADER_SIZE + block * 16 + 8);
+    }
+
+    /**
+     * 第一条记录的时间戳
+     *
+     * @return 时间戳，没有记录时返回-1
+     */
+    long firstTimestamp() {
+        return blocks == 0 ? -1 : buffer.getLong(HEADER_SIZE);
+    }
+
+    long getRecords() {
+        return records;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * 把修改刷到磁盘
+     */
+    void force() {
+        if (channel != null) {
+            buffer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            try {
+                // 去掉成倍扩大映射时多出的部分，映射未释放时部分系统不允许截断，保留原大小
+                channel.truncate(DATA_START + (dataBits + 7) / 8);
+            } catch (IOException e) {
+                // 忽略
+            }
+            channel.close();
+        } else {
+            // 只读段只在单次查询中使用，关闭时立即释放映射；追加段可能正被查询读取，由GC回收
+            unmap(buffer);
+        }
+    }
+
+    /**
+     * 立即释放映射。没有公开的接口，通过 sun.misc.Unsafe#invokeCleaner 释放，不可用时等GC回收
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 释放失败时等GC回收
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cn.allbs.weightscale.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 类 BitBuffer
+ * </p>
+ * 在字节缓冲区的指定区域上按位顺序读写，高位在前。只使用绝对位置访问缓冲区，多个读取方可以共用同一个缓冲区。
+ * 写入时清除当前字节中写入位置之后的位，因此可以直接覆盖进程异常退出后残留的未提交数据。
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+class BitBuffer {
+
+    private ByteBuffer buffer;
+
+    private int base;
+
+    private long position;
+
+    /**
+     * 切换到新的缓冲区和位置
+     *
+     * @param buffer   缓冲区
+     * @param base     数据区在缓冲区中的起始字节
+     * @param position 数据区内的位位置
+     * @return this
+     */
+    BitBuffer reset(ByteBuffer buffer, int base, long position) {
+        this.buffer = buffer;
+        this.base = base;
+        this.position = position;
+        return this;
+    }
+
+    long position() {
+        return position;
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * 写入value的低n位
+     *
+     * @param value 值
+     * @param n     位数，1~64
+     */
+    void writeBits(long value, int n) {
+        while (n > 0) {
+            int index = base + (int) (position >>> 3);
+            int used = (int) (position & 7);
+            int free = 8 - used;
+            int take = Math.min(free, n);
+            int chunk = (int) ((value >>> (n - take)) & ((1 << take) - 1));
+            int keep = (0xFF << free) & 0xFF;
+            int current = buffer.get(index) & keep;
+            buffer.put(index, (byte) (current | (chunk << (free - take))));
+            position += take;
+            n -= take;
+        }
+    }
+
+    boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * 读取n位
+     *
+     * @param n 位数，1~64
+     * @return 值
+     */
+    long readBits(int n) {
+        long value = 0;
+        while (n > 0) {
+            int index = base + (int) (position >>> 3);
+            int used = (int) (position & 7);
+            int free = 8 - used;
+            int take = Math.min(free, n);
+            int chunk = ((buffer.get(index) & 0xFF) >>> (free - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            position += take;
+            n -= take;
+        }
+        return value;
+    }
+}
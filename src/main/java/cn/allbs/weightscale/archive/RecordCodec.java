@@ -0,0 +1,172 @@
+package cn.allbs.weightscale.archive;
+
+/**
+ * 类 RecordCodec
+ * </p>
+ * 重量记录的压缩编码，参考Gorilla时序压缩：
+ * <ul>
+ *     <li>时间戳（毫秒）记录二阶差分：0 为'0'，[-63,64] 为'10'+7位，[-255,256] 为'110'+9位，[-2047,2048] 为'1110'+12位，其余为'1111'+32位</li>
+ *     <li>重量（定点整数，zigzag编码后）与上一条异或：相同为'0'；有效位落在上一条的范围内为'10'+有效位；
+ *     否则为'11'+前导零个数(6位)+有效位数减一(6位)+有效位</li>
+ *     <li>标志位（小数位数和稳定状态）：相同为'0'，否则为'1'+8位</li>
+ * </ul>
+ * 每个数据块的第一条记录不压缩（64位时间戳+64位重量+8位标志），块内记录依赖前一条，从块开头可以独立解码。
+ * 编码和解码共用同一组状态，解码一遍即可恢复编码器的状态。
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+class RecordCodec {
+
+    /**
+     * 单条记录编码后的最大位数
+     */
+    static final int MAX_RECORD_BITS = 64 + 64 + 8;
+
+    private boolean first = true;
+
+    private long timestamp;
+
+    private long delta;
+
+    private long value;
+
+    private int leading = -1;
+
+    private int trailing;
+
+    private int flags;
+
+    /**
+     * 开始新的数据块
+     */
+    void reset() {
+        first = true;
+        delta = 0;
+        leading = -1;
+    }
+
+    void encode(BitBuffer out, long timestamp, long value, int flags) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        if (first) {
+            out.writeBits(timestamp, 64);
+            out.writeBits(zigzag, 64);
+            out.writeBits(flags, 8);
+            first = false;
+            this.timestamp = timestamp;
+            this.value = zigzag;
+            this.flags = flags;
+            return;
+        }
+        long newDelta = timestamp - this.timestamp;
+        long dod = newDelta - delta;
+        if (dod == 0) {
+            out.writeBit(false);
+        } else if (dod >= -63 && dod <= 64) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 32);
+        }
+        delta = newDelta;
+        this.timestamp = timestamp;
+
+        long xor = zigzag ^ this.value;
+        if (xor == 0) {
+            out.writeBit(false);
+        } else {
+            out.writeBit(true);
+            int lead = Long.numberOfLeadingZeros(xor);
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int significant = 64 - lead - trail;
+                out.writeBit(true);
+                out.writeBits(lead, 6);
+                out.writeBits(significant - 1, 6);
+                out.writeBits(xor >>> trail, significant);
+                leading = lead;
+                trailing = trail;
+            }
+        }
+        this.value = zigzag;
+
+        if (flags == this.flags) {
+            out.writeBit(false);
+        } else {
+            out.writeBit(true);
+            out.writeBits(flags, 8);
+            this.flags = flags;
+        }
+    }
+
+    /**
+     * 解码一条记录，结果见 {@link #timestamp()}、{@link #value()}、{@link #flags()}
+     */
+    void decode(BitBuffer in) {
+        if (first) {
+            timestamp = in.readBits(64);
+            value = in.readBits(64);
+            flags = (int) in.readBits(8);
+            first = false;
+            return;
+        }
+        long dod;
+        if (!in.readBit()) {
+            dod = 0;
+        } else if (!in.readBit()) {
+            dod = signExtend(in.readBits(7), 7);
+        } else if (!in.readBit()) {
+            dod = signExtend(in.readBits(9), 9);
+        } else if (!in.readBit()) {
+            dod = signExtend(in.readBits(12), 12);
+        } else {
+            dod = signExtend(in.readBits(32), 32);
+        }
+        delta += dod;
+        timestamp += delta;
+
+        if (in.readBit()) {
+            if (in.readBit()) {
+                leading = (int) in.readBits(6);
+                int significant = (int) in.readBits(6) + 1;
+                trailing = 64 - leading - significant;
+            }
+            long xor = in.readBits(64 - leading - trailing) << trailing;
+            value ^= xor;
+        }
+
+        if (in.readBit()) {
+            flags = (int) in.readBits(8);
+        }
+    }
+
+    /**
+     * 按n位补码解释，7位的[-63,64]中64与-64的补码相同，按64解释
+     */
+    private static long signExtend(long bits, int n) {
+        long max = 1L << (n - 1);
+        return bits > max ? bits - (1L << n) : bits;
+    }
+
+    long timestamp() {
+        return timestamp;
+    }
+
+    long value() {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int flags() {
+        return flags;
+    }
+}
@@ -0,0 +1,21 @@
+package cn.allbs.weightscale.archive;
+
+/**
+ * 类 RecordVisitor
+ * </p>
+ * 按时间顺序接收归档中的记录
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+@FunctionalInterface
+public interface RecordVisitor {
+
+    /**
+     * @param timestamp 时间戳（毫秒）
+     * @param value     重量定点数
+     * @param flags     标志位，见 {@link WeightArchive#scaleOf(int)}、{@link WeightArchive#isStable(int)}
+     * @return 是否继续读取
+     */
+    boolean accept(long timestamp, long value, int flags);
+}
@@ -0,0 +1,266 @@
+package cn.allbs.weightscale.archive;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 类 WeightArchive
+ * </p>
+ * 单个重量序列（串口或总线上的地址）的历史归档。每天一个段文件 &lt;yyyyMMdd&gt;-&lt;序号&gt;.wsts，
+ * 段写满时由下一个序号继续。只有发布重量的线程追加，查询直接解码映射的段文件。
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+@Slf4j
+public class WeightArchive implements Closeable {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{8})-(\\d+)\\.wsts");
+
+    private static final int STABLE_FLAG = 0x10;
+
+    /**
+     * 写入失败后暂停写入的时长
+     */
+    private static final long FAILURE_BACKOFF_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final String series;
+
+    private final Path dir;
+
+    private final long maxSegmentSize;
+
+    private final ZoneId zone;
+
+    private volatile ArchiveSegment current;
+
+    private LocalDate currentDay;
+
+    private int currentPart;
+
+    private long lastTimestamp;
+
+    private long failedUntil;
+
+    /**
+     * 关闭后不再追加，避免串口移除后迟到的写入重新打开段文件
+     */
+    private boolean closed;
+
+    public WeightArchive(String series, Path dir, long maxSegmentSize, ZoneId zone) {
+        this.series = series;
+        this.dir = dir;
+        this.maxSegmentSize = maxSegmentSize;
+        this.zone = zone;
+    }
+
+    /**
+     * 追加一条记录，写入失败时记录日志并暂停一分钟，不影响调用方
+     *
+     * @param timestamp 时间戳（毫秒）
+     * @param value     重量定点数
+     * @param scale     小数位数
+     * @param stable    是否稳定
+     */
+    public synchronized void append(long timestamp, long value, int scale, boolean stable) {
+        if (closed || timestamp < failedUntil) {
+            return;
+        }
+        // 时间回拨时沿用上一条的时间，保证段内时间单调
+        long ts = Math.max(timestamp, lastTimestamp);
+        int flags = (scale & 0x0F) | (stable ? STABLE_FLAG : 0);
+        try {
+            LocalDate day = Instant.ofEpochMilli(ts).atZone(zone).toLocalDate();
+            if (current == null || !day.equals(currentDay)) {
+                roll(day, 0);
+            }
+            while (!current.append(ts, value, flags)) {
+                roll(day, currentPart + 1);
+            }
+            lastTimestamp = ts;
+        } catch (IOException e) {
+            failedUntil = timestamp + FAILURE_BACKOFF_MS;
+            log.error("写入{}的历史归档失败，{}秒内不再写入:{}", series, TimeUnit.MILLISECONDS.toSeconds(FAILURE_BACKOFF_MS), e.getMessage());
+        }
+    }
+
+    /**
+     * 切换到指定日期的段文件，跳过已写满或无法打开的序号
+     */
+    private void roll(LocalDate day, int fromPart) throws IOException {
+        closeCurrent();
+        Files.createDirectories(dir);
+        int part = Math.max(fromPart, lastPart(day));
+        while (true) {
+            Path file = dir.resolve(segmentName(day, part));
+            try {
+                current = ArchiveSegment.openForAppend(file, maxSegmentSize);
+                currentDay = day;
+                currentPart = part;
+                return;
+            } catch (IOException e) {
+                if (!Files.exists(file)) {
+                    throw e;
+                }
+                log.warn("历史归档段{}无法追加，使用下一个段文件:{}", file, e.getMessage());
+                part++;
+            }
+        }
+    }
+
+    private int lastPart(LocalDate day) throws IOException {
+        int last = 0;
+        for (Segment segment : segments(day, day)) {
+            last = Math.max(last, segment.part);
+        }
+        return last;
+    }
+
+    /**
+     * 按时间顺序读取 [from, to] 内的记录
+     *
+     * @param from    开始时间戳（毫秒，含）
+     * @param to      结束时间戳（毫秒，含）
+     * @param visitor 接收记录，返回false时停止
+     */
+    public void scan(long from, long to, RecordVisitor visitor) throws IOException {
+        LocalDate fromDay = Instant.ofEpochMilli(from).atZone(zone).toLocalDate();
+        LocalDate toDay = Instant.ofEpochMilli(to).atZone(zone).toLocalDate();
+        for (Segment segment : segments(fromDay, toDay)) {
+            ArchiveSegment live = current;
+            if (live != null && live.getFile().equals(segment.file)) {
+                if (!live.scan(from, to, visitor)) {
+                    return;
+                }
+                continue;
+            }
+            ArchiveSegment archived;
+            try {
+                archived = ArchiveSegment.openReadOnly(segment.file);
+            } catch (IOException e) {
+                log.warn("跳过无法读取的历史归档段{}:{}", segment.file, e.getMessage());
+                continue;
+            }
+            // 查询结束立即释放映射，否则Windows上保留期清理删不掉该文件
+            try (archived) {
+                if (!archived.scan(from, to, visitor)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除早于指定日期的段文件
+     *
+     * @param cutoff 保留的最早日期
+     * @return 删除的文件数
+     */
+    public synchronized int deleteBefore(LocalDate cutoff) throws IOException {
+        return deleteBefore(dir, cutoff);
+    }
+
+    /**
+     * 删除目录下早于指定日期的段文件，用于没有加载的序列
+     *
+     * @param dir    序列目录
+     * @param cutoff 保留的最早日期
+     * @return 删除的文件数
+     */
+    public static int deleteBefore(Path dir, LocalDate cutoff) throws IOException {
+        int deleted = 0;
+        for (Segment segment : segments(dir, LocalDate.MIN, cutoff.minusDays(1))) {
+            Files.deleteIfExists(segment.file);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    private List<Segment> segments(LocalDate fromDay, LocalDate toDay) throws IOException {
+        return segments(dir, fromDay, toDay);
+    }
+
+    private static List<Segment> segments(Path dir, LocalDate fromDay, LocalDate toDay) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.wsts")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                LocalDate day = LocalDate.parse(matcher.group(1), DAY);
+                if (!day.isBefore(fromDay) && !day.isAfter(toDay)) {
+                    segments.add(new Segment(file, day, Integer.parseInt(matcher.group(2))));
+                }
+            }
+        }
+        segments.sort(Comparator.comparing(Segment::day).thenComparingInt(Segment::part));
+        return segments;
+    }
+
+    private static String segmentName(LocalDate day, int part) {
+        return day.format(DAY) + "-" + part + ".wsts";
+    }
+
+    /**
+     * 把当前段的修改刷到磁盘
+     */
+    public void force() {
+        ArchiveSegment live = current;
+        if (live != null) {
+            live.force();
+        }
+    }
+
+    public String getSeries() {
+        return series;
+    }
+
+    public static int scaleOf(int flags) {
+        return flags & 0x0F;
+    }
+
+    public static boolean isStable(int flags) {
+        return (flags & STABLE_FLAG) != 0;
+    }
+
+    private void closeCurrent() {
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("关闭历史归档段{}失败:{}", current.getFile(), e.getMessage());
+            }
+            current = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        closeCurrent();
+    }
+
+    private record Segment(Path file, LocalDate day, int part) {
+    }
+}
@@ -0,0 +1,113 @@
+package cn.allbs.weightscale.codec;
+
+/**
+ * 类 ByteRingBuffer
+ * </p>
+ * 可复用的定长字节环形缓冲区，容量为2的幂，写满后丢弃最旧的字节。非线程安全，由单个串口的读取线程独占使用。
+ *
+ * @author ChenQi
+ * @date 2026/9/1
+ */
+public class ByteRingBuffer {
+
+    private final byte[] buffer;
+
+    private final int mask;
+
+    /**
+     * 读位置（单调递增）
+     */
+    private long head;
+
+    /**
+     * 写位置（单调递增）
+     */
+    private long tail;
+
+    public ByteRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.buffer = new byte[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 写入数据，空间不足时覆盖最旧的字节
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 长度
+     * @return 因溢出被丢弃的字节数
+     */
+    public int write(byte[] src, int off, int len) {
+        int dropped = 0;
+        if (len > buffer.length) {
+            // 只保留最新的一段
+            dropped = len - buffer.length;
+            off += dropped;
+            len = buffer.length;
+        }
+        int overflow = size() + len - buffer.length;
+        if (overflow > 0) {
+            head += overflow;
+            dropped += overflow;
+        }
+        int start = (int) (tail & mask);
+        int first = Math.min(len, buffer.length - start);
+        System.arraycopy(src, off, buffer, start, first);
+        if (first < len) {
+            System.arraycopy(src, off + first, buffer, 0, len - first);
+        }
+        tail += len;
+        return dropped;
+    }
+
+    /**
+     * 读取相对读位置的字节，不移动读位置
+     *
+     * @param index 相对下标
+     * @return 字节
+     */
+    public byte get(int index) {
+        return buffer[(int) ((head + index) & mask)];
+    }
+
+    /**
+     * 复制数据到目标数组，不移动读位置
+     *
+     * @param index 相对下标
+     * @param dst   目标数组
+     * @param off   目标起始位置
+     * @param len   长度
+     */
+    public void copyTo(int index, byte[] dst, int off, int len) {
+        int start = (int) ((head + index) & mask);
+        int first = Math.min(len, buffer.length - start);
+        System.arraycopy(buffer, start, dst, off, first);
+        if (first < len) {
+            System.arraycopy(buffer, 0, dst, off + first, len - first);
+        }
+    }
+
+    /**
+     * 丢弃读位置开始的n个字节
+     *
+     * @param n 字节数
+     */
+    public void skip(int n) {
+        head += Math.min(n, size());
+    }
+
+    public int size() {
+        return (int) (tail - head);
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public void clear() {
+        head = tail;
+    }
+}
@@ -0,0 +1,166 @@
+package cn.allbs.weightscale.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 类 FrameCapture
+ * </p>
+ * 单个串口最近收到的原始帧，由 {@link FrameDecoder} 在解析时写入。
+ * 每一帧复制到预先分配的定长槽位中，同时记录接收时间和解析结果，写满后覆盖最旧的帧，写入时不分配对象；
+ * 校验失败和错位丢弃的数据另外保存在一个独立的环中，不会被大量正常帧覆盖。
+ * 只在查询时复制出 {@link Entry}。
+ *
+ * @author ChenQi
+ * @date 2026/10/3
+ */
+public class FrameCapture {
+
+    /**
+     * 解析成功
+     */
+    public static final byte OK = 0;
+
+    /**
+     * 校验失败或长度不足
+     */
+    public static final byte BAD_CHECKSUM = 1;
+
+    /**
+     * 帧边界错位被丢弃的字节
+     */
+    public static final byte MISALIGNED = 2;
+
+    private final Ring frames;
+
+    private final Ring malformed;
+
+    private final int frameCount;
+
+    private final int malformedCount;
+
+    private long sequence;
+
+    /**
+     * @param frames    保存的帧数
+     * @param malformed 保存的异常帧数，0表示不单独保存
+     * @param slotSize  每帧最多保存的字节数，超出部分截断
+     */
+    public FrameCapture(int frames, int malformed, int slotSize) {
+        this.frameCount = frames;
+        this.malformedCount = malformed;
+        this.frames = new Ring(frames, slotSize);
+        this.malformed = malformed > 0 ? new Ring(malformed, slotSize) : null;
+    }
+
+    /**
+     * 记录环形缓冲区开头的一段数据
+     *
+     * @param src    解码器的接收缓冲区
+     * @param len    长度
+     * @param status 解析结果
+     */
+    public synchronized void record(ByteRingBuffer src, int len, byte status) {
+        long now = System.currentTimeMillis();
+        long seq = ++sequence;
+        frames.add(src, len, status, seq, now);
+        if (status != OK && malformed != null) {
+            malformed.add(src, len, status, seq, now);
+        }
+    }
+
+    /**
+     * 复制最近的帧
+     *
+     * @param malformedOnly 是否只返回异常帧
+     * @param limit         数量
+     * @return 按时间倒序的帧
+     */
+    public synchronized List<Entry> latest(boolean malformedOnly, int limit) {
+        Ring ring = malformedOnly ? malformed : frames;
+        return ring == null ? List.of() : ring.latest(limit);
+    }
+
+    public int getFrames() {
+        return frameCount;
+    }
+
+    public int getMalformed() {
+        return malformedCount;
+    }
+
+    public static String statusName(byte status) {
+        return switch (status) {
+            case OK -> "OK";
+            case BAD_CHECKSUM -> "BAD_CHECKSUM";
+            case MISALIGNED -> "MISALIGNED";
+            default -> "UNKNOWN";
+        };
+    }
+
+    /**
+     * 复制出的一帧
+     *
+     * @param sequence   序号，两个环中的同一帧序号相同
+     * @param receivedAt 接收时间戳（毫秒）
+     * @param status     解析结果
+     * @param length     原始长度
+     * @param data       保存的字节，可能被截断
+     */
+    public record Entry(long sequence, long receivedAt, byte status, int length, byte[] data) {
+    }
+
+    /**
+     * 定长槽位的帧环，所有数组在创建时分配
+     */
+    private static final class Ring {
+
+        private final int capacity;
+
+        private final int slotSize;
+
+        private final byte[] slab;
+
+        private final int[] lengths;
+
+        private final long[] sequences;
+
+        private final long[] timestamps;
+
+        private final byte[] statuses;
+
+        private long count;
+
+        private Ring(int capacity, int slotSize) {
+            this.capacity = capacity;
+            this.slotSize = slotSize;
+            this.slab = new byte[capacity * slotSize];
+            this.lengths = new int[capacity];
+            this.sequences = new long[capacity];
+            this.timestamps = new long[capacity];
+            this.statuses = new byte[capacity];
+        }
+
+        private void add(ByteRingBuffer src, int len, byte status, long seq, long now) {
+            int slot = (int) (count++ % capacity);
+            src.copyTo(0, slab, slot * slotSize, Math.min(len, slotSize));
+            lengths[slot] = len;
+            sequences[slot] = seq;
+            timestamps[slot] = now;
+            statuses[slot] = status;
+        }
+
+        private List<Entry> latest(int limit) {
+            int n = (int) Math.min(Math.min(count, capacity), Math.max(0, limit));
+            List<Entry> entries = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int slot = (int) ((count - 1 - i) % capacity);
+                int stored = Math.min(lengths[slot], slotSize);
+                byte[] data = new byte[stored];
+                System.arraycopy(slab, slot * slotSize, data, 0, stored);
+                entries.add(new Entry(sequences[slot], timestamps[slot], statuses[slot], lengths[slot], data));
+            }
+            return entries;
+        }
+    }
+}
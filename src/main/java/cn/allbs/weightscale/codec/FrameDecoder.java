@@ -0,0 +1,253 @@
+package cn.allbs.weightscale.codec;
+
+import cn.allbs.weightscale.util.SerialPortUtil;
+
+/**
+ * 类 FrameDecoder
+ * </p>
+ * DS10 流式帧解码器，每个串口一个实例。
+ * 帧格式为 STX(0x02) + 数据 + 异或校验高四位 + 异或校验低四位 + ETX(0x03)，校验位为ASCII形式。
+ * 接收到的字节先写入环形缓冲区，再按 STX/ETX 边界重新对齐，丢弃校验失败或残缺的数据。
+ *
+ * @author ChenQi
+ * @date 2026/9/1
+ */
+public class FrameDecoder {
+
+    /**
+     * 开始符
+     */
+    public static final byte STX = 0x02;
+
+    /**
+     * 结束符
+     */
+    public static final byte ETX = 0x03;
+
+    /**
+     * 连续发送方式下的帧长度
+     */
+    public static final int CONTINUOUS_FRAME_LENGTH = 12;
+
+    /**
+     * 指令应答方式下的应答帧长度，比连续发送多地址和命令两个字节
+     */
+    public static final int RESPONSE_FRAME_LENGTH = 14;
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 4096;
+
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 32;
+
+    /**
+     * 最短帧：STX + 1字节数据 + 2字节校验 + ETX
+     */
+    private static final int MIN_FRAME_LENGTH = 5;
+
+    private final ByteRingBuffer ring;
+
+    private final int maxFrameLength;
+
+    /**
+     * 最近一次解出的帧，复用同一个数组
+     */
+    private final byte[] frame;
+
+    private int frameLength;
+
+    /**
+     * 最近一次 {@link #latest()} 中被更新帧覆盖的帧数
+     */
+    private int skipped;
+
+    /**
+     * 统计只由解码线程写入，监控接口在其他线程读取
+     */
+    private volatile long bytesReceived;
+
+    private volatile long framesDecoded;
+
+    private volatile long checksumFailures;
+
+    private volatile long resyncBytes;
+
+    private volatile long overflowBytes;
+
+    /**
+     * 原始帧记录，为null时不记录
+     */
+    private FrameCapture capture;
+
+    public FrameDecoder() {
+        this(DEFAULT_BUFFER_CAPACITY, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public FrameDecoder(int bufferCapacity, int maxFrameLength) {
+        this.ring = new ByteRingBuffer(bufferCapacity);
+        this.maxFrameLength = maxFrameLength;
+        this.frame = new byte[maxFrameLength];
+    }
+
+    /**
+     * 写入串口读到的原始字节
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 长度
+     */
+    public void feed(byte[] src, int off, int len) {
+        bytesReceived += len;
+        overflowBytes += ring.write(src, off, len);
+    }
+
+    /**
+     * 解析下一帧
+     *
+     * @return 是否解析到完整且校验通过的帧，结果见 {@link #frame()}
+     */
+    public boolean next() {
+        while (ring.size() > 0) {
+            if (ring.get(0) != STX) {
+                // 一次丢弃到下一个开始符之前的所有字节
+                int run = 1;
+                while (run < ring.size() && ring.get(run) != STX) {
+                    run++;
+                }
+                capture(run, FrameCapture.MISALIGNED);
+                ring.skip(run);
+                resyncBytes += run;
+                continue;
+            }
+            int limit = Math.min(ring.size(), maxFrameLength);
+            int end = -1;
+            int restart = -1;
+            for (int i = 1; i < limit; i++) {
+                byte b = ring.get(i);
+                if (b == ETX) {
+                    end = i;
+                    break;
+                }
+                if (b == STX) {
+                    restart = i;
+                    break;
+                }
+            }
+            if (restart > 0) {
+                // 帧未结束又出现开始符，说明前面的字节丢失了
+                capture(restart, FrameCapture.MISALIGNED);
+                ring.skip(restart);
+                resyncBytes += restart;
+                continue;
+            }
+            if (end < 0) {
+                if (limit < maxFrameLength) {
+                    // 数据还不完整，等待下一批字节
+                    return false;
+                }
+                capture(1, FrameCapture.MISALIGNED);
+                ring.skip(1);
+                resyncBytes++;
+                continue;
+            }
+            int length = end + 1;
+            if (length < MIN_FRAME_LENGTH || !checksumMatches(length)) {
+                capture(length, FrameCapture.BAD_CHECKSUM);
+                ring.skip(length);
+                checksumFailures++;
+                continue;
+            }
+            capture(length, FrameCapture.OK);
+            ring.copyTo(0, frame, 0, length);
+            ring.skip(length);
+            frameLength = length;
+            framesDecoded++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 解析缓冲区中的所有帧，只保留最新的一帧
+     *
+     * @return 是否有新帧，被覆盖的帧数见 {@link #skipped()}
+     */
+    public boolean latest() {
+        int count = 0;
+        while (next()) {
+            count++;
+        }
+        skipped = Math.max(count - 1, 0);
+        return count > 0;
+    }
+
+    private boolean checksumMatches(int length) {
+        byte xor = 0;
+        for (int i = 1; i < length - 3; i++) {
+            xor ^= ring.get(i);
+        }
+        return ring.get(length - 3) == SerialPortUtil.toAsciiHex((xor >> 4) & 0x0F) && ring.get(length - 2) == SerialPortUtil.toAsciiHex(xor & 0x0F);
+    }
+
+    private void capture(int len, byte status) {
+        if (capture != null) {
+            capture.record(ring, len, status);
+        }
+    }
+
+    /**
+     * 还未解析的字节数，大于0表示收到了不完整的帧
+     *
+     * @return 字节数
+     */
+    public int buffered() {
+        return ring.size();
+    }
+
+    /**
+     * 丢弃所有未解析的字节
+     */
+    public void reset() {
+        ring.clear();
+        frameLength = 0;
+    }
+
+    /**
+     * 设置原始帧记录，同一串口的多个解码器可以共用一个记录
+     *
+     * @param capture 原始帧记录，为null时不记录
+     */
+    public void setCapture(FrameCapture capture) {
+        this.capture = capture;
+    }
+
+    public byte[] frame() {
+        return frame;
+    }
+
+    public int frameLength() {
+        return frameLength;
+    }
+
+    public int skipped() {
+        return skipped;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    public long getChecksumFailures() {
+        return checksumFailures;
+    }
+
+    public long getResyncBytes() {
+        return resyncBytes;
+    }
+
+    public long getOverflowBytes() {
+        return overflowBytes;
+    }
+}
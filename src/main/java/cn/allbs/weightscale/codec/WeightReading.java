@@ -0,0 +1,134 @@
+package cn.allbs.weightscale.codec;
+
+import cn.allbs.weightscale.util.SerialPortUtil;
+
+/**
+ * 类 WeightReading
+ * </p>
+ * 可复用的定点数重量解析结果，重量 = value / 10^scale，单位与地磅设置一致（当前为Kg）。
+ * 解析失败时通过状态码返回，不抛出异常。
+ *
+ * @author ChenQi
+ * @date 2026/9/3
+ */
+public class WeightReading {
+
+    /**
+     * 解析成功
+     */
+    public static final int OK = 0;
+
+    /**
+     * 数据为空或长度不够
+     */
+    public static final int TOO_SHORT = 1;
+
+    /**
+     * 开始符或结束符错误
+     */
+    public static final int BAD_FRAMING = 2;
+
+    /**
+     * 异或校验失败（重量仍然会被解析）
+     */
+    public static final int BAD_CHECKSUM = 3;
+
+    /**
+     * 数据内容不合法
+     */
+    public static final int MALFORMED = 4;
+
+    private static final long[] POW10 = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+
+    private long value;
+
+    private int scale;
+
+    private int status = TOO_SHORT;
+
+    /**
+     * 设置解析结果
+     *
+     * @param value  未缩放的带符号数值
+     * @param scale  小数位数
+     * @param status 状态码
+     */
+    public void set(long value, int scale, int status) {
+        this.value = value;
+        this.scale = scale;
+        this.status = status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isOk() {
+        return status == OK;
+    }
+
+    /**
+     * 是否解析出了重量（校验失败时也会有重量）
+     *
+     * @return 结果
+     */
+    public boolean hasValue() {
+        return status == OK || status == BAD_CHECKSUM;
+    }
+
+    /**
+     * 换算为指定小数位数的数值
+     *
+     * @param targetScale 目标小数位数
+     * @return 数值
+     */
+    public long valueAtScale(int targetScale) {
+        return rescale(value, scale, targetScale);
+    }
+
+    public double toDouble() {
+        return (double) value / POW10[scale];
+    }
+
+    public void copyFrom(WeightReading other) {
+        this.value = other.value;
+        this.scale = other.scale;
+        this.status = other.status;
+    }
+
+    /**
+     * 定点数换算小数位数
+     *
+     * @param value       数值
+     * @param scale       当前小数位数
+     * @param targetScale 目标小数位数
+     * @return 换算后的数值
+     */
+    public static long rescale(long value, int scale, int targetScale) {
+        if (scale == targetScale) {
+            return value;
+        }
+        return scale < targetScale ? value * POW10[targetScale - scale] : value / POW10[scale - targetScale];
+    }
+
+    public static long pow10(int scale) {
+        return POW10[scale];
+    }
+
+    @Override
+    public String toString() {
+        return SerialPortUtil.formatWeight(value, scale);
+    }
+}
@@ -0,0 +1,40 @@
+package cn.allbs.weightscale.config;
+
+import lombok.Data;
+
+/**
+ * 类 ArchiveSettings
+ * </p>
+ * 重量历史归档参数，对应 serial.archive
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+@Data
+public class ArchiveSettings {
+
+    /**
+     * 是否归档写入Redis的重量
+     */
+    private boolean enabled = false;
+
+    /**
+     * 归档目录，每个串口（总线轮询时为 串口:地址:操作码）一个子目录
+     */
+    private String dir = "data/archive";
+
+    /**
+     * 保留天数
+     */
+    private int retentionDays = 180;
+
+    /**
+     * 单个段文件的最大字节数，写满后由同一天的下一个段文件继续
+     */
+    private long maxSegmentSize = 4 * 1024 * 1024;
+
+    /**
+     * 刷盘间隔（毫秒）
+     */
+    private long flushInterval = 10000;
+}
@@ -0,0 +1,48 @@
+package cn.allbs.weightscale.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 类 CaptureSettings
+ * </p>
+ * 串口数据的录制和回放参数，对应 serial.record 和 serial.replay
+ *
+ * @author ChenQi
+ * @date 2026/10/5
+ */
+@Data
+public class CaptureSettings {
+
+    /**
+     * 是否录制串口收到的数据
+     */
+    private boolean record = false;
+
+    /**
+     * 录制文件目录
+     */
+    private String recordDir = "logs/capture";
+
+    /**
+     * 录制的串口，为空时录制所有串口
+     */
+    private List<String> recordPorts = new ArrayList<>();
+
+    /**
+     * 回放的录制文件，serial.transport 为 replay 时生效，串口名称取自文件头
+     */
+    private List<String> replayFiles = new ArrayList<>();
+
+    /**
+     * 回放倍速，0表示不等待
+     */
+    private double replaySpeed = 1;
+
+    /**
+     * 回放结束后是否从头开始
+     */
+    private boolean replayLoop = false;
+}
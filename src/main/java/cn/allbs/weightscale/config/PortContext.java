@@ -0,0 +1,66 @@
+package cn.allbs.weightscale.config;
+
+import cn.allbs.weightscale.handler.BaudDetector;
+import cn.allbs.weightscale.handler.BusPoller;
+import cn.allbs.weightscale.handler.CommandExecutor;
+import cn.allbs.weightscale.handler.SerialPortListener;
+import cn.allbs.weightscale.model.BaudDetectResult;
+import cn.allbs.weightscale.transport.SerialParameters;
+import cn.allbs.weightscale.transport.SerialTransport;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 类 PortContext
+ * </p>
+ * 登记表中单个串口的运行状态，启动、停止和创建执行器时以该对象加锁，不影响其他串口
+ *
+ * @author ChenQi
+ * @date 2026/10/13
+ */
+@Getter
+@Setter
+class PortContext {
+
+    private final String name;
+
+    private final SerialTransport transport;
+
+    /**
+     * 串口读写许可，指令事务执行期间监听不读取串口
+     */
+    private final Semaphore ioPermit = new Semaphore(1);
+
+    private volatile PortSettings settings;
+
+    private volatile SerialPortListener listener;
+
+    private volatile CommandExecutor commandExecutor;
+
+    private volatile BusPoller busPoller;
+
+    /**
+     * 开始监听的时间戳（毫秒），未监听时为0
+     */
+    private volatile long startedAt;
+
+    private volatile BaudDetector detector;
+
+    /**
+     * 最近一次波特率检测的结果
+     */
+    private volatile BaudDetectResult detection;
+
+    /**
+     * 检测后锁定的参数，重启监听和重连时沿用，配置的串口参数变化后清除
+     */
+    private volatile SerialParameters detected;
+
+    PortContext(SerialTransport transport, PortSettings settings) {
+        this.name = transport.getName();
+        this.transport = transport;
+        this.settings = settings;
+    }
+}
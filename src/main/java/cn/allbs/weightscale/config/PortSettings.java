@@ -0,0 +1,328 @@
+package cn.allbs.weightscale.config;
+
+import cn.allbs.weightscale.enums.FrameCodec;
+import cn.allbs.weightscale.enums.FrameLogMode;
+import cn.allbs.weightscale.enums.Parity;
+import cn.allbs.weightscale.enums.ReceptionMode;
+import cn.allbs.weightscale.transport.SerialParameters;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类 PortSettings
+ * </p>
+ * 单个串口的配置，对应 serial.&lt;profile&gt;.settings.&lt;串口名称&gt;
+ *
+ * @author ChenQi
+ * @date 2026/9/5
+ */
+@Data
+public class PortSettings {
+
+    /**
+     * 串口名称
+     */
+    private String portName;
+
+    /**
+     * 缓存到redis中的key
+     */
+    private String redisKey;
+
+    /**
+     * 接收方式
+     */
+    private ReceptionMode mode = ReceptionMode.POLLING;
+
+    /**
+     * 通信参数：波特率、数据位、校验位、停止位和超时
+     */
+    private SerialParameters serial = new SerialParameters();
+
+    /**
+     * 帧格式
+     */
+    private FrameCodec codec = FrameCodec.DS10;
+
+    /**
+     * 写入Redis的过滤策略
+     */
+    private Publish publish = new Publish();
+
+    /**
+     * 稳定判断参数
+     */
+    private Stability stability = new Stability();
+
+    /**
+     * 指令应答参数
+     */
+    private Command command = new Command();
+
+    /**
+     * 总线轮询参数
+     */
+    private Bus bus = new Bus();
+
+    /**
+     * 每帧数据的日志参数
+     */
+    private FrameLog frameLog = new FrameLog();
+
+    /**
+     * 原始帧记录参数
+     */
+    private Capture capture = new Capture();
+
+    /**
+     * 断线重连参数
+     */
+    private Reconnect reconnect = new Reconnect();
+
+    /**
+     * 波特率自动检测参数
+     */
+    private AutoBaud autoBaud = new AutoBaud();
+
+    /**
+     * 写入Redis的过滤策略，对应 settings.&lt;串口名称&gt;.publish
+     */
+    @Data
+    public static class Publish {
+
+        /**
+         * 是否只在重量变化时写入
+         */
+        private boolean onChange = true;
+
+        /**
+         * 死区（Kg），变化量不超过该值视为未变化
+         */
+        private BigDecimal deadband = BigDecimal.ZERO;
+
+        /**
+         * 两次写入的最小间隔（毫秒）
+         */
+        private long minInterval = 0;
+
+        /**
+         * 最大静默时长（毫秒），超过后即使重量未变化也写入一次，0表示不启用
+         */
+        private long maxSilence = 30000;
+    }
+
+    /**
+     * 稳定判断参数，对应 settings.&lt;串口名称&gt;.stability
+     */
+    @Data
+    public static class Stability {
+
+        /**
+         * 滑动窗口帧数
+         */
+        private int window = 10;
+
+        /**
+         * 容差（Kg），窗口内标准差不超过该值视为稳定
+         */
+        private BigDecimal tolerance = BigDecimal.TEN;
+
+        /**
+         * 空磅阈值（Kg），低于该值视为空磅
+         */
+        private BigDecimal emptyThreshold = BigDecimal.valueOf(200);
+    }
+
+    /**
+     * 指令应答参数，对应 settings.&lt;串口名称&gt;.command
+     */
+    @Data
+    public static class Command {
+
+        /**
+         * 指令从提交到收到应答的超时时间（毫秒），包含排队时间
+         */
+        private long timeout = 1000;
+
+        /**
+         * 写入指令后等待完整应答的最长时间（毫秒）
+         */
+        private long responseTimeout = 500;
+
+        /**
+         * 应答开始后两个字节之间的最长间隔（毫秒）
+         */
+        private long interByteTimeout = 50;
+
+        /**
+         * 仪表应答是否回显地址和命令：true 为14字节的应答帧，地址和命令须与指令一致；
+         * false 为不带回显的12字节重量帧，写入指令后收到的第一帧即为应答，此时同一串口上不能有连续发送的重量帧
+         */
+        private boolean echo = true;
+
+        /**
+         * /scale 查询结果的缓存时间（毫秒），0表示不缓存，只合并同时到达的相同查询
+         */
+        private long cacheTtl = 0;
+    }
+
+    /**
+     * 指令应答方式下的RS-485总线轮询，对应 settings.&lt;串口名称&gt;.bus
+     */
+    @Data
+    public static class Bus {
+
+        /**
+         * 是否启用后台轮询
+         */
+        private boolean enabled = false;
+
+        /**
+         * 轮询的地址，A~Z
+         */
+        private List<String> addresses = new ArrayList<>();
+
+        /**
+         * 每个地址轮询的操作码，见 {@link cn.allbs.weightscale.enums.ScaleCommand}
+         */
+        private List<String> operations = new ArrayList<>(List.of("B"));
+
+        /**
+         * 地址的轮询权重，未配置的地址权重为1
+         */
+        private Map<String, Integer> weights = new HashMap<>();
+
+        /**
+         * 重量变化时的轮询间隔（毫秒）
+         */
+        private long fastInterval = 200;
+
+        /**
+         * 重量长时间不变时的轮询间隔（毫秒）
+         */
+        private long slowInterval = 2000;
+
+        /**
+         * 重量保持不变超过该时长后降为慢速轮询（毫秒）
+         */
+        private long idleAfter = 5000;
+
+        /**
+         * 连续失败达到该次数后暂时跳过该地址
+         */
+        private int maxFailures = 3;
+
+        /**
+         * 首次跳过的时长（毫秒），之后每次翻倍
+         */
+        private long backoff = 5000;
+
+        /**
+         * 跳过的最长时长（毫秒）
+         */
+        private long maxBackoff = 60000;
+    }
+
+    /**
+     * 每帧数据的日志参数，对应 settings.&lt;串口名称&gt;.frame-log
+     */
+    @Data
+    public static class FrameLog {
+
+        /**
+         * 日志方式
+         */
+        private FrameLogMode mode = FrameLogMode.SAMPLED;
+
+        /**
+         * 汇总日志的间隔（毫秒），同一间隔内的异常只记录第一次
+         */
+        private long summaryInterval = 60000;
+    }
+
+    /**
+     * 原始帧记录参数，对应 settings.&lt;串口名称&gt;.capture
+     */
+    @Data
+    public static class Capture {
+
+        /**
+         * 保存最近的帧数，0表示不记录
+         */
+        private int frames = 256;
+
+        /**
+         * 单独保存的最近异常帧数
+         */
+        private int malformed = 64;
+    }
+
+    /**
+     * 断线重连参数，对应 settings.&lt;串口名称&gt;.reconnect
+     */
+    @Data
+    public static class Reconnect {
+
+        /**
+         * 第一次重试的间隔（毫秒），之后每次翻倍
+         */
+        private long initialBackoff = 1000;
+
+        /**
+         * 最长重试间隔（毫秒）
+         */
+        private long maxBackoff = 30000;
+
+        /**
+         * 重试间隔的随机抖动比例，多个串口同时断开时错开重试
+         */
+        private double jitter = 0.2;
+
+        /**
+         * 连续失败多少次后视为设备不可用
+         */
+        private int failAfter = 5;
+
+        /**
+         * 打开失败后扫描重新插入设备的最短间隔（毫秒）
+         */
+        private long scanInterval = 5000;
+    }
+
+    /**
+     * 波特率自动检测参数，对应 settings.&lt;串口名称&gt;.auto-baud
+     */
+    @Data
+    public static class AutoBaud {
+
+        /**
+         * 是否在开始监听前自动检测
+         */
+        private boolean enabled = false;
+
+        /**
+         * 候选波特率，按顺序尝试
+         */
+        private List<Integer> baudRates = new ArrayList<>(List.of(115200, 57600, 38400, 19200, 9600, 4800, 2400));
+
+        /**
+         * 候选校验位
+         */
+        private List<Parity> parities = new ArrayList<>(List.of(Parity.NONE, Parity.EVEN, Parity.ODD));
+
+        /**
+         * 每组参数的采样时长（毫秒）
+         */
+        private long sampleTime = 1000;
+
+        /**
+         * 最好的一组参数至少收到多少帧校验通过的数据才采用，否则保留配置的参数
+         */
+        private int minFrames = 3;
+    }
+}
@@ -1,29 +1,276 @@
 package cn.allbs.weightscale.config;
 
+import cn.allbs.weightscale.enums.FrameCodec;
+import cn.allbs.weightscale.enums.FrameLogMode;
+import cn.allbs.weightscale.enums.Parity;
+import cn.allbs.weightscale.enums.ReceptionMode;
+import cn.allbs.weightscale.transport.SerialParameters;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.env.YamlPropertySourceLoader;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.env.Environment;
+import org.springframework.core.env.CompositePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 类 SerialPortConfig
+ * </p>
+ * 串口登记表为 serial.&lt;profile&gt;.ports，每个串口的配置在 serial.&lt;profile&gt;.settings.&lt;串口名称&gt; 下；
+ * serial.registry-file 指定的外部文件优先于application.yml，修改后可以通过 {@link #reload()} 重新加载，不需要重启
  *
  * @author ChenQi
  * @date 2024/7/1
  */
+@Slf4j
 @Configuration
 public class SerialPortConfig {
 
+    private static final String REGISTRY_SOURCE = "serialPortRegistry";
+
     @Resource
-    private Environment env;
+    private ConfigurableEnvironment env;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 重新加载 serial.registry-file 指定的外部配置文件，文件不存在时移除之前加载的内容
+     *
+     * @return 是否加载了外部文件
+     */
+    public synchronized boolean reload() {
+        MutablePropertySources sources = env.getPropertySources();
+        String file = env.getProperty("serial.registry-file");
+        Path path = file == null || file.isBlank() ? null : Path.of(file);
+        if (path == null || !Files.isRegularFile(path)) {
+            if (sources.remove(REGISTRY_SOURCE) != null) {
+                log.info("串口登记文件{}不存在，恢复使用application.yml中的配置", file);
+            }
+            return false;
+        }
+        try {
+            List<PropertySource<?>> loaded = new YamlPropertySourceLoader().load(REGISTRY_SOURCE, new FileSystemResource(path));
+            CompositePropertySource registry = new CompositePropertySource(REGISTRY_SOURCE);
+            loaded.forEach(registry::addPropertySource);
+            if (sources.contains(REGISTRY_SOURCE)) {
+                sources.replace(REGISTRY_SOURCE, registry);
+            } else {
+                sources.addFirst(registry);
+            }
+            log.info("已加载串口登记文件{}", path.toAbsolutePath());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("串口登记文件" + path + "格式错误: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 登记的串口，未配置 serial.&lt;profile&gt;.ports 时返回空列表，表示监听枚举到的全部串口
+     *
+     * @return 串口名称
+     */
+    public List<String> getPortNames() {
+        return getList(prefix() + "ports", List.of());
+    }
 
+    /**
+     * 登记的串口和对应的redis key
+     *
+     * @return 串口名称到redis key的映射
+     */
     public Map<String, String> getPortMappings() {
-        String profile = env.getProperty("spring.profiles.active", "weisanlu");
-        Map<String, String> portMappings = new HashMap<>();
-        portMappings.put("COM3", env.getProperty("serial." + profile + ".COM3"));
-        portMappings.put("COM4", env.getProperty("serial." + profile + ".COM4"));
+        Map<String, String> portMappings = new LinkedHashMap<>();
+        for (String portName : getPortNames()) {
+            portMappings.put(portName, redisKey(portName));
+        }
         return portMappings;
     }
+
+    /**
+     * 获取单个串口的配置
+     *
+     * @param portName 串口名称
+     * @return 串口配置
+     */
+    public PortSettings getPortSettings(String portName) {
+        String prefix = prefix();
+        String settingsPrefix = prefix + "settings." + portName + ".";
+        PortSettings settings = new PortSettings();
+        settings.setPortName(portName);
+        settings.setRedisKey(redisKey(portName));
+        settings.setMode(ReceptionMode.of(env.getProperty(settingsPrefix + "mode")));
+        SerialParameters serial = settings.getSerial();
+        serial.setBaudRate(env.getProperty(settingsPrefix + "baud-rate", Integer.class, serial.getBaudRate()));
+        serial.setDataBits(env.getProperty(settingsPrefix + "data-bits", Integer.class, serial.getDataBits()));
+        serial.setParity(Parity.of(env.getProperty(settingsPrefix + "parity")));
+        serial.setStopBits(env.getProperty(settingsPrefix + "stop-bits", Integer.class, serial.getStopBits()));
+        serial.setReadTimeout(env.getProperty(settingsPrefix + "read-timeout", Integer.class, serial.getReadTimeout()));
+        serial.setWriteTimeout(env.getProperty(settingsPrefix + "write-timeout", Integer.class, serial.getWriteTimeout()));
+        settings.setCodec(FrameCodec.of(env.getProperty(settingsPrefix + "codec")));
+        PortSettings.Publish publish = settings.getPublish();
+        publish.setOnChange(env.getProperty(settingsPrefix + "publish.on-change", Boolean.class, publish.isOnChange()));
+        publish.setDeadband(env.getProperty(settingsPrefix + "publish.deadband", BigDecimal.class, publish.getDeadband()));
+        publish.setMinInterval(env.getProperty(settingsPrefix + "publish.min-interval", Long.class, publish.getMinInterval()));
+        publish.setMaxSilence(env.getProperty(settingsPrefix + "publish.max-silence", Long.class, publish.getMaxSilence()));
+        PortSettings.Stability stability = settings.getStability();
+        stability.setWindow(env.getProperty(settingsPrefix + "stability.window", Integer.class, stability.getWindow()));
+        stability.setTolerance(env.getProperty(settingsPrefix + "stability.tolerance", BigDecimal.class, stability.getTolerance()));
+        stability.setEmptyThreshold(env.getProperty(settingsPrefix + "stability.empty-threshold", BigDecimal.class, stability.getEmptyThreshold()));
+        PortSettings.Command command = settings.getCommand();
+        command.setTimeout(env.getProperty(settingsPrefix + "command.timeout", Long.class, command.getTimeout()));
+        command.setResponseTimeout(env.getProperty(settingsPrefix + "command.response-timeout", Long.class, command.getResponseTimeout()));
+        command.setInterByteTimeout(env.getProperty(settingsPrefix + "command.inter-byte-timeout", Long.class, command.getInterByteTimeout()));
+        command.setEcho(env.getProperty(settingsPrefix + "command.echo", Boolean.class, command.isEcho()));
+        command.setCacheTtl(env.getProperty(settingsPrefix + "command.cache-ttl", Long.class, command.getCacheTtl()));
+        PortSettings.Bus bus = settings.getBus();
+        bus.setEnabled(env.getProperty(settingsPrefix + "bus.enabled", Boolean.class, bus.isEnabled()));
+        bus.setAddresses(getList(settingsPrefix + "bus.addresses", bus.getAddresses()));
+        bus.setOperations(getList(settingsPrefix + "bus.operations", bus.getOperations()));
+        for (String weight : getList(settingsPrefix + "bus.weights", List.of())) {
+            // 格式为 地址:权重
+            String[] pair = weight.split(":");
+            if (pair.length == 2) {
+                bus.getWeights().put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+            }
+        }
+        bus.setFastInterval(env.getProperty(settingsPrefix + "bus.fast-interval", Long.class, bus.getFastInterval()));
+        bus.setSlowInterval(env.getProperty(settingsPrefix + "bus.slow-interval", Long.class, bus.getSlowInterval()));
+        bus.setIdleAfter(env.getProperty(settingsPrefix + "bus.idle-after", Long.class, bus.getIdleAfter()));
+        bus.setMaxFailures(env.getProperty(settingsPrefix + "bus.max-failures", Integer.class, bus.getMaxFailures()));
+        bus.setBackoff(env.getProperty(settingsPrefix + "bus.backoff", Long.class, bus.getBackoff()));
+        bus.setMaxBackoff(env.getProperty(settingsPrefix + "bus.max-backoff", Long.class, bus.getMaxBackoff()));
+        PortSettings.FrameLog frameLog = settings.getFrameLog();
+        frameLog.setMode(FrameLogMode.of(env.getProperty(settingsPrefix + "frame-log.mode")));
+        frameLog.setSummaryInterval(env.getProperty(settingsPrefix + "frame-log.summary-interval", Long.class, frameLog.getSummaryInterval()));
+        PortSettings.Capture capture = settings.getCapture();
+        capture.setFrames(env.getProperty(settingsPrefix + "capture.frames", Integer.class, capture.getFrames()));
+        capture.setMalformed(env.getProperty(settingsPrefix + "capture.malformed", Integer.class, capture.getMalformed()));
+        PortSettings.Reconnect reconnect = settings.getReconnect();
+        reconnect.setInitialBackoff(env.getProperty(settingsPrefix + "reconnect.initial-backoff", Long.class, reconnect.getInitialBackoff()));
+        reconnect.setMaxBackoff(env.getProperty(settingsPrefix + "reconnect.max-backoff", Long.class, reconnect.getMaxBackoff()));
+        reconnect.setJitter(env.getProperty(settingsPrefix + "reconnect.jitter", Double.class, reconnect.getJitter()));
+        reconnect.setFailAfter(env.getProperty(settingsPrefix + "reconnect.fail-after", Integer.class, reconnect.getFailAfter()));
+        reconnect.setScanInterval(env.getProperty(settingsPrefix + "reconnect.scan-interval", Long.class, reconnect.getScanInterval()));
+        PortSettings.AutoBaud autoBaud = settings.getAutoBaud();
+        autoBaud.setEnabled(env.getProperty(settingsPrefix + "auto-baud.enabled", Boolean.class, autoBaud.isEnabled()));
+        List<String> baudRates = getList(settingsPrefix + "auto-baud.baud-rates", List.of());
+        if (!baudRates.isEmpty()) {
+            autoBaud.setBaudRates(baudRates.stream().map(Integer::valueOf).toList());
+        }
+        List<String> parities = getList(settingsPrefix + "auto-baud.parities", List.of());
+        if (!parities.isEmpty()) {
+            autoBaud.setParities(parities.stream().map(Parity::of).toList());
+        }
+        autoBaud.setSampleTime(env.getProperty(settingsPrefix + "auto-baud.sample-time", Long.class, autoBaud.getSampleTime()));
+        autoBaud.setMinFrames(env.getProperty(settingsPrefix + "auto-baud.min-frames", Integer.class, autoBaud.getMinFrames()));
+        return settings;
+    }
+
+    /**
+     * 获取模拟仪表的配置
+     *
+     * @return 模拟仪表配置
+     */
+    public SimulatorSettings getSimulatorSettings() {
+        String prefix = "serial.simulator.";
+        SimulatorSettings settings = new SimulatorSettings();
+        settings.setPorts(env.getProperty(prefix + "ports", Integer.class, settings.getPorts()));
+        settings.setNamePrefix(env.getProperty(prefix + "name-prefix", settings.getNamePrefix()));
+        settings.setNames(getList(prefix + "names", settings.getNames()));
+        settings.setContinuous(!"command".equalsIgnoreCase(env.getProperty(prefix + "mode", "continuous")));
+        settings.setFrameRate(env.getProperty(prefix + "frame-rate", Integer.class, settings.getFrameRate()));
+        settings.setJitter(env.getProperty(prefix + "jitter", Long.class, settings.getJitter()));
+        settings.setResponseLatency(env.getProperty(prefix + "response-latency", Long.class, settings.getResponseLatency()));
+        settings.setAddresses(getList(prefix + "addresses", settings.getAddresses()));
+        settings.setEcho(env.getProperty(prefix + "echo", Boolean.class, settings.isEcho()));
+        settings.setProfile(env.getProperty(prefix + "profile", settings.getProfile()));
+        settings.setWeight(env.getProperty(prefix + "weight", Long.class, settings.getWeight()));
+        settings.setRampTime(env.getProperty(prefix + "ramp-time", Long.class, settings.getRampTime()));
+        settings.setHoldTime(env.getProperty(prefix + "hold-time", Long.class, settings.getHoldTime()));
+        settings.setEmptyTime(env.getProperty(prefix + "empty-time", Long.class, settings.getEmptyTime()));
+        settings.setNoise(env.getProperty(prefix + "noise", Long.class, settings.getNoise()));
+        settings.setDropRate(env.getProperty(prefix + "drop-rate", Double.class, settings.getDropRate()));
+        settings.setBadXorRate(env.getProperty(prefix + "bad-xor-rate", Double.class, settings.getBadXorRate()));
+        settings.setPartialRate(env.getProperty(prefix + "partial-rate", Double.class, settings.getPartialRate()));
+        settings.setThreads(env.getProperty(prefix + "threads", Integer.class, settings.getThreads()));
+        settings.setSeed(env.getProperty(prefix + "seed", Long.class, settings.getSeed()));
+        return settings;
+    }
+
+    /**
+     * 获取录制和回放的配置
+     *
+     * @return 录制和回放配置
+     */
+    public CaptureSettings getCaptureSettings() {
+        CaptureSettings settings = new CaptureSettings();
+        settings.setRecord(env.getProperty("serial.record.enabled", Boolean.class, settings.isRecord()));
+        settings.setRecordDir(env.getProperty("serial.record.dir", settings.getRecordDir()));
+        settings.setRecordPorts(getList("serial.record.ports", settings.getRecordPorts()));
+        settings.setReplayFiles(getList("serial.replay.files", settings.getReplayFiles()));
+        settings.setReplaySpeed(env.getProperty("serial.replay.speed", Double.class, settings.getReplaySpeed()));
+        settings.setReplayLoop(env.getProperty("serial.replay.loop", Boolean.class, settings.isReplayLoop()));
+        return settings;
+    }
+
+    /**
+     * 获取重量历史归档的配置
+     *
+     * @return 归档配置
+     */
+    public ArchiveSettings getArchiveSettings() {
+        String prefix = "serial.archive.";
+        ArchiveSettings settings = new ArchiveSettings();
+        settings.setEnabled(env.getProperty(prefix + "enabled", Boolean.class, settings.isEnabled()));
+        settings.setDir(env.getProperty(prefix + "dir", settings.getDir()));
+        settings.setRetentionDays(env.getProperty(prefix + "retention-days", Integer.class, settings.getRetentionDays()));
+        settings.setMaxSegmentSize(env.getProperty(prefix + "max-segment-size", Long.class, settings.getMaxSegmentSize()));
+        settings.setFlushInterval(env.getProperty(prefix + "flush-interval", Long.class, settings.getFlushInterval()));
+        return settings;
+    }
+
+    /**
+     * 读取逗号分隔的配置项
+     */
+    private List<String> getList(String key, List<String> defaultValue) {
+        String[] values = env.getProperty(key, String[].class);
+        if (values == null) {
+            return defaultValue;
+        }
+        List<String> list = new ArrayList<>();
+        for (String value : values) {
+            if (!value.isBlank()) {
+                list.add(value.trim());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * redis key 优先取 settings.&lt;串口名称&gt;.redis-key，兼容旧的 serial.&lt;profile&gt;.&lt;串口名称&gt;
+     */
+    private String redisKey(String portName) {
+        String prefix = prefix();
+        return env.getProperty(prefix + "settings." + portName + ".redis-key", env.getProperty(prefix + portName));
+    }
+
+    private String prefix() {
+        String profile = env.getProperty("spring.profiles.active", "weisanlu");
+        return "serial." + profile + ".";
+    }
 }
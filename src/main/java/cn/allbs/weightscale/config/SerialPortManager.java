@@ -1,42 +1,103 @@
 package cn.allbs.weightscale.config;
 
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.enums.PortState;
+import cn.allbs.weightscale.enums.ReceptionMode;
 import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.handler.BaudDetector;
+import cn.allbs.weightscale.handler.BusPoller;
+import cn.allbs.weightscale.handler.CommandExecutor;
+import cn.allbs.weightscale.handler.PortReactor;
+import cn.allbs.weightscale.handler.PublishPolicy;
 import cn.allbs.weightscale.handler.SerialPortListener;
+import cn.allbs.weightscale.model.BaudDetectResult;
+import cn.allbs.weightscale.model.BusTargetStats;
+import cn.allbs.weightscale.model.PortInfo;
+import cn.allbs.weightscale.model.PortReloadResult;
+import cn.allbs.weightscale.model.PortStats;
+import cn.allbs.weightscale.model.WeightSnapshot;
+import cn.allbs.weightscale.service.FrameCaptureStore;
+import cn.allbs.weightscale.service.PortReactorGroup;
+import cn.allbs.weightscale.service.RecentWeightStore;
+import cn.allbs.weightscale.service.RedisWeightWriter;
+import cn.allbs.weightscale.service.ScaleMetrics;
+import cn.allbs.weightscale.service.WeightArchiveService;
+import cn.allbs.weightscale.service.WeightEventService;
+import cn.allbs.weightscale.service.WeightSnapshotStore;
+import cn.allbs.weightscale.service.WeightStreamService;
+import cn.allbs.weightscale.transport.SerialParameters;
+import cn.allbs.weightscale.transport.SerialTransport;
+import cn.allbs.weightscale.transport.SerialTransportFactory;
 import cn.allbs.weightscale.util.SerialPortUtil;
 import com.fazecast.jSerialComm.SerialPort;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 类 SerialPortManager
+ * </p>
+ * 按串口登记表（serial.&lt;profile&gt;.ports）启动监听，未登记时监听枚举到的全部串口。
+ * 每个串口的状态保存在独立的 {@link PortContext} 中，运行时增加、移除和重新加载只锁定涉及的串口，不影响其他串口的读写
  *
+ * @author ChenQi
  * @date 2024/6/27
  */
 @Slf4j
 @Component
 public class SerialPortManager {
 
-    private final Map<String, SerialPort> serialPorts;
-    private final Map<String, SerialPortListener> listeners;
+    /**
+     * 直接读取串口时的超时时间（毫秒）
+     */
+    private static final int READ_TIMEOUT_MS = 1000;
+
+    private final Map<String, PortContext> ports = new ConcurrentHashMap<>();
 
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
+    private RedisWeightWriter redisWeightWriter;
 
     @Resource
     private SerialPortConfig serialPortConfig;
 
-    public SerialPortManager() {
-        serialPorts = new HashMap<>();
-        listeners = new HashMap<>();
-    }
+    @Resource
+    private WeightSnapshotStore weightSnapshotStore;
+
+    @Resource
+    private WeightEventService weightEventService;
+
+    @Resource
+    private WeightStreamService weightStreamService;
+
+    @Resource
+    private SerialTransportFactory serialTransportFactory;
+
+    @Resource
+    private ScaleMetrics scaleMetrics;
+
+    @Resource
+    private FrameCaptureStore frameCaptureStore;
+
+    @Resource
+    private WeightArchiveService weightArchiveService;
+
+    @Resource
+    private RecentWeightStore recentWeightStore;
+
+    @Resource
+    private PortReactorGroup portReactorGroup;
 
     /**
      * 初始化
@@ -44,50 +105,348 @@ public class SerialPortManager {
     @PostConstruct
     public void init() {
         log.info("\nUsing Library Version v{}", SerialPort.getVersion());
-        SerialPort[] ports = SerialPort.getCommPorts();
         log.info("\nAvailable Ports:\n");
-        Map<String, String> portMappings = serialPortConfig.getPortMappings();
-        for (SerialPort port : ports) {
-            log.info("{}: {} - {}", port.getSystemPortName(), port.getDescriptivePortName(), port.getPortDescription());
-            serialPorts.put(port.getSystemPortName(), port);
-            startListener(port.getSystemPortName(), portMappings.get(port.getSystemPortName()));
+        Map<String, SerialTransport> available = discover();
+        available.values().forEach(port -> log.info("{}: {}", port.getName(), port.getDescription()));
+        List<String> registered = serialPortConfig.getPortNames();
+        for (String portName : registered.isEmpty() ? available.keySet() : registered) {
+            SerialTransport port = available.get(portName);
+            if (port == null) {
+                log.warn("登记的串口{}不存在", portName);
+                continue;
+            }
+            register(port);
         }
     }
 
     /**
-     * 添加串口
+     * 添加串口并开始监听，已添加时直接返回
      *
      * @param portName 串口名称
      * @return 结果
      */
     public boolean addPort(String portName) {
-        SerialPort[] ports = SerialPort.getCommPorts();
-        for (SerialPort port : ports) {
-            if (port.getSystemPortName().equals(portName)) {
-                serialPorts.put(portName, port);
-                log.info("Added Port: {} - {}", port.getSystemPortName(), port.getDescriptivePortName());
-                return true;
+        if (ports.containsKey(portName)) {
+            return true;
+        }
+        SerialTransport port = serialTransportFactory.find(portName);
+        if (port == null) {
+            log.info("Port {} not found!", portName);
+            return false;
+        }
+        register(port);
+        log.info("Added Port: {} - {}", port.getName(), port.getDescription());
+        return true;
+    }
+
+    /**
+     * 停止监听并从登记表中移除串口
+     *
+     * @param portName 串口名称
+     * @return 串口是否存在
+     */
+    public boolean removePort(String portName) {
+        PortContext context = ports.remove(portName);
+        if (context == null) {
+            return false;
+        }
+        stop(context);
+        release(portName);
+        log.info("Removed Port: {}", portName);
+        return true;
+    }
+
+    /**
+     * 释放串口及其总线轮询序列的快照、最近重量、归档、原始帧记录、事件和订阅
+     */
+    private void release(String portName) {
+        weightSnapshotStore.remove(portName);
+        recentWeightStore.remove(portName);
+        weightArchiveService.release(portName);
+        frameCaptureStore.remove(portName);
+        weightEventService.remove(portName);
+        weightStreamService.remove(portName);
+    }
+
+    /**
+     * 登记串口当前使用的配置
+     *
+     * @param portName 串口名称
+     * @return 配置，未登记时为null
+     */
+    public PortSettings getPortSettings(String portName) {
+        PortContext context = ports.get(portName);
+        return context == null ? null : context.getSettings();
+    }
+
+    /**
+     * 重新加载串口登记表：移除不再登记的串口，启动新登记的串口，配置变化的串口单独重启，其余串口不受影响
+     *
+     * @return 各串口的处理结果
+     */
+    public PortReloadResult reloadPorts() {
+        serialPortConfig.reload();
+        PortReloadResult result = new PortReloadResult();
+        List<String> registered = serialPortConfig.getPortNames();
+        Map<String, SerialTransport> available = null;
+        if (registered.isEmpty()) {
+            // 未登记时监听枚举到的全部串口，已登记的串口暂时拔出也不移除
+            available = discover();
+            registered = new ArrayList<>(available.keySet());
+            for (String portName : ports.keySet()) {
+                if (!available.containsKey(portName)) {
+                    registered.add(portName);
+                }
+            }
+        } else {
+            for (String portName : new ArrayList<>(ports.keySet())) {
+                if (!registered.contains(portName) && removePort(portName)) {
+                    result.getRemoved().add(portName);
+                }
             }
         }
-        log.info("Port {} not found!", portName);
-        return false;
+        for (String portName : registered) {
+            PortContext context = ports.get(portName);
+            if (context == null) {
+                if (available == null) {
+                    available = discover();
+                }
+                SerialTransport port = available.get(portName);
+                if (port == null) {
+                    result.getMissing().add(portName);
+                } else {
+                    register(port);
+                    result.getAdded().add(portName);
+                }
+                continue;
+            }
+            PortSettings settings = serialPortConfig.getPortSettings(portName);
+            synchronized (context) {
+                if (settings.equals(context.getSettings())) {
+                    result.getUnchanged().add(portName);
+                    continue;
+                }
+                stop(context);
+                PortSettings previous = context.getSettings();
+                if (!settings.getSerial().equals(previous.getSerial()) || !settings.getAutoBaud().equals(previous.getAutoBaud())) {
+                    context.setDetected(null);
+                }
+                context.setSettings(settings);
+                start(context);
+            }
+            result.getRestarted().add(portName);
+        }
+        log.info("重新加载串口登记表: {}", result);
+        return result;
     }
 
     /**
-     * 开始监听
+     * 登记表中各串口的配置和状态
+     *
+     * @return 串口信息
+     */
+    public List<PortInfo> getPorts() {
+        List<PortInfo> infos = new ArrayList<>();
+        for (PortContext context : ports.values()) {
+            PortSettings settings = context.getSettings();
+            SerialParameters parameters = context.getTransport().getParameters();
+            if (parameters == null) {
+                parameters = settings.getSerial();
+            }
+            BaudDetectResult detection = context.getDetection();
+            infos.add(new PortInfo()
+                    .setPortName(context.getName())
+                    .setDescription(context.getTransport().getDescription())
+                    .setRedisKey(settings.getRedisKey())
+                    .setMode(settings.getMode().getCode())
+                    .setBaudRate(parameters.getBaudRate())
+                    .setParameters(parameters.toString())
+                    .setDetected(context.getDetected() != null)
+                    .setDetecting(detection != null && detection.isRunning())
+                    .setCodec(settings.getCodec().getCode())
+                    .setOpen(context.getTransport().isOpen())
+                    .setState(context.getListener() != null ? context.getListener().getSupervisor().getState().getCode() : PortState.CLOSED.getCode())
+                    .setBus(context.getBusPoller() != null)
+                    .setStartedAt(context.getStartedAt()));
+        }
+        infos.sort((a, b) -> a.getPortName().compareTo(b.getPortName()));
+        return infos;
+    }
+
+    private Map<String, SerialTransport> discover() {
+        Map<String, SerialTransport> available = new LinkedHashMap<>();
+        for (SerialTransport port : serialTransportFactory.discover()) {
+            available.put(port.getName(), port);
+        }
+        return available;
+    }
+
+    /**
+     * 登记串口并开始监听，同名串口已登记时不重复启动
+     */
+    private void register(SerialTransport port) {
+        PortContext context = new PortContext(port, serialPortConfig.getPortSettings(port.getName()));
+        if (ports.putIfAbsent(port.getName(), context) == null) {
+            synchronized (context) {
+                start(context);
+            }
+        }
+    }
+
+    /**
+     * 重新检测波特率，检测期间暂停监听，检测结束后按检测结果重新开始监听
      *
      * @param portName 串口名称
-     * @return 结果
+     * @return 检测结果，检测在后台进行，可通过 {@link #getDetection(String)} 查看进度
+     */
+    public BaudDetectResult detectPort(String portName) {
+        PortContext context = ports.get(portName);
+        if (context == null) {
+            throw new BhudyException("串口" + portName + "未登记");
+        }
+        if (context.getTransport().getParameters() == null) {
+            throw new BhudyException("串口" + portName + "不是物理串口，不能检测波特率");
+        }
+        synchronized (context) {
+            stop(context);
+            context.setDetected(null);
+            start(context, true);
+        }
+        return context.getDetection();
+    }
+
+    /**
+     * 最近一次波特率检测的结果
+     *
+     * @param portName 串口名称
+     * @return 检测结果，没有检测过时为null
      */
-    private void startListener(String portName, String redisKey) {
-        if (!listeners.containsKey(portName)) {
-            SerialPort port = serialPorts.get(portName);
-            if (port != null) {
-                SerialPortListener listener = new SerialPortListener(port, portName, redisTemplate, redisKey);
-                listeners.put(portName, listener);
-                Thread listenerThread = new Thread(listener);
-                listenerThread.start();
+    public BaudDetectResult getDetection(String portName) {
+        PortContext context = ports.get(portName);
+        return context == null ? null : context.getDetection();
+    }
+
+    /**
+     * 开始监听，调用方持有串口的锁
+     */
+    private void start(PortContext context) {
+        start(context, false);
+    }
+
+    /**
+     * 开始监听，调用方持有串口的锁
+     *
+     * @param context 串口
+     * @param detect  是否在开始监听前检测波特率，为false时按配置的 auto-baud.enabled 且尚未锁定参数时检测
+     */
+    private void start(PortContext context, boolean detect) {
+        if (context.getListener() != null) {
+            return;
+        }
+        String portName = context.getName();
+        PortSettings settings = context.getSettings();
+        SerialTransport port = context.getTransport();
+        SerialParameters detected = context.getDetected();
+        port.setParameters(detected != null ? detected : settings.getSerial());
+        SerialPortListener listener = new SerialPortListener(port, settings, portReactorGroup.reactor(portName),
+                portReactorGroup.workers(), portReactorGroup.blocking(), context.getIoPermit(), redisWeightWriter,
+                weightSnapshotStore.holder(portName), weightEventService, weightStreamService.channel(portName),
+                weightArchiveService.archive(portName), recentWeightStore.ring(portName));
+        listener.getDecoder().setCapture(frameCaptureStore.capture(settings));
+        context.setListener(listener);
+        context.setStartedAt(System.currentTimeMillis());
+        scaleMetrics.bindListener(listener);
+        if (detect || (settings.getAutoBaud().isEnabled() && detected == null)) {
+            detectThenStart(context, listener);
+        } else {
+            listener.start();
+        }
+        if (settings.getBus().isEnabled()) {
+            startBusPoller(context);
+        }
+    }
+
+    /**
+     * 先检测波特率再开始监听，检测结果锁定在串口上，之后重启监听和断线重连都沿用
+     */
+    private void detectThenStart(PortContext context, SerialPortListener listener) {
+        String portName = context.getName();
+        PortSettings settings = context.getSettings();
+        if (settings.getBus().isEnabled()) {
+            log.warn("串口{}启用了总线轮询，仪表只在收到指令后应答，不能自动检测波特率", portName);
+            listener.start();
+            return;
+        }
+        if (context.getTransport().getParameters() == null) {
+            log.info("串口{}不是物理串口，跳过波特率检测", portName);
+            listener.start();
+            return;
+        }
+        BaudDetector detector = new BaudDetector(context.getTransport(), portName, portReactorGroup.reactor(portName),
+                context.getIoPermit(), settings.getAutoBaud(), settings.getSerial());
+        context.setDetector(detector);
+        context.setDetection(detector.getResult());
+        detector.detect().whenComplete((selected, e) -> {
+            if (context.getDetector() == detector) {
+                context.setDetector(null);
+                if (selected != null) {
+                    context.setDetected(selected);
+                }
             }
+            listener.start();
+        });
+    }
+
+    /**
+     * 开始轮询总线上配置的地址
+     *
+     * @param context 串口
+     */
+    private void startBusPoller(PortContext context) {
+        PortSettings settings = context.getSettings();
+        String portName = context.getName();
+        if (settings.getBus().getAddresses().isEmpty()) {
+            log.warn("串口{}启用了总线轮询但没有配置地址", portName);
+            return;
+        }
+        if (settings.getMode() == ReceptionMode.DELIMITER) {
+            log.warn("串口{}为按结束符分包接收方式，不能启用总线轮询", portName);
+            return;
+        }
+        BusPoller poller = new BusPoller(context.getTransport(), settings, portReactorGroup.reactor(portName), portReactorGroup.workers(),
+                getCommandExecutor(portName), redisWeightWriter, weightSnapshotStore, weightArchiveService, recentWeightStore);
+        context.setBusPoller(poller);
+        poller.start();
+    }
+
+    /**
+     * 停止监听、总线轮询和指令执行器并关闭串口，串口仍保留在登记表中
+     */
+    private void stop(PortContext context) {
+        synchronized (context) {
+            BaudDetector detector = context.getDetector();
+            if (detector != null) {
+                detector.cancel();
+                context.setDetector(null);
+            }
+            SerialPortListener listener = context.getListener();
+            if (listener != null) {
+                listener.stop();
+                context.setListener(null);
+            }
+            BusPoller busPoller = context.getBusPoller();
+            if (busPoller != null) {
+                busPoller.stop();
+                context.setBusPoller(null);
+            }
+            CommandExecutor commandExecutor = context.getCommandExecutor();
+            if (commandExecutor != null) {
+                commandExecutor.stop();
+                context.setCommandExecutor(null);
+            }
+            context.setStartedAt(0);
+            scaleMetrics.unbind(context.getName());
+            context.getTransport().close();
         }
     }
 
@@ -97,16 +456,13 @@ public class SerialPortManager {
      * @param portName 串口名称
      */
     public void openPort(String portName) {
-        SerialPort port = serialPorts.get(portName);
+        PortContext context = ports.get(portName);
+        SerialTransport port = context == null ? null : context.getTransport();
         if (port != null && !port.isOpen()) {
-            log.info("\nPre-setting RTS: {}", port.setRTS() ? "Success" : "Failure");
-            if (!port.openPort()) {
+            if (!port.open()) {
                 log.info("Open serial port {} error!", portName);
             } else {
-                log.info("\nOpening {}: {} - {}", port.getSystemPortName(), port.getDescriptivePortName(), port.getPortDescription());
-                port.setFlowControl(SerialPort.FLOW_CONTROL_DISABLED);
-                port.setComPortParameters(9600, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
-                port.setComPortTimeouts(SerialPort.TIMEOUT_READ_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING, 1000, 1000);
+                log.info("\nOpening {}: {}", port.getName(), port.getDescription());
             }
         }
     }
@@ -118,7 +474,7 @@ public class SerialPortManager {
      * @return 结果
      */
     public boolean isPortOpen(String portName) {
-        SerialPort port = serialPorts.get(portName);
+        SerialTransport port = transport(portName);
         return port == null || !port.isOpen();
     }
 
@@ -128,18 +484,18 @@ public class SerialPortManager {
      * @param portName 串口名称
      */
     public void closePort(String portName) {
-        SerialPort port = serialPorts.get(portName);
-        SerialPortListener listener = listeners.get(portName);
-        if (port != null && port.isOpen()) {
-            if (listener != null) {
-                listener.stop();
-                listeners.remove(portName);
-            }
-            port.closePort();
+        PortContext context = ports.get(portName);
+        if (context != null && context.getTransport().isOpen()) {
+            stop(context);
             log.info("Closed Port: {}", portName);
         }
     }
 
+    private SerialTransport transport(String portName) {
+        PortContext context = ports.get(portName);
+        return context == null ? null : context.getTransport();
+    }
+
     /**
      * 写入数据
      *
@@ -148,11 +504,11 @@ public class SerialPortManager {
      * @return 结果
      */
     public int write(String portName, byte[] data) {
-        SerialPort port = serialPorts.get(portName);
+        SerialTransport port = transport(portName);
         if (port == null || !port.isOpen()) {
             return 0;
         }
-        return port.writeBytes(data, data.length);
+        return port.write(data, 0, data.length);
     }
 
     /**
@@ -163,72 +519,176 @@ public class SerialPortManager {
      * @return 结果
      */
     public int read(String portName, byte[] data) {
-        SerialPort port = serialPorts.get(portName);
+        SerialTransport port = transport(portName);
         if (port == null || !port.isOpen()) {
             return 0;
         }
-        return port.readBytes(data, data.length);
+        return port.read(data, 0, data.length, READ_TIMEOUT_MS);
     }
 
     /**
-     * 写入并读取数据
+     * 写入并读取数据，同一串口上的指令由事务执行器串行执行
      *
      * @param portName 串口名称
-     * @param bytes    数据
-     * @return 结果
+     * @param bytes    由 {@link SerialPortUtil#generateCommand(String, char)} 生成的指令
+     * @return 与指令地址和命令匹配的应答帧
      */
     public byte[] writeAndRead(String portName, byte[] bytes) {
-        byte[] resultData = null;
-        try (ByteArrayOutputStream bao = new ByteArrayOutputStream()) {
-            SerialPort port = serialPorts.get(portName);
-            if (port == null || !port.isOpen()) throw new BhudyException("Port not open or not found: " + portName);
-            int numWrite = port.writeBytes(bytes, bytes.length);
-            if (numWrite > 0) {
-                Thread.sleep(100); // 休眠0.1秒，等待下位机返回数据。如果不休眠直接读取，有可能无法成功读到数据
-                while (port.bytesAvailable() > 0) {
-                    byte[] newData = new byte[port.bytesAvailable()];
-                    int numRead = port.readBytes(newData, newData.length);
-                    if (numRead > 0) {
-                        bao.write(newData);
-                    }
-                }
-                resultData = bao.toByteArray();
+        return getCommandExecutor(portName).execute(bytes, CommandExecutor.PRIORITY_HIGH);
+    }
+
+    /**
+     * 获取串口的指令事务执行器
+     *
+     * @param portName 串口名称
+     * @return 执行器
+     */
+    public CommandExecutor getCommandExecutor(String portName) {
+        PortContext context = ports.get(portName);
+        if (context == null) {
+            throw new BhudyException("Port not open or not found: " + portName);
+        }
+        synchronized (context) {
+            CommandExecutor commandExecutor = context.getCommandExecutor();
+            if (commandExecutor != null) {
+                return commandExecutor;
             }
-        } catch (Exception e) {
-            throw new BhudyException(e.getMessage());
+            PortSettings settings = context.getSettings();
+            if (settings.getMode() == ReceptionMode.DELIMITER) {
+                throw new BhudyException("串口" + portName + "为按结束符分包接收方式，不支持指令应答");
+            }
+            PortReactor reactor = portReactorGroup.reactor(portName);
+            commandExecutor = new CommandExecutor(context.getTransport(), portName, reactor, context.getIoPermit(), settings.getCommand(),
+                    scaleMetrics.commandTimer(portName));
+            commandExecutor.getDecoder().setCapture(frameCaptureStore.capture(settings));
+            scaleMetrics.bindCommandExecutor(portName, commandExecutor);
+            context.setCommandExecutor(commandExecutor);
+            return commandExecutor;
         }
-        return resultData;
     }
 
     /**
      * 读取一次重量
+     * </p>
+     * 监听正在读取串口时等待它解析出的下一帧，不和监听抢字节；没有监听时持有串口读写许可，
+     * 按帧解析直到收到一帧校验通过的数据，不会打断进行中的指令应答
      *
      * @param portName 串口名称
      * @return 结果
      */
     public String readWeightOnce(String portName) {
-        log.info("读取一次重量");
+        PortContext context = ports.get(portName);
+        if (context == null) {
+            throw new BhudyException("Port not open or not found: " + portName);
+        }
         try {
-            // 固定读取12位
-            byte[] readBuffer = new byte[12];
-            SerialPort port = serialPorts.get(portName);
-            int numRead = port.readBytes(readBuffer, readBuffer.length);
-            if (numRead > 0) {
-                String result = SerialPortUtil.parseWeightData(readBuffer);
-                log.info("{}读取只读取一次串口{}的数据为:{}", LocalDateTime.now(), portName, result);
-                return result;
+            if (context.getListener() != null) {
+                WeightSnapshot snapshot = weightSnapshotStore.holder(portName).next().get(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                return snapshot.getWeight();
+            }
+            return readFrame(context);
+        } catch (TimeoutException e) {
+            throw new BhudyException("串口" + portName + "在" + READ_TIMEOUT_MS + "毫秒内没有收到重量数据");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BhudyException("读取串口" + portName + "被中断");
+        } catch (ExecutionException e) {
+            throw new BhudyException("读取串口" + portName + "失败: " + e.getCause().getMessage(), e);
+        }
+    }
+
+    /**
+     * 持有串口读写许可，在读超时内读到一帧校验通过的数据
+     */
+    private String readFrame(PortContext context) throws InterruptedException, TimeoutException {
+        if (!context.getIoPermit().tryAcquire(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            throw new BhudyException("串口" + context.getName() + "正在执行指令或检测波特率");
+        }
+        try {
+            SerialTransport port = context.getTransport();
+            FrameDecoder decoder = new FrameDecoder();
+            byte[] buffer = new byte[FrameDecoder.DEFAULT_MAX_FRAME_LENGTH];
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT_MS);
+            long remaining;
+            while ((remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0) {
+                int numRead = port.read(buffer, 0, buffer.length, (int) remaining);
+                if (numRead < 0) {
+                    break;
+                }
+                decoder.feed(buffer, 0, numRead);
+                if (decoder.next()) {
+                    return SerialPortUtil.parseWeightData(Arrays.copyOf(decoder.frame(), decoder.frameLength()));
+                }
+            }
+            throw new TimeoutException();
+        } finally {
+            context.getIoPermit().release();
+        }
+    }
+
+    /**
+     * 串口的连接状态
+     *
+     * @param portName 串口名称
+     * @return 状态，未登记或未监听时为null
+     */
+    public PortState getPortState(String portName) {
+        PortContext context = ports.get(portName);
+        SerialPortListener listener = context == null ? null : context.getListener();
+        return listener == null ? null : listener.getSupervisor().getState();
+    }
+
+    /**
+     * 各串口运行统计
+     *
+     * @return 运行统计
+     */
+    public List<PortStats> getPortStats() {
+        List<PortStats> stats = new ArrayList<>();
+        for (PortContext context : ports.values()) {
+            SerialPortListener listener = context.getListener();
+            if (listener == null) {
+                continue;
+            }
+            FrameDecoder decoder = listener.getDecoder();
+            PublishPolicy publishPolicy = listener.getPublishPolicy();
+            CommandExecutor commandExecutor = context.getCommandExecutor();
+            stats.add(new PortStats()
+                    .setPendingCommands(commandExecutor == null ? 0 : commandExecutor.getQueueSize())
+                    .setLastRoundTripMicros(commandExecutor == null ? 0 : commandExecutor.getLastRoundTripMicros())
+                    .setAvgRoundTripMicros(commandExecutor == null ? 0 : commandExecutor.getAvgRoundTripMicros())
+                    .setMaxRoundTripMicros(commandExecutor == null ? 0 : commandExecutor.getMaxRoundTripMicros())
+                    .setPortName(listener.getPortName())
+                    .setFramesDecoded(decoder.getFramesDecoded())
+                    .setChecksumFailures(decoder.getChecksumFailures())
+                    .setResyncBytes(decoder.getResyncBytes())
+                    .setPublished(publishPolicy.getPublishedCount())
+                    .setSuppressed(publishPolicy.getSuppressedCount()));
+        }
+        return stats;
+    }
+
+    /**
+     * 各串口总线轮询统计
+     *
+     * @return 串口名称到各地址统计的映射
+     */
+    public Map<String, List<BusTargetStats>> getBusStats() {
+        Map<String, List<BusTargetStats>> stats = new HashMap<>();
+        for (PortContext context : ports.values()) {
+            BusPoller poller = context.getBusPoller();
+            if (poller != null) {
+                stats.put(poller.getPortName(), poller.getStats());
             }
-        } catch (Exception e) {
-            log.error("读取一次重量异常!异常原因{}", e.getMessage());
         }
-        return null;
+        return stats;
     }
 
     /**
      * 关闭所有串口
      */
     public void closeAllPorts() {
-        for (String portName : serialPorts.keySet()) {
+        for (String portName : ports.keySet()) {
             closePort(portName);
         }
     }
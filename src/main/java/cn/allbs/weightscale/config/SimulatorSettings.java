@@ -0,0 +1,115 @@
+package cn.allbs.weightscale.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 类 SimulatorSettings
+ * </p>
+ * 模拟仪表参数，对应 serial.simulator，serial.transport 为 simulated 时生效
+ *
+ * @author ChenQi
+ * @date 2026/9/24
+ */
+@Data
+public class SimulatorSettings {
+
+    /**
+     * 模拟串口数量，串口名称为 name-prefix + 序号
+     */
+    private int ports = 2;
+
+    private String namePrefix = "SIM";
+
+    /**
+     * 指定串口名称时忽略数量和前缀，可以用COM3、COM4等名称沿用已有的redis key配置
+     */
+    private List<String> names = new ArrayList<>();
+
+    /**
+     * true为连续发送方式，false为指令应答方式
+     */
+    private boolean continuous = true;
+
+    /**
+     * 连续发送方式每秒发送的帧数，0表示不自动发送，只由 {@link cn.allbs.weightscale.transport.SimulatedScaleTransport#emitWeight(long)} 发送
+     */
+    private int frameRate = 10;
+
+    /**
+     * 发送间隔的随机抖动（毫秒）
+     */
+    private long jitter = 0;
+
+    /**
+     * 指令应答方式收到指令后的应答延迟（毫秒）
+     */
+    private long responseLatency = 20;
+
+    /**
+     * 指令应答方式响应的地址
+     */
+    private List<String> addresses = new ArrayList<>(List.of("A"));
+
+    /**
+     * 指令应答方式的应答是否回显地址和命令，false 时应答12字节的重量帧
+     */
+    private boolean echo = true;
+
+    /**
+     * 重量曲线: constant 固定重量, truck 车辆上磅、停留、下磅循环
+     */
+    private String profile = "truck";
+
+    /**
+     * 固定重量或车辆重量（Kg）
+     */
+    private long weight = 30000;
+
+    /**
+     * 上磅和下磅的时长（毫秒）
+     */
+    private long rampTime = 4000;
+
+    /**
+     * 车辆在磅上停留的时长（毫秒）
+     */
+    private long holdTime = 10000;
+
+    /**
+     * 两车之间空磅的时长（毫秒）
+     */
+    private long emptyTime = 6000;
+
+    /**
+     * 随机噪声幅度（Kg）
+     */
+    private long noise = 2;
+
+    /**
+     * 每帧丢失一个字节的概率
+     */
+    private double dropRate = 0;
+
+    /**
+     * 每帧校验错误的概率
+     */
+    private double badXorRate = 0;
+
+    /**
+     * 每帧只发送一部分的概率
+     */
+    private double partialRate = 0;
+
+    /**
+     * 事件线程数，所有模拟串口共用
+     */
+    private int threads = 2;
+
+    /**
+     * 随机数种子
+     */
+    private long seed = 1;
+}
@@ -1,5 +1,7 @@
 package cn.allbs.weightscale.constants;
 
+import java.time.format.DateTimeFormatter;
+
 /**
  * 通用变量
  *
@@ -52,4 +54,9 @@ public interface CommonConstants {
      * 时间格式
      */
     String DATETIME_PATTERN = "yyyy年MM月dd日HH时mm分ss秒SSS毫秒";
+
+    /**
+     * 按 {@link #DATETIME_PATTERN} 格式化的线程安全格式化器，避免每次格式化时重新解析格式
+     */
+    DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern(DATETIME_PATTERN);
 }
@@ -0,0 +1,113 @@
+package cn.allbs.weightscale.controller;
+
+import cn.allbs.weightscale.config.R;
+import cn.allbs.weightscale.config.SerialPortManager;
+import cn.allbs.weightscale.model.BusTargetStats;
+import cn.allbs.weightscale.model.CapturedFrame;
+import cn.allbs.weightscale.model.PortStats;
+import cn.allbs.weightscale.model.RedisWriterStats;
+import cn.allbs.weightscale.model.ScaleQueryStats;
+import cn.allbs.weightscale.service.FrameCaptureStore;
+import cn.allbs.weightscale.service.RedisWeightWriter;
+import cn.allbs.weightscale.service.WeightScaleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.Parameters;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类 MonitorController
+ *
+ * @author ChenQi
+ * @date 2026/9/9
+ */
+@Tag(name = "运行状态")
+@RestController
+public class MonitorController {
+
+    @Resource
+    private SerialPortManager serialPortManager;
+
+    @Resource
+    private RedisWeightWriter redisWeightWriter;
+
+    @Resource
+    private WeightScaleService weightScaleService;
+
+    @Resource
+    private FrameCaptureStore frameCaptureStore;
+
+    /**
+     * 查询各串口运行统计
+     *
+     * @return 运行统计
+     */
+    @Operation(summary = "查询各串口运行统计")
+    @GetMapping("/stats")
+    public R<List<PortStats>> stats() {
+        return R.ok(serialPortManager.getPortStats());
+    }
+
+    /**
+     * 查询Redis写入统计
+     *
+     * @return 写入统计
+     */
+    @Operation(summary = "查询Redis写入统计")
+    @GetMapping("/stats/redis")
+    public R<RedisWriterStats> redisStats() {
+        return R.ok(redisWeightWriter.getStats());
+    }
+
+    /**
+     * 查询指令合并与缓存统计
+     *
+     * @return 查询统计
+     */
+    @Operation(summary = "查询指令合并与缓存统计")
+    @GetMapping("/stats/scale")
+    public R<ScaleQueryStats> scaleStats() {
+        return R.ok(weightScaleService.getQueryStats());
+    }
+
+    /**
+     * 查询总线轮询统计
+     *
+     * @return 各串口各地址的轮询统计
+     */
+    @Operation(summary = "查询总线轮询统计")
+    @GetMapping("/stats/bus")
+    public R<Map<String, List<BusTargetStats>>> busStats() {
+        return R.ok(serialPortManager.getBusStats());
+    }
+
+    /**
+     * 查询串口最近收到的原始帧
+     *
+     * @param portName  端口名称
+     * @param malformed 是否只查询异常帧
+     * @param limit     数量
+     * @return 原始帧，按时间倒序
+     */
+    @Operation(summary = "查询串口最近收到的原始帧")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+            @Parameter(name = "malformed", description = "是否只查询校验失败和错位的数据，默认否", schema = @Schema(implementation = Boolean.class), in = ParameterIn.QUERY),
+            @Parameter(name = "limit", description = "数量，默认50", schema = @Schema(implementation = Integer.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping("/diagnostics/frames")
+    public R<List<CapturedFrame>> frames(@RequestParam(name = "portName") String portName,
+                                         @RequestParam(name = "malformed", defaultValue = "false") Boolean malformed,
+                                         @RequestParam(name = "limit", defaultValue = "50") Integer limit) {
+        return R.ok(frameCaptureStore.latest(portName, malformed, limit));
+    }
+}
@@ -0,0 +1,129 @@
+package cn.allbs.weightscale.controller;
+
+import cn.allbs.weightscale.config.R;
+import cn.allbs.weightscale.config.SerialPortManager;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.model.BaudDetectResult;
+import cn.allbs.weightscale.model.PortInfo;
+import cn.allbs.weightscale.model.PortReloadResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.Parameters;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 类 PortAdminController
+ * </p>
+ * 运行时管理串口登记表，增加、移除或重新加载串口不需要重启，也不影响其他串口
+ *
+ * @author ChenQi
+ * @date 2026/10/13
+ */
+@Tag(name = "串口管理")
+@RestController
+public class PortAdminController {
+
+    @Resource
+    private SerialPortManager serialPortManager;
+
+    /**
+     * 查询登记的串口
+     *
+     * @return 各串口的配置和状态
+     */
+    @Operation(summary = "查询登记的串口")
+    @GetMapping("/ports")
+    public R<List<PortInfo>> ports() {
+        return R.ok(serialPortManager.getPorts());
+    }
+
+    /**
+     * 增加串口并开始监听，配置取自 serial.&lt;profile&gt;.settings.&lt;串口名称&gt;
+     *
+     * @param portName 串口名称
+     * @return 各串口的配置和状态
+     */
+    @Operation(summary = "增加串口并开始监听")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+    })
+    @PostMapping("/ports/add")
+    public R<List<PortInfo>> add(@RequestParam(name = "portName") String portName) {
+        if (!serialPortManager.addPort(portName)) {
+            throw new BhudyException("串口" + portName + "不存在");
+        }
+        return R.ok(serialPortManager.getPorts());
+    }
+
+    /**
+     * 停止监听并移除串口
+     *
+     * @param portName 串口名称
+     * @return 各串口的配置和状态
+     */
+    @Operation(summary = "停止监听并移除串口")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+    })
+    @PostMapping("/ports/remove")
+    public R<List<PortInfo>> remove(@RequestParam(name = "portName") String portName) {
+        if (!serialPortManager.removePort(portName)) {
+            throw new BhudyException("串口" + portName + "未登记");
+        }
+        return R.ok(serialPortManager.getPorts());
+    }
+
+    /**
+     * 重新加载串口登记表，配置变化的串口单独重启
+     *
+     * @return 新增、移除、重启和未变化的串口
+     */
+    @Operation(summary = "重新加载串口登记表")
+    @PostMapping("/ports/reload")
+    public R<PortReloadResult> reload() {
+        return R.ok(serialPortManager.reloadPorts());
+    }
+
+    /**
+     * 重新检测串口的波特率和校验位，检测在后台进行，期间暂停该串口的监听
+     *
+     * @param portName 串口名称
+     * @return 检测进度
+     */
+    @Operation(summary = "重新检测波特率")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+    })
+    @PostMapping("/ports/detect")
+    public R<BaudDetectResult> detect(@RequestParam(name = "portName") String portName) {
+        return R.ok(serialPortManager.detectPort(portName));
+    }
+
+    /**
+     * 查询最近一次波特率检测的进度和各组候选参数的得分
+     *
+     * @param portName 串口名称
+     * @return 检测结果
+     */
+    @Operation(summary = "查询波特率检测结果")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping("/ports/detection")
+    public R<BaudDetectResult> detection(@RequestParam(name = "portName") String portName) {
+        BaudDetectResult result = serialPortManager.getDetection(portName);
+        if (result == null) {
+            throw new BhudyException("串口" + portName + "没有检测记录");
+        }
+        return R.ok(result);
+    }
+}
@@ -1,6 +1,14 @@
 package cn.allbs.weightscale.controller;
 
 import cn.allbs.weightscale.config.R;
+import cn.allbs.weightscale.model.RecentWeights;
+import cn.allbs.weightscale.model.WeightEvent;
+import cn.allbs.weightscale.model.WeightHistoryBucket;
+import cn.allbs.weightscale.model.WeightHistoryPoint;
+import cn.allbs.weightscale.model.WeightSnapshot;
+import cn.allbs.weightscale.service.RecentWeightStore;
+import cn.allbs.weightscale.service.WeightArchiveService;
+import cn.allbs.weightscale.service.WeightEventService;
 import cn.allbs.weightscale.service.WeightScaleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,6 +25,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /**
  * 类 WeightScaleController
  *
@@ -30,6 +40,15 @@ public class WeightScaleController {
     @Resource
     private WeightScaleService weightScaleService;
 
+    @Resource
+    private WeightEventService weightEventService;
+
+    @Resource
+    private WeightArchiveService weightArchiveService;
+
+    @Resource
+    private RecentWeightStore recentWeightStore;
+
     /**
      * 读取称重数据或者执行指令
      *
@@ -67,6 +86,7 @@ public class WeightScaleController {
     @Operation(summary = "查询串口当前数据")
     @Parameters({
             @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+            @Parameter(name = "maxAge", description = "数据最大允许时长（毫秒），超过后等待串口的下一帧，不传时取serial.snapshot.max-age", schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
     })
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "查询成功", content =
@@ -80,7 +100,106 @@ public class WeightScaleController {
                                     }""")})})
     })
     @GetMapping("/currentWeight")
-    public R<String> performOperation(@RequestParam(name = "portName") String portName) {
-        return R.ok(weightScaleService.getCurrentWeight(portName));
+    public R<String> performOperation(@RequestParam(name = "portName") String portName, @RequestParam(name = "maxAge", required = false) Long maxAge) {
+        return R.ok(weightScaleService.getCurrentWeight(portName, maxAge));
+    }
+
+    /**
+     * 查询串口最新称重快照
+     *
+     * @param portName 端口名称
+     * @return 称重快照
+     */
+    @Operation(summary = "查询串口最新称重快照")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping("/currentSnapshot")
+    public R<WeightSnapshot> currentSnapshot(@RequestParam(name = "portName") String portName) {
+        return R.ok(weightScaleService.getSnapshot(portName));
+    }
+
+    /**
+     * 查询最近的称重事件
+     *
+     * @param portName 端口名称
+     * @param limit    数量
+     * @return 称重事件，按时间倒序
+     */
+    @Operation(summary = "查询最近的称重事件（上磅、稳定、下磅）")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+            @Parameter(name = "limit", description = "数量，默认20", schema = @Schema(implementation = Integer.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping("/events")
+    public R<List<WeightEvent>> events(@RequestParam(name = "portName") String portName, @RequestParam(name = "limit", defaultValue = "20") Integer limit) {
+        return R.ok(weightEventService.recent(portName, limit));
+    }
+
+    /**
+     * 查询历史重量
+     *
+     * @param portName 串口名称，总线轮询的地址为 串口:地址:操作码
+     * @param from     开始时间戳（毫秒）
+     * @param to       结束时间戳（毫秒）
+     * @param limit    最大记录数
+     * @return 历史重量，按时间顺序
+     */
+    @Operation(summary = "查询历史重量（写入Redis的每个重量）")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名，总线轮询的地址为 串口:地址:操作码", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+            @Parameter(name = "from", description = "开始时间戳（毫秒）", required = true, schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
+            @Parameter(name = "to", description = "结束时间戳（毫秒），默认当前时间", schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
+            @Parameter(name = "limit", description = "最大记录数，默认1000，最多100000", schema = @Schema(implementation = Integer.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping("/history")
+    public R<List<WeightHistoryPoint>> history(@RequestParam(name = "portName") String portName, @RequestParam(name = "from") Long from,
+                                               @RequestParam(name = "to", required = false) Long to,
+                                               @RequestParam(name = "limit", defaultValue = "1000") Integer limit) {
+        return R.ok(weightArchiveService.history(portName, from, to == null ? System.currentTimeMillis() : to, limit));
+    }
+
+    /**
+     * 按时间段聚合历史重量
+     *
+     * @param portName 串口名称，总线轮询的地址为 串口:地址:操作码
+     * @param from     开始时间戳（毫秒）
+     * @param to       结束时间戳（毫秒）
+     * @param bucket   时间段长度（毫秒）
+     * @return 每个时间段的最小、最大和平均重量，没有记录的时间段不返回
+     */
+    @Operation(summary = "按时间段聚合历史重量")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名，总线轮询的地址为 串口:地址:操作码", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+            @Parameter(name = "from", description = "开始时间戳（毫秒）", required = true, schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
+            @Parameter(name = "to", description = "结束时间戳（毫秒），默认当前时间", schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
+            @Parameter(name = "bucket", description = "时间段长度（毫秒），默认60000", schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping("/history/buckets")
+    public R<List<WeightHistoryBucket>> historyBuckets(@RequestParam(name = "portName") String portName, @RequestParam(name = "from") Long from,
+                                                       @RequestParam(name = "to", required = false) Long to,
+                                                       @RequestParam(name = "bucket", defaultValue = "60000") Long bucket) {
+        return R.ok(weightArchiveService.buckets(portName, from, to == null ? System.currentTimeMillis() : to, bucket));
+    }
+
+    /**
+     * 查询最近一段时间的重量曲线，数据只保存在内存中
+     *
+     * @param portName 串口名称，总线轮询的地址为 串口:地址:操作码
+     * @param seconds  时长（秒）
+     * @param step     聚合的时间段长度（毫秒），0表示返回每个采样点
+     * @return 按列返回的重量曲线
+     */
+    @Operation(summary = "查询最近的重量曲线")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名，总线轮询的地址为 串口:地址:操作码", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+            @Parameter(name = "seconds", description = "时长（秒），默认60", schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
+            @Parameter(name = "step", description = "聚合的时间段长度（毫秒），默认0不聚合", schema = @Schema(implementation = Long.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping("/recent")
+    public R<RecentWeights> recent(@RequestParam(name = "portName") String portName,
+                                   @RequestParam(name = "seconds", defaultValue = "60") Long seconds,
+                                   @RequestParam(name = "step", defaultValue = "0") Long step) {
+        return R.ok(recentWeightStore.recent(portName, seconds, step));
     }
 }
@@ -0,0 +1,60 @@
+package cn.allbs.weightscale.controller;
+
+import cn.allbs.weightscale.enums.StreamType;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.service.WeightStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.Parameters;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 类 WeightStreamController
+ *
+ * @author ChenQi
+ * @date 2026/9/14
+ */
+@Tag(name = "实时推送串口数据")
+@RestController
+public class WeightStreamController {
+
+    @Resource
+    private WeightStreamService weightStreamService;
+
+    /**
+     * 订阅串口实时数据（SSE）
+     *
+     * @param portName 端口名称
+     * @param type     内容类型
+     * @return 事件流，内容类型无效时返回400，串口未登记时返回404
+     */
+    @Operation(summary = "订阅串口实时数据（Server-Sent Events）")
+    @Parameters({
+            @Parameter(name = "portName", description = "串口全名", required = true, schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+            @Parameter(name = "type", description = "推送内容:frames实时重量,changes重量变化(默认),events称重事件", schema = @Schema(implementation = String.class), in = ParameterIn.QUERY),
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(name = "portName") String portName, @RequestParam(name = "type", required = false) String type) {
+        StreamType streamType;
+        try {
+            streamType = StreamType.of(type);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        try {
+            return weightStreamService.subscribe(portName, streamType);
+        } catch (BhudyException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package cn.allbs.weightscale.enums;
+
+import lombok.Getter;
+
+/**
+ * 仪表的数据帧格式
+ *
+ * @author ChenQi
+ * @date 2026/10/13
+ */
+@Getter
+public enum FrameCodec {
+
+    // 耀华DS10：STX开头、ETX结尾、异或校验
+    DS10("ds10", "耀华DS10 STX/ETX帧");
+
+    private final String code;
+    private final String description;
+
+    FrameCodec(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取帧格式，未配置时默认为DS10
+     *
+     * @param code 配置值
+     * @return 帧格式
+     */
+    public static FrameCodec of(String code) {
+        if (code == null || code.isBlank()) {
+            return DS10;
+        }
+        for (FrameCodec codec : FrameCodec.values()) {
+            if (codec.getCode().equalsIgnoreCase(code.trim()) || codec.name().equalsIgnoreCase(code.trim())) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Invalid frame codec: " + code);
+    }
+}
@@ -0,0 +1,46 @@
+package cn.allbs.weightscale.enums;
+
+import lombok.Getter;
+
+/**
+ * 连续发送方式下每帧数据的日志方式
+ *
+ * @author ChenQi
+ * @date 2026/10/1
+ */
+@Getter
+public enum FrameLogMode {
+
+    // 每次写入Redis都记录一条日志
+    ALL("all", "逐帧记录"),
+    // 只记录重量变化和异常，其余按周期汇总
+    SAMPLED("sampled", "变化和异常记录，定期汇总"),
+    // 只按周期汇总
+    SUMMARY("summary", "只定期汇总");
+
+    private final String code;
+    private final String description;
+
+    FrameLogMode(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取日志方式，未配置时默认为变化和异常记录
+     *
+     * @param code 配置值
+     * @return 日志方式
+     */
+    public static FrameLogMode of(String code) {
+        if (code == null || code.isBlank()) {
+            return SAMPLED;
+        }
+        for (FrameLogMode mode : FrameLogMode.values()) {
+            if (mode.getCode().equalsIgnoreCase(code.trim()) || mode.name().equalsIgnoreCase(code.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid frame log mode: " + code);
+    }
+}
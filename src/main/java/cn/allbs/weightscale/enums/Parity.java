@@ -0,0 +1,56 @@
+package cn.allbs.weightscale.enums;
+
+import lombok.Getter;
+
+/**
+ * 串口校验位
+ *
+ * @author ChenQi
+ * @date 2026/10/17
+ */
+@Getter
+public enum Parity {
+
+    // 无校验
+    NONE("none", "N", "无校验"),
+    // 奇校验
+    ODD("odd", "O", "奇校验"),
+    // 偶校验
+    EVEN("even", "E", "偶校验"),
+    // 校验位恒为1
+    MARK("mark", "M", "标记校验"),
+    // 校验位恒为0
+    SPACE("space", "S", "空格校验");
+
+    private final String code;
+    /**
+     * 简写，如8N1中的N
+     */
+    private final String symbol;
+    private final String description;
+
+    Parity(String code, String symbol, String description) {
+        this.code = code;
+        this.symbol = symbol;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取校验位，未配置时默认为无校验
+     *
+     * @param code 配置值，如none、even或N、E
+     * @return 校验位
+     */
+    public static Parity of(String code) {
+        if (code == null || code.isBlank()) {
+            return NONE;
+        }
+        for (Parity parity : Parity.values()) {
+            if (parity.getCode().equalsIgnoreCase(code.trim()) || parity.getSymbol().equalsIgnoreCase(code.trim())
+                    || parity.name().equalsIgnoreCase(code.trim())) {
+                return parity;
+            }
+        }
+        throw new IllegalArgumentException("Invalid parity: " + code);
+    }
+}
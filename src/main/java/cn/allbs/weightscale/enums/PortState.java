@@ -0,0 +1,30 @@
+package cn.allbs.weightscale.enums;
+
+import lombok.Getter;
+
+/**
+ * 串口连接状态
+ *
+ * @author ChenQi
+ * @date 2026/10/15
+ */
+@Getter
+public enum PortState {
+
+    // 已关闭，等待下一次打开
+    CLOSED("closed", "已关闭"),
+    // 正在打开
+    OPENING("opening", "正在打开"),
+    // 已打开
+    OPEN("open", "已打开"),
+    // 连续多次打开失败，按最长间隔重试并扫描重新插入的设备
+    FAILED("failed", "打开失败");
+
+    private final String code;
+    private final String description;
+
+    PortState(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+}
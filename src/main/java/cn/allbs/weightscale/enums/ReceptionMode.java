@@ -0,0 +1,46 @@
+package cn.allbs.weightscale.enums;
+
+import lombok.Getter;
+
+/**
+ * 连续发送方式下的串口接收方式
+ *
+ * @author ChenQi
+ * @date 2026/9/5
+ */
+@Getter
+public enum ReceptionMode {
+
+    // 定时轮询
+    POLLING("polling", "定时轮询"),
+    // 串口有数据到达时立即读取
+    EVENT("event", "数据到达事件"),
+    // 收到结束符ETX时按帧读取
+    DELIMITER("delimiter", "按结束符分包事件");
+
+    private final String code;
+    private final String description;
+
+    ReceptionMode(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取接收方式，未配置时默认为定时轮询
+     *
+     * @param code 配置值
+     * @return 接收方式
+     */
+    public static ReceptionMode of(String code) {
+        if (code == null || code.isBlank()) {
+            return POLLING;
+        }
+        for (ReceptionMode mode : ReceptionMode.values()) {
+            if (mode.getCode().equalsIgnoreCase(code.trim()) || mode.name().equalsIgnoreCase(code.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid reception mode: " + code);
+    }
+}
@@ -0,0 +1,46 @@
+package cn.allbs.weightscale.enums;
+
+import lombok.Getter;
+
+/**
+ * 推送流的内容类型
+ *
+ * @author ChenQi
+ * @date 2026/9/14
+ */
+@Getter
+public enum StreamType {
+
+    // 每次解析出的最新重量
+    FRAMES("frames", "实时重量"),
+    // 重量变化（与写入Redis的策略一致）
+    CHANGES("changes", "重量变化"),
+    // 上磅、稳定、下磅事件
+    EVENTS("events", "称重事件");
+
+    private final String code;
+    private final String description;
+
+    StreamType(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 根据参数获取类型，未传时默认为重量变化
+     *
+     * @param code 参数
+     * @return 类型
+     */
+    public static StreamType of(String code) {
+        if (code == null || code.isBlank()) {
+            return CHANGES;
+        }
+        for (StreamType type : StreamType.values()) {
+            if (type.getCode().equalsIgnoreCase(code.trim()) || type.name().equalsIgnoreCase(code.trim())) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Invalid stream type: " + code);
+    }
+}
@@ -0,0 +1,26 @@
+package cn.allbs.weightscale.enums;
+
+import lombok.Getter;
+
+/**
+ * 称重事件类型
+ *
+ * @author ChenQi
+ * @date 2026/9/12
+ */
+@Getter
+public enum WeightEventType {
+
+    // 车辆上磅
+    LOADED("上磅"),
+    // 重量稳定
+    STABLE("稳定"),
+    // 车辆下磅
+    UNLOADED("下磅");
+
+    private final String description;
+
+    WeightEventType(String description) {
+        this.description = description;
+    }
+}
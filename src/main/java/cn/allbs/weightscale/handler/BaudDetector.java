@@ -0,0 +1,246 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.enums.Parity;
+import cn.allbs.weightscale.model.BaudCandidateScore;
+import cn.allbs.weightscale.model.BaudDetectResult;
+import cn.allbs.weightscale.transport.SerialParameters;
+import cn.allbs.weightscale.transport.SerialTransport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 BaudDetector
+ * </p>
+ * 连续发送方式下的波特率自动检测：依次切换到每组候选的波特率和校验位，采样一段时间，
+ * 以每秒校验通过的STX/ETX帧数打分，采用得分最高的一组；参数不对时几乎不可能凑出校验通过的帧。
+ * 采样由事件循环上的定时器驱动，不阻塞；检测期间持有串口读写许可，监听在检测结束后才开始。
+ *
+ * @author ChenQi
+ * @date 2026/10/17
+ */
+@Slf4j
+public class BaudDetector {
+
+    /**
+     * 采样时读取串口的间隔（毫秒）
+     */
+    private static final long READ_INTERVAL_MS = 20;
+
+    /**
+     * 切换参数后等待多久再开始采样（毫秒），丢弃切换过程中收到的乱码
+     */
+    private static final long SETTLE_MS = 50;
+
+    private final SerialTransport serialPort;
+
+    private final String portName;
+
+    private final PortReactor reactor;
+
+    private final Semaphore ioPermit;
+
+    private final PortSettings.AutoBaud settings;
+
+    private final SerialParameters configured;
+
+    private final List<SerialParameters> candidates = new ArrayList<>();
+
+    private final BaudDetectResult result;
+
+    private final CompletableFuture<SerialParameters> future = new CompletableFuture<>();
+
+    private final byte[] buffer = new byte[1024];
+
+    private volatile boolean cancelled;
+
+    private boolean permitHeld;
+
+    private int index;
+
+    private FrameDecoder decoder;
+
+    private long sampleStart;
+
+    private PortReactor.Timeout timer;
+
+    public BaudDetector(SerialTransport serialPort, String portName, PortReactor reactor, Semaphore ioPermit,
+                        PortSettings.AutoBaud settings, SerialParameters configured) {
+        this.serialPort = serialPort;
+        this.portName = portName;
+        this.reactor = reactor;
+        this.ioPermit = ioPermit;
+        this.settings = settings;
+        this.configured = configured;
+        for (Integer baudRate : settings.getBaudRates()) {
+            for (Parity parity : settings.getParities()) {
+                candidates.add(configured.copy().setBaudRate(baudRate).setParity(parity));
+            }
+        }
+        this.result = new BaudDetectResult()
+                .setPortName(portName)
+                .setConfigured(configured.toString());
+    }
+
+    /**
+     * 在事件循环上开始检测
+     *
+     * @return 采用的参数，没有合适的参数或检测被取消时为null，此时串口使用配置的参数
+     */
+    public CompletableFuture<SerialParameters> detect() {
+        result.setRunning(true);
+        result.setStartedAt(System.currentTimeMillis());
+        log.info("串口{}开始自动检测波特率，候选参数{}组，预计{}毫秒", portName, candidates.size(),
+                candidates.size() * (settings.getSampleTime() + SETTLE_MS));
+        reactor.execute(this::begin);
+        return future;
+    }
+
+    /**
+     * 取消检测，串口恢复为配置的参数
+     */
+    public void cancel() {
+        cancelled = true;
+        reactor.execute(() -> finish(null));
+    }
+
+    public BaudDetectResult getResult() {
+        return result;
+    }
+
+    private void begin() {
+        if (cancelled) {
+            return;
+        }
+        if (!serialPort.open()) {
+            log.warn("串口{}无法打开，跳过波特率检测，使用配置的参数{}", portName, configured);
+            finish(null);
+            return;
+        }
+        if (!ioPermit.tryAcquire()) {
+            timer = reactor.schedule(this::begin, READ_INTERVAL_MS);
+            return;
+        }
+        permitHeld = true;
+        tryCandidate();
+    }
+
+    private void tryCandidate() {
+        if (cancelled) {
+            return;
+        }
+        if (index >= candidates.size()) {
+            select();
+            return;
+        }
+        serialPort.setParameters(candidates.get(index));
+        timer = reactor.schedule(this::startSample, SETTLE_MS);
+    }
+
+    private void startSample() {
+        if (cancelled) {
+            return;
+        }
+        // 切换参数前后收到的数据按新参数解释是乱码，先丢弃
+        while (serialPort.read(buffer, 0, buffer.length) > 0) {
+            // 丢弃
+        }
+        decoder = new FrameDecoder();
+        sampleStart = System.nanoTime();
+        timer = reactor.schedule(this::sample, READ_INTERVAL_MS);
+    }
+
+    private void sample() {
+        if (cancelled) {
+            return;
+        }
+        int n;
+        while ((n = serialPort.read(buffer, 0, buffer.length)) > 0) {
+            decoder.feed(buffer, 0, n);
+            while (decoder.next()) {
+                // 只计数
+            }
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sampleStart);
+        if (elapsed < settings.getSampleTime() && n >= 0) {
+            timer = reactor.schedule(this::sample, READ_INTERVAL_MS);
+            return;
+        }
+        SerialParameters candidate = candidates.get(index);
+        result.getCandidates().add(new BaudCandidateScore()
+                .setParameters(candidate.toString())
+                .setBaudRate(candidate.getBaudRate())
+                .setParity(candidate.getParity().getCode())
+                .setBytes(decoder.getBytesReceived())
+                .setFrames(decoder.getFramesDecoded())
+                .setChecksumFailures(decoder.getChecksumFailures())
+                .setFramesPerSecond(decoder.getFramesDecoded() * 1000.0 / Math.max(1, elapsed)));
+        log.debug("串口{}参数{}: {}字节，{}帧，校验失败{}", portName, candidate, decoder.getBytesReceived(),
+                decoder.getFramesDecoded(), decoder.getChecksumFailures());
+        if (n < 0) {
+            log.warn("串口{}读取失败，停止波特率检测", portName);
+            finish(null);
+            return;
+        }
+        index++;
+        tryCandidate();
+    }
+
+    /**
+     * 按每秒校验通过的帧数选出最好的一组，相同时校验失败少的优先，再相同时波特率高的优先
+     */
+    private void select() {
+        int best = -1;
+        for (int i = 0; i < result.getCandidates().size(); i++) {
+            BaudCandidateScore score = result.getCandidates().get(i);
+            if (best < 0 || better(score, result.getCandidates().get(best))) {
+                best = i;
+            }
+        }
+        if (best < 0 || result.getCandidates().get(best).getFrames() < settings.getMinFrames()) {
+            log.warn("串口{}没有检测到合适的波特率，使用配置的参数{}", portName, configured);
+            finish(null);
+            return;
+        }
+        SerialParameters selected = candidates.get(best);
+        log.info("串口{}检测到波特率参数{}，每秒{}帧，配置的参数为{}", portName, selected,
+                String.format("%.1f", result.getCandidates().get(best).getFramesPerSecond()), configured);
+        finish(selected);
+    }
+
+    private static boolean better(BaudCandidateScore score, BaudCandidateScore best) {
+        int compare = Double.compare(score.getFramesPerSecond(), best.getFramesPerSecond());
+        if (compare != 0) {
+            return compare > 0;
+        }
+        if (score.getChecksumFailures() != best.getChecksumFailures()) {
+            return score.getChecksumFailures() < best.getChecksumFailures();
+        }
+        return score.getBaudRate() > best.getBaudRate();
+    }
+
+    private void finish(SerialParameters selected) {
+        if (future.isDone()) {
+            return;
+        }
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        serialPort.setParameters(selected != null ? selected : configured);
+        if (permitHeld) {
+            permitHeld = false;
+            ioPermit.release();
+        }
+        result.setSelected(selected != null ? selected.toString() : null);
+        result.setFinishedAt(System.currentTimeMillis());
+        result.setRunning(false);
+        future.complete(selected);
+    }
+}
@@ -0,0 +1,305 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.archive.WeightArchive;
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.enums.ScaleCommand;
+import cn.allbs.weightscale.model.BusTargetStats;
+import cn.allbs.weightscale.service.RedisWeightWriter;
+import cn.allbs.weightscale.service.RecentWeightStore;
+import cn.allbs.weightscale.service.WeightArchiveService;
+import cn.allbs.weightscale.service.WeightSnapshotStore;
+import cn.allbs.weightscale.transport.SerialTransport;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 类 BusPoller
+ * </p>
+ * 指令应答方式下的RS-485总线轮询，每个串口一个实例，没有独立线程：在串口所在的事件循环 {@link PortReactor} 上选择地址并异步提交指令，
+ * 应答的解析和发布在工作线程上执行，完成后再回到事件循环轮询下一个地址，同一时间只有一条轮询指令在执行。
+ * 到期的地址按平滑加权轮询选出，指令以低优先级提交给 {@link CommandExecutor}，接口请求可以插队；
+ * 重量变化时快速轮询，长时间不变时降速，连续不应答的地址按指数退避暂时跳过。
+ * 结果写入快照 &lt;串口&gt;:&lt;地址&gt;:&lt;操作码&gt; 和Redis键 &lt;redisKey&gt;:&lt;地址&gt;:&lt;操作码&gt;，并以快照标识为序列名称归档。
+ *
+ * @author ChenQi
+ * @date 2026/9/22
+ */
+@Slf4j
+public class BusPoller {
+
+    /**
+     * 没有到期地址时的最长等待时间（毫秒）
+     */
+    private static final long MAX_IDLE_WAIT_MS = 100;
+
+    private final SerialTransport serialPort;
+
+    private final String portName;
+
+    private final PortReactor reactor;
+
+    private final Executor workers;
+
+    private final CommandExecutor commandExecutor;
+
+    private final RedisWeightWriter redisWriter;
+
+    private final PortSettings.Bus settings;
+
+    private final List<Target> targets = new ArrayList<>();
+
+    private final WeightReading reading = new WeightReading();
+
+    private volatile boolean running = true;
+
+    public BusPoller(SerialTransport serialPort, PortSettings settings, PortReactor reactor, Executor workers, CommandExecutor commandExecutor,
+                     RedisWeightWriter redisWriter, WeightSnapshotStore snapshotStore, WeightArchiveService archiveService,
+                     RecentWeightStore recentStore) {
+        this.serialPort = serialPort;
+        this.portName = settings.getPortName();
+        this.reactor = reactor;
+        this.workers = workers;
+        this.commandExecutor = commandExecutor;
+        this.redisWriter = redisWriter;
+        this.settings = settings.getBus();
+        for (String address : this.settings.getAddresses()) {
+            for (String operation : this.settings.getOperations()) {
+                // 校验操作码
+                ScaleCommand.getDescriptionByOperationCode(operation);
+                String id = portName + ":" + address + ":" + operation;
+                String redisKey = settings.getRedisKey() == null ? null : settings.getRedisKey() + ":" + address + ":" + operation;
+                int weight = Math.max(1, this.settings.getWeights().getOrDefault(address, 1));
+                targets.add(new Target(id, address, operation, weight, redisKey, snapshotStore.holder(id),
+                        new PublishPolicy(settings.getPublish()), archiveService.archive(id), recentStore.ring(id)));
+            }
+        }
+    }
+
+    public void start() {
+        log.info("串口{}开始轮询总线上的{}个地址", portName, settings.getAddresses().size());
+        reactor.execute(this::tick);
+    }
+
+    /**
+     * 在事件循环上选出到期的地址并提交指令，没有到期地址时定时再检查
+     */
+    private void tick() {
+        if (!running) {
+            return;
+        }
+        if (!serialPort.isOpen()) {
+            // 串口断开期间已到期的地址会一直到期，按最长间隔检查，不占用共用的事件循环
+            reactor.schedule(this::tick, MAX_IDLE_WAIT_MS);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Target target = select(now);
+        if (target == null) {
+            reactor.schedule(this::tick, Math.max(1, Math.min(MAX_IDLE_WAIT_MS, nextDue() - now)));
+            return;
+        }
+        target.polls++;
+        byte[] command = SerialPortUtil.generateCommand(target.address, target.operation.charAt(0));
+        commandExecutor.submit(command, CommandExecutor.PRIORITY_LOW)
+                .whenComplete((response, error) -> dispatch(() -> complete(target, response, error)));
+    }
+
+    /**
+     * 应答处理交给工作线程，队列已满时在当前线程处理，保证轮询不会中断
+     */
+    private void dispatch(Runnable task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private void complete(Target target, byte[] response, Throwable error) {
+        try {
+            if (error != null) {
+                onFailure(target, error.getMessage());
+            } else {
+                onResponse(target, response);
+            }
+        } catch (Exception e) {
+            log.error("串口{}总线轮询异常", portName, e);
+        } finally {
+            reactor.execute(this::tick);
+        }
+    }
+
+    /**
+     * 平滑加权轮询：所有到期地址的当前权重加上各自权重，选出当前权重最大者并减去总权重
+     *
+     * @param now 当前时间戳（毫秒）
+     * @return 本次轮询的地址，没有到期地址时返回null
+     */
+    private Target select(long now) {
+        Target best = null;
+        int total = 0;
+        for (Target target : targets) {
+            if (now < target.nextDue) {
+                continue;
+            }
+            target.currentWeight += target.weight;
+            total += target.weight;
+            if (best == null || target.currentWeight > best.currentWeight) {
+                best = target;
+            }
+        }
+        if (best != null) {
+            best.currentWeight -= total;
+        }
+        return best;
+    }
+
+    private long nextDue() {
+        long next = Long.MAX_VALUE;
+        for (Target target : targets) {
+            next = Math.min(next, target.nextDue);
+        }
+        return next;
+    }
+
+    private void onResponse(Target target, byte[] response) {
+        long now = System.currentTimeMillis();
+        if (SerialPortUtil.decodeWeight(response, 0, response.length, reading) != WeightReading.OK) {
+            onFailure(target, "应答解析失败");
+            return;
+        }
+        if (target.failures >= settings.getMaxFailures()) {
+            log.info("串口{}地址{}恢复应答", portName, target.address);
+        }
+        target.failures = 0;
+        target.backoff = 0;
+        boolean changed = !target.hasValue || target.lastValue != reading.getValue() || target.lastScale != reading.getScale();
+        if (changed) {
+            target.lastChangeAt = now;
+            target.lastValue = reading.getValue();
+            target.lastScale = reading.getScale();
+            target.hasValue = true;
+        }
+        target.interval = now - target.lastChangeAt > settings.getIdleAfter() ? settings.getSlowInterval() : settings.getFastInterval();
+        target.nextDue = now + target.interval;
+        target.snapshotHolder.update(reading, now, false);
+        target.recent.add(reading, now, false);
+        if (target.publishPolicy.shouldPublish(reading, now)) {
+            if (target.redisKey != null) {
+                redisWriter.set(target.redisKey, reading.toString());
+            }
+            if (target.archive != null) {
+                target.archive.append(now, reading.getValue(), reading.getScale(), false);
+            }
+        }
+    }
+
+    private void onFailure(Target target, String reason) {
+        target.failures++;
+        target.failureCount++;
+        long now = System.currentTimeMillis();
+        if (target.failures < settings.getMaxFailures()) {
+            target.nextDue = now + settings.getFastInterval();
+            return;
+        }
+        target.backoff = target.backoff == 0 ? settings.getBackoff() : Math.min(target.backoff * 2, settings.getMaxBackoff());
+        target.nextDue = now + target.backoff;
+        log.warn("串口{}地址{}连续{}次无应答({})，{}毫秒内跳过", portName, target.address, target.failures, reason, target.backoff);
+    }
+
+    /**
+     * 各地址的轮询统计
+     *
+     * @return 统计
+     */
+    public List<BusTargetStats> getStats() {
+        long now = System.currentTimeMillis();
+        List<BusTargetStats> stats = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            stats.add(new BusTargetStats()
+                    .setId(target.id)
+                    .setAddress(target.address)
+                    .setOperation(target.operation)
+                    .setWeight(target.weight)
+                    .setInterval(target.interval)
+                    .setPolls(target.polls)
+                    .setFailures(target.failureCount)
+                    .setSkipped(target.failures >= settings.getMaxFailures() && target.nextDue > now));
+        }
+        return stats;
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * 总线上的一个轮询目标（地址+操作码），同一时间只有事件循环或一个工作线程修改
+     */
+    private static class Target {
+
+        private final String id;
+
+        private final String address;
+
+        private final String operation;
+
+        private final int weight;
+
+        private final String redisKey;
+
+        private final WeightSnapshotStore.Holder snapshotHolder;
+
+        private final PublishPolicy publishPolicy;
+
+        private final WeightArchive archive;
+
+        private final RecentWeightStore.Ring recent;
+
+        private int currentWeight;
+
+        private volatile long nextDue;
+
+        private volatile long interval;
+
+        private volatile int failures;
+
+        private long backoff;
+
+        private volatile long polls;
+
+        private volatile long failureCount;
+
+        private boolean hasValue;
+
+        private long lastValue;
+
+        private int lastScale;
+
+        private long lastChangeAt;
+
+        private Target(String id, String address, String operation, int weight, String redisKey,
+                       WeightSnapshotStore.Holder snapshotHolder, PublishPolicy publishPolicy, WeightArchive archive,
+                       RecentWeightStore.Ring recent) {
+            this.id = id;
+            this.address = address;
+            this.operation = operation;
+            this.weight = weight;
+            this.redisKey = redisKey;
+            this.snapshotHolder = snapshotHolder;
+            this.publishPolicy = publishPolicy;
+            this.archive = archive;
+            this.recent = recent;
+        }
+    }
+}
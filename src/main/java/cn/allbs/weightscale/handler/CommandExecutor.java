@@ -0,0 +1,431 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.transport.SerialTransport;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类 CommandExecutor
+ * </p>
+ * 指令应答方式的串口事务执行器，每个串口一个实例，没有独立线程，在串口所在的事件循环 {@link PortReactor} 上以状态机推进：
+ * 空闲时取出下一条指令写入串口，等待应答期间非阻塞读取并检查超时，读取间隔从 {@link #RESPONSE_POLL_MIN_MS}
+ * 逐次翻倍到 {@link #RESPONSE_POLL_MAX_MS}，收到字节后恢复，避免每条指令在共用的事件循环上唤醒数百次。
+ * 同一串口上的指令按优先级和提交顺序串行执行，执行期间持有串口读写许可，监听不会读走应答；
+ * 仪表回显地址和命令时只接受长度为应答帧长度且地址和命令字节都与指令一致的帧，同一串口上连续发送的重量帧不会被当作应答；
+ * 不回显时（settings.&lt;串口名称&gt;.command.echo=false）接受写入指令后收到的第一个12字节重量帧。
+ *
+ * @author ChenQi
+ * @date 2026/9/16
+ */
+@Slf4j
+public class CommandExecutor {
+
+    /**
+     * 接口请求的优先级
+     */
+    public static final int PRIORITY_HIGH = 0;
+
+    /**
+     * 后台轮询的优先级
+     */
+    public static final int PRIORITY_LOW = 10;
+
+    /**
+     * 等待应答期间读取串口的最短间隔（毫秒）
+     */
+    private static final long RESPONSE_POLL_MIN_MS = 1;
+
+    /**
+     * 等待应答期间读取串口的最长间隔（毫秒）
+     */
+    private static final long RESPONSE_POLL_MAX_MS = 8;
+
+    private static final int READ_BUFFER_SIZE = 256;
+
+    private final SerialTransport serialPort;
+
+    private final String portName;
+
+    private final PortReactor reactor;
+
+    private final Semaphore ioPermit;
+
+    /**
+     * 指令从提交到完成的超时时间（毫秒）
+     */
+    private final long timeout;
+
+    /**
+     * 写入指令后等待完整应答的最长时间（纳秒）
+     */
+    private final long responseTimeoutNanos;
+
+    /**
+     * 应答开始后两个字节之间的最长间隔（纳秒）
+     */
+    private final long interByteTimeoutNanos;
+
+    /**
+     * 应答是否回显地址和命令
+     */
+    private final boolean echo;
+
+    private volatile long lastRoundTripNanos;
+
+    private volatile long maxRoundTripNanos;
+
+    private long totalRoundTripNanos;
+
+    private volatile long completed;
+
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * 指令往返耗时直方图
+     */
+    private final Timer roundTripTimer;
+
+    private final PriorityBlockingQueue<Transaction> queue = new PriorityBlockingQueue<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final FrameDecoder decoder = new FrameDecoder();
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    private volatile boolean running = true;
+
+    /**
+     * 以下状态只在事件循环上访问
+     */
+    private Transaction current;
+
+    private long startNanos;
+
+    private long responseDeadline;
+
+    private long lastByteNanos;
+
+    private boolean receiving;
+
+    private PortReactor.Timeout pollTimer;
+
+    /**
+     * 下一次读取应答的间隔（毫秒）
+     */
+    private long pollDelay;
+
+    public CommandExecutor(SerialTransport serialPort, String portName, PortReactor reactor, Semaphore ioPermit,
+                           PortSettings.Command settings, Timer roundTripTimer) {
+        this.serialPort = serialPort;
+        this.roundTripTimer = roundTripTimer;
+        this.portName = portName;
+        this.reactor = reactor;
+        this.ioPermit = ioPermit;
+        this.timeout = settings.getTimeout();
+        this.responseTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, settings.getResponseTimeout()));
+        this.interByteTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, settings.getInterByteTimeout()));
+        this.echo = settings.isEcho();
+    }
+
+    /**
+     * 提交指令
+     *
+     * @param command  由 {@link SerialPortUtil#generateCommand(String, char)} 生成的指令
+     * @param priority 优先级，数值越小越先执行
+     * @return 匹配的应答帧
+     */
+    public CompletableFuture<byte[]> submit(byte[] command, int priority) {
+        Transaction transaction = new Transaction(command, priority, sequence.incrementAndGet(),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+        if (!running) {
+            transaction.future.completeExceptionally(new BhudyException("Command executor stopped: " + portName));
+        } else {
+            queue.offer(transaction);
+            reactor.execute(this::startNext);
+        }
+        return transaction.future;
+    }
+
+    /**
+     * 提交指令并等待应答
+     *
+     * @param command  指令
+     * @param priority 优先级
+     * @return 匹配的应答帧
+     */
+    public byte[] execute(byte[] command, int priority) {
+        if (reactor.inLoop()) {
+            throw new IllegalStateException("不能在事件循环上同步等待指令应答");
+        }
+        CompletableFuture<byte[]> future = submit(command, priority);
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new BhudyException("串口" + portName + "指令应答超时");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof BhudyException be ? be : new BhudyException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new BhudyException("等待串口" + portName + "应答被中断");
+        }
+    }
+
+    /**
+     * 空闲时取出下一条指令开始执行
+     */
+    private void startNext() {
+        Transaction transaction;
+        while (current == null && (transaction = queue.poll()) != null) {
+            if (transaction.future.isDone()) {
+                continue;
+            }
+            if (!running) {
+                transaction.future.completeExceptionally(new BhudyException("Command executor stopped: " + portName));
+                continue;
+            }
+            if (System.nanoTime() - transaction.deadline > 0) {
+                failures.increment();
+                transaction.future.completeExceptionally(new BhudyException("串口" + portName + "指令排队超时"));
+                continue;
+            }
+            if (!begin(transaction)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 开始执行指令
+     *
+     * @return 是否取得了读写许可，没有取得时指令放回队列稍后重试
+     */
+    private boolean begin(Transaction transaction) {
+        if (!ioPermit.tryAcquire()) {
+            // 数据到达事件方式下监听在传输层的事件线程上持有许可读取，波特率检测期间也持有许可，稍后重试
+            queue.offer(transaction);
+            reactor.schedule(this::startNext, RESPONSE_POLL_MAX_MS);
+            return false;
+        }
+        try {
+            if (!serialPort.isOpen()) {
+                throw new BhudyException("Port not open or not found: " + portName);
+            }
+            // 丢弃上一次超时指令迟到的应答
+            drain();
+            decoder.reset();
+            byte[] command = transaction.command;
+            startNanos = System.nanoTime();
+            if (serialPort.write(command, 0, command.length) <= 0) {
+                throw new BhudyException("串口" + portName + "写入指令失败");
+            }
+        } catch (Exception e) {
+            ioPermit.release();
+            failures.increment();
+            transaction.future.completeExceptionally(e);
+            return true;
+        }
+        current = transaction;
+        responseDeadline = startNanos + responseTimeoutNanos;
+        if (transaction.deadline - responseDeadline < 0) {
+            responseDeadline = transaction.deadline;
+        }
+        receiving = false;
+        pollDelay = RESPONSE_POLL_MIN_MS;
+        pollTimer = reactor.schedule(this::poll, pollDelay);
+        return true;
+    }
+
+    /**
+     * 非阻塞读取应答：收到完整且校验通过、地址和命令匹配的帧即完成，
+     * 超过应答截止时间，或应答开始后字节间隔超过限制时失败，否则稍后再读
+     */
+    private void poll() {
+        pollTimer = null;
+        Transaction transaction = current;
+        if (transaction == null) {
+            return;
+        }
+        try {
+            int numRead;
+            boolean received = false;
+            while ((numRead = serialPort.read(readBuffer, 0, readBuffer.length)) > 0) {
+                received = true;
+                lastByteNanos = System.nanoTime();
+                decoder.feed(readBuffer, 0, numRead);
+                while (decoder.next()) {
+                    if (matches(decoder.frame(), decoder.frameLength(), transaction)) {
+                        recordRoundTrip(System.nanoTime() - startNanos);
+                        finish(Arrays.copyOf(decoder.frame(), decoder.frameLength()), null);
+                        return;
+                    }
+                    log.debug("串口{}丢弃不匹配的应答:{}", portName, SerialPortUtil.byteArrayToHexString(Arrays.copyOf(decoder.frame(), decoder.frameLength())));
+                }
+            }
+            if (numRead < 0) {
+                throw new BhudyException("串口" + portName + "读取应答失败");
+            }
+            // 只有收到半帧时才检查字节间隔，同一串口上连续发送的完整重量帧之间的间隔不算
+            receiving = decoder.buffered() > 0;
+            long now = System.nanoTime();
+            if (receiving && now - lastByteNanos > interByteTimeoutNanos) {
+                throw new BhudyException("串口" + portName + "应答不完整，字节间隔超过" + TimeUnit.NANOSECONDS.toMillis(interByteTimeoutNanos) + "毫秒");
+            }
+            if (now - responseDeadline >= 0) {
+                throw new BhudyException("串口" + portName + "等待地址" + (char) transaction.address + "的应答超时");
+            }
+            if (transaction.future.isDone()) {
+                // 调用方已放弃等待
+                throw new BhudyException("串口" + portName + "指令已取消");
+            }
+            // 最长间隔小于字节间隔超时，间隔变长只会让超时的判断最多晚一个读取间隔
+            pollDelay = received ? RESPONSE_POLL_MIN_MS : Math.min(pollDelay * 2, RESPONSE_POLL_MAX_MS);
+            pollTimer = reactor.schedule(this::poll, pollDelay);
+        } catch (Exception e) {
+            failures.increment();
+            finish(null, e);
+        }
+    }
+
+    /**
+     * 结束当前指令，释放读写许可并开始下一条
+     */
+    private void finish(byte[] response, Exception error) {
+        Transaction transaction = current;
+        current = null;
+        if (pollTimer != null) {
+            pollTimer.cancel();
+            pollTimer = null;
+        }
+        ioPermit.release();
+        if (error == null) {
+            transaction.future.complete(response);
+        } else {
+            transaction.future.completeExceptionally(error);
+        }
+        startNext();
+    }
+
+    private void recordRoundTrip(long nanos) {
+        lastRoundTripNanos = nanos;
+        if (nanos > maxRoundTripNanos) {
+            maxRoundTripNanos = nanos;
+        }
+        totalRoundTripNanos += nanos;
+        completed++;
+        roundTripTimer.record(nanos, TimeUnit.NANOSECONDS);
+        log.debug("串口{}指令往返耗时{}微秒", portName, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * 丢弃串口中已到达的数据
+     */
+    private void drain() {
+        while (serialPort.read(readBuffer, 0, readBuffer.length) > 0) {
+            // 丢弃
+        }
+    }
+
+    /**
+     * 回显时应答帧长度为 {@link FrameDecoder#RESPONSE_FRAME_LENGTH}，且地址和命令都与指令一致；
+     * 不回显时应答帧长度为 {@link FrameDecoder#CONTINUOUS_FRAME_LENGTH}
+     */
+    private boolean matches(byte[] frame, int length, Transaction transaction) {
+        if (!echo) {
+            return length == FrameDecoder.CONTINUOUS_FRAME_LENGTH;
+        }
+        return length == FrameDecoder.RESPONSE_FRAME_LENGTH && frame[1] == transaction.address && frame[2] == transaction.commandCode;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public FrameDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * 最近一次指令往返耗时（微秒）
+     *
+     * @return 耗时
+     */
+    public long getLastRoundTripMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastRoundTripNanos);
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getMaxRoundTripMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxRoundTripNanos);
+    }
+
+    public long getAvgRoundTripMicros() {
+        long count = completed;
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalRoundTripNanos / count);
+    }
+
+    public void stop() {
+        running = false;
+        reactor.execute(() -> {
+            if (current != null) {
+                finish(null, new BhudyException("Command executor stopped: " + portName));
+            }
+            startNext();
+        });
+    }
+
+    private static class Transaction implements Comparable<Transaction> {
+
+        private final byte[] command;
+
+        private final byte address;
+
+        private final byte commandCode;
+
+        private final int priority;
+
+        private final long sequence;
+
+        private final long deadline;
+
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        private Transaction(byte[] command, int priority, long sequence, long deadline) {
+            if (command.length < 3 || command[0] != FrameDecoder.STX) {
+                throw new IllegalArgumentException("Invalid command: " + Arrays.toString(command));
+            }
+            this.command = command;
+            this.address = command[1];
+            this.commandCode = command[2];
+            this.priority = priority;
+            this.sequence = sequence;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int compareTo(Transaction other) {
+            int result = Integer.compare(priority, other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.constants.CommonConstants;
+import cn.allbs.weightscale.enums.FrameLogMode;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 FrameLogger
+ * </p>
+ * 连续发送方式下每帧数据的日志。按配置逐帧记录，或只记录重量变化和每个周期内的第一次异常，
+ * 其余帧只计数，每隔 summary-interval 输出一条汇总。只由串口的读取线程调用，不加锁。
+ *
+ * @author ChenQi
+ * @date 2026/10/1
+ */
+@Slf4j
+public class FrameLogger {
+
+    private final String portName;
+
+    private final FrameLogMode mode;
+
+    private final long summaryInterval;
+
+    private final FrameDecoder decoder;
+
+    private long windowStart;
+
+    private long frames;
+
+    private long invalidFrames;
+
+    private long published;
+
+    private long minValue;
+
+    private long maxValue;
+
+    private long lastValue;
+
+    private int lastScale;
+
+    private long checksumFailuresAtStart;
+
+    private long resyncBytesAtStart;
+
+    /**
+     * 本周期内是否已经记录过异常
+     */
+    private boolean errorLogged;
+
+    private boolean hasLogged;
+
+    private long loggedValue;
+
+    private int loggedScale;
+
+    public FrameLogger(PortSettings settings, FrameDecoder decoder) {
+        this.portName = settings.getPortName();
+        this.mode = settings.getFrameLog().getMode();
+        this.summaryInterval = Math.max(1000, settings.getFrameLog().getSummaryInterval());
+        this.decoder = decoder;
+        startWindow(System.currentTimeMillis());
+    }
+
+    /**
+     * 记录一帧解析成功的数据
+     *
+     * @param reading 重量
+     */
+    public void frame(WeightReading reading) {
+        long value = reading.getValue();
+        if (frames == 0 || value < minValue) {
+            minValue = value;
+        }
+        if (frames == 0 || value > maxValue) {
+            maxValue = value;
+        }
+        lastValue = value;
+        lastScale = reading.getScale();
+        frames++;
+    }
+
+    /**
+     * 记录一帧解析失败的数据，每个周期只输出第一次
+     *
+     * @param status {@link WeightReading} 中的解析结果
+     */
+    public void invalid(int status) {
+        invalidFrames++;
+        if (!errorLogged) {
+            errorLogged = true;
+            log.warn("串口{}收到无法解析的帧(状态{})，本周期内不再逐条记录", portName, status);
+        }
+    }
+
+    /**
+     * 记录一次写入Redis
+     *
+     * @param reading 重量
+     * @param result  写入的重量文本
+     * @param skipped 本次被覆盖的旧帧数
+     */
+    public void published(WeightReading reading, String result, int skipped) {
+        published++;
+        boolean changed = !hasLogged || loggedValue != reading.getValue() || loggedScale != reading.getScale();
+        hasLogged = true;
+        loggedValue = reading.getValue();
+        loggedScale = reading.getScale();
+        if (mode == FrameLogMode.ALL) {
+            log.info("{}读取到串口{}的数据为:{}", LocalDateTime.now().format(CommonConstants.DATETIME_FORMATTER), portName, result);
+            if (skipped > 0) {
+                log.debug("串口{}本次跳过{}帧旧数据", portName, skipped);
+            }
+        } else if (mode == FrameLogMode.SAMPLED && changed) {
+            log.info("串口{}重量变化为:{}", portName, result);
+        }
+    }
+
+    /**
+     * 每次读取后调用，检查校验失败并在周期结束时输出汇总
+     *
+     * @param now 当前时间戳（毫秒）
+     */
+    public void tick(long now) {
+        long checksumFailures = decoder.getChecksumFailures() - checksumFailuresAtStart;
+        if (checksumFailures > 0 && !errorLogged) {
+            errorLogged = true;
+            log.warn("串口{}出现校验失败的帧，本周期内不再逐条记录", portName);
+        }
+        if (now - windowStart < summaryInterval) {
+            return;
+        }
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(now - windowStart);
+        if (frames == 0 && invalidFrames == 0 && checksumFailures == 0) {
+            log.info("串口{}最近{}秒没有收到数据", portName, seconds);
+        } else {
+            log.info("串口{}最近{}秒: 解析{}帧, 写入{}次, 重量{}~{}, 最新{}, 校验失败{}帧, 无法解析{}帧, 丢弃{}字节",
+                    portName, seconds, frames, published,
+                    SerialPortUtil.formatWeight(minValue, lastScale), SerialPortUtil.formatWeight(maxValue, lastScale),
+                    SerialPortUtil.formatWeight(lastValue, lastScale), checksumFailures, invalidFrames,
+                    decoder.getResyncBytes() - resyncBytesAtStart);
+        }
+        startWindow(now);
+    }
+
+    private void startWindow(long now) {
+        windowStart = now;
+        frames = 0;
+        invalidFrames = 0;
+        published = 0;
+        errorLogged = false;
+        checksumFailuresAtStart = decoder.getChecksumFailures();
+        resyncBytesAtStart = decoder.getResyncBytes();
+    }
+}
@@ -0,0 +1,200 @@
+package cn.allbs.weightscale.handler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 类 PortReactor
+ * </p>
+ * 多个串口共用的事件循环线程，负责串口的非阻塞读取、定时轮询、断线重连和指令应答超时。
+ * 任务和定时器都在循环线程上执行，不能阻塞；解析和发布交给有界的工作线程池。
+ *
+ * @author ChenQi
+ * @date 2026/10/11
+ */
+@Slf4j
+public class PortReactor implements Executor {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 定时器，只在循环线程上访问
+     */
+    private final PriorityQueue<Timeout> timers = new PriorityQueue<>();
+
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    private long timerSequence;
+
+    private volatile long loops;
+
+    private volatile long tasksRun;
+
+    public PortReactor(String name) {
+        this.thread = new Thread(this::runLoop, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 在循环线程上执行任务，停止后提交的任务直接丢弃
+     *
+     * @param task 任务
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (!running) {
+            log.debug("{}已停止，丢弃任务", thread.getName());
+            return;
+        }
+        tasks.offer(task);
+        if (Thread.currentThread() != thread && wakeup.compareAndSet(false, true)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 延迟执行任务，可以在任意线程调用
+     *
+     * @param task    任务
+     * @param delayMs 延迟（毫秒）
+     * @return 定时器，可取消
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs)));
+        if (inLoop()) {
+            timeout.sequence = timerSequence++;
+            timers.offer(timeout);
+        } else {
+            execute(() -> {
+                timeout.sequence = timerSequence++;
+                timers.offer(timeout);
+            });
+        }
+        return timeout;
+    }
+
+    public boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public String getName() {
+        return thread.getName();
+    }
+
+    public long getLoops() {
+        return loops;
+    }
+
+    public long getTasksRun() {
+        return tasksRun;
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void runLoop() {
+        while (running) {
+            loops++;
+            runTasks();
+            long next = runTimers();
+            wakeup.set(false);
+            if (!tasks.isEmpty()) {
+                continue;
+            }
+            if (next == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                }
+            }
+            Thread.interrupted();
+        }
+        tasks.clear();
+        timers.clear();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        // 停止后不再执行同一批中剩余的任务
+        while (running && (task = tasks.poll()) != null) {
+            run(task);
+        }
+    }
+
+    /**
+     * 执行到期的定时器
+     *
+     * @return 下一个定时器的到期时间，没有定时器时返回Long.MAX_VALUE
+     */
+    private long runTimers() {
+        long now = System.nanoTime();
+        Timeout timeout;
+        while (running && (timeout = timers.peek()) != null) {
+            if (timeout.cancelled) {
+                timers.poll();
+                continue;
+            }
+            if (timeout.deadline - now > 0) {
+                return timeout.deadline;
+            }
+            timers.poll();
+            run(timeout.task);
+            now = System.nanoTime();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private void run(Runnable task) {
+        tasksRun++;
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("{}执行任务异常", thread.getName(), e);
+        }
+    }
+
+    /**
+     * 定时器
+     */
+    public static class Timeout implements Comparable<Timeout> {
+
+        private final Runnable task;
+
+        private final long deadline;
+
+        private long sequence;
+
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public int compareTo(Timeout other) {
+            int result = Long.compare(deadline - other.deadline, 0);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.enums.PortState;
+import cn.allbs.weightscale.transport.SerialTransport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 类 PortSupervisor
+ * </p>
+ * 串口连接状态机（CLOSED/OPENING/OPEN/FAILED），所有状态转换都在串口所在的事件循环上由定时器驱动，不阻塞等待；
+ * 打开、关闭和重新枚举设备是阻塞的系统调用，交给阻塞调用线程池执行，结果再回到事件循环上处理。
+ * 断开后按带随机抖动的指数退避重试打开；连续失败 failAfter 次后进入FAILED，按最长间隔继续重试，
+ * 并定期重新枚举设备，USB转串口设备重新插入后换了系统名称也能找回。日志只在状态变化时输出。
+ *
+ * @author ChenQi
+ * @date 2026/10/15
+ */
+@Slf4j
+public class PortSupervisor {
+
+    /**
+     * 已打开时检查串口是否断开的间隔（毫秒）
+     */
+    private static final long CHECK_INTERVAL_MS = 1000;
+
+    private final SerialTransport serialPort;
+
+    private final String portName;
+
+    private final PortReactor reactor;
+
+    /**
+     * 执行阻塞系统调用的线程池
+     */
+    private final Executor blocking;
+
+    private final PortSettings.Reconnect settings;
+
+    /**
+     * 重新打开后的回调，在事件循环上执行
+     */
+    private final Runnable onOpened;
+
+    private volatile PortState state = PortState.CLOSED;
+
+    private volatile boolean running = true;
+
+    private volatile long attempts;
+
+    private volatile long failures;
+
+    private volatile long reopened;
+
+    /**
+     * 本次断开后连续失败的次数
+     */
+    private int consecutiveFailures;
+
+    private long closedAt;
+
+    private long lastScanAt;
+
+    private PortReactor.Timeout timer;
+
+    public PortSupervisor(SerialTransport serialPort, String portName, PortReactor reactor, Executor blocking,
+                          PortSettings.Reconnect settings, Runnable onOpened) {
+        this.serialPort = serialPort;
+        this.portName = portName;
+        this.reactor = reactor;
+        this.blocking = blocking;
+        this.settings = settings;
+        this.onOpened = onOpened;
+    }
+
+    /**
+     * 在事件循环上开始监督，串口未打开时立即尝试打开
+     */
+    public void start() {
+        reactor.execute(() -> {
+            if (serialPort.isOpen()) {
+                state = PortState.OPEN;
+                schedule(this::check, CHECK_INTERVAL_MS);
+            } else {
+                closedAt = System.currentTimeMillis();
+                schedule(this::attempt, 0);
+            }
+        });
+    }
+
+    /**
+     * 传输层报告断开，可以在任意线程调用
+     */
+    public void disconnected() {
+        reactor.execute(() -> {
+            if (running && state == PortState.OPEN) {
+                onClosed();
+            }
+        });
+    }
+
+    public void stop() {
+        running = false;
+        reactor.execute(() -> {
+            if (timer != null) {
+                timer.cancel();
+                timer = null;
+            }
+            state = PortState.CLOSED;
+        });
+    }
+
+    private void check() {
+        if (state != PortState.OPEN) {
+            return;
+        }
+        if (serialPort.isOpen()) {
+            schedule(this::check, CHECK_INTERVAL_MS);
+        } else {
+            onClosed();
+        }
+    }
+
+    private void onClosed() {
+        state = PortState.CLOSED;
+        consecutiveFailures = 0;
+        closedAt = System.currentTimeMillis();
+        long delay = backoff(0);
+        log.warn("串口{}已断开，{}毫秒后重新打开", portName, delay);
+        // 关闭完成后才开始计时，避免关闭耗时较长时与重新打开交叠
+        runBlocking(serialPort::close, closed -> schedule(this::attempt, delay));
+    }
+
+    private void attempt() {
+        state = PortState.OPENING;
+        attempts++;
+        long now = System.currentTimeMillis();
+        boolean scan = consecutiveFailures > 0 && now - lastScanAt >= settings.getScanInterval();
+        if (scan) {
+            lastScanAt = now;
+        }
+        runBlocking(() -> {
+            if (scan) {
+                serialPort.relocate();
+            }
+            return serialPort.open();
+        }, this::attempted);
+    }
+
+    /**
+     * 在事件循环上处理一次打开的结果
+     */
+    private void attempted(boolean opened) {
+        if (!running) {
+            if (opened) {
+                // 打开期间已停止监督，停止方已经关闭过串口
+                runBlocking(serialPort::close, closed -> {
+                });
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (opened) {
+            if (reopened > 0 || consecutiveFailures > 0) {
+                log.info("串口{}已重新打开，断开{}毫秒，尝试{}次", portName, now - closedAt, consecutiveFailures + 1);
+            }
+            reopened++;
+            consecutiveFailures = 0;
+            state = PortState.OPEN;
+            onOpened.run();
+            schedule(this::check, CHECK_INTERVAL_MS);
+            return;
+        }
+        failures++;
+        consecutiveFailures++;
+        long delay = backoff(consecutiveFailures);
+        if (consecutiveFailures >= settings.getFailAfter()) {
+            if (consecutiveFailures == settings.getFailAfter()) {
+                log.error("串口{}连续{}次打开失败，设备可能已拔出，之后每{}毫秒左右重试并扫描重新插入的设备",
+                        portName, consecutiveFailures, settings.getMaxBackoff());
+            }
+            state = PortState.FAILED;
+        } else {
+            log.debug("串口{}第{}次打开失败，{}毫秒后重试", portName, consecutiveFailures, delay);
+            state = PortState.CLOSED;
+        }
+        schedule(this::attempt, delay);
+    }
+
+    /**
+     * 在阻塞调用线程池上执行系统调用，结果回到事件循环上处理，调用抛出异常视为失败
+     *
+     * @param call   阻塞调用
+     * @param result 在事件循环上接收调用结果
+     */
+    private void runBlocking(BooleanSupplier call, Consumer<Boolean> result) {
+        try {
+            blocking.execute(() -> {
+                boolean success;
+                try {
+                    success = call.getAsBoolean();
+                } catch (RuntimeException e) {
+                    log.debug("串口{}系统调用异常:{}", portName, e.getMessage());
+                    success = false;
+                }
+                boolean outcome = success;
+                reactor.execute(() -> result.accept(outcome));
+            });
+        } catch (RejectedExecutionException e) {
+            // 应用正在关闭
+            log.debug("串口{}阻塞调用线程池已关闭", portName);
+        }
+    }
+
+    /**
+     * 第n次失败后的重试间隔：initialBackoff * 2^n，不超过maxBackoff，再加上±jitter的随机抖动
+     */
+    private long backoff(int failures) {
+        long base = settings.getInitialBackoff() << Math.min(failures, 30);
+        if (base <= 0 || base > settings.getMaxBackoff()) {
+            base = settings.getMaxBackoff();
+        }
+        double jitter = settings.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(0, Math.round(base * (1 + jitter)));
+    }
+
+    /**
+     * 同一时间只保留一个定时器，断开回调和到期的检查不会各自开始一条重连链
+     */
+    private void schedule(Runnable task, long delayMs) {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        if (!running) {
+            return;
+        }
+        timer = reactor.schedule(() -> {
+            if (running) {
+                task.run();
+            }
+        }, delayMs);
+    }
+
+    public PortState getState() {
+        return state;
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,92 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.PortSettings;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类 PublishPolicy
+ * </p>
+ * 写入Redis前的过滤策略：只在重量变化超过死区时写入，两次写入之间至少间隔最小时长，
+ * 超过最大静默时长即使没有变化也写入一次作为心跳。由单个监听线程调用。
+ *
+ * @author ChenQi
+ * @date 2026/9/9
+ */
+public class PublishPolicy {
+
+    /**
+     * 比较重量时统一换算到的小数位数
+     */
+    private static final int COMPARE_SCALE = 6;
+
+    private final boolean onChange;
+
+    private final long deadband;
+
+    private final long minInterval;
+
+    private final long maxSilence;
+
+    private boolean published;
+
+    private long lastValue;
+
+    private long lastPublishAt;
+
+    private final LongAdder publishedCount = new LongAdder();
+
+    private final LongAdder suppressedCount = new LongAdder();
+
+    public PublishPolicy(PortSettings.Publish settings) {
+        this.onChange = settings.isOnChange();
+        BigDecimal deadbandKg = settings.getDeadband() == null ? BigDecimal.ZERO : settings.getDeadband();
+        this.deadband = deadbandKg.movePointRight(COMPARE_SCALE).longValue();
+        this.minInterval = settings.getMinInterval();
+        this.maxSilence = settings.getMaxSilence();
+    }
+
+    /**
+     * 判断本次重量是否需要写入，需要写入时记录为最近一次写入
+     *
+     * @param reading 解析结果
+     * @param now     当前时间戳（毫秒）
+     * @return 是否写入
+     */
+    public boolean shouldPublish(WeightReading reading, long now) {
+        long value = reading.valueAtScale(COMPARE_SCALE);
+        if (!accept(value, now)) {
+            suppressedCount.increment();
+            return false;
+        }
+        published = true;
+        lastValue = value;
+        lastPublishAt = now;
+        publishedCount.increment();
+        return true;
+    }
+
+    private boolean accept(long value, long now) {
+        if (!published) {
+            return true;
+        }
+        long elapsed = now - lastPublishAt;
+        if (maxSilence > 0 && elapsed >= maxSilence) {
+            return true;
+        }
+        if (elapsed < minInterval) {
+            return false;
+        }
+        return !onChange || Math.abs(value - lastValue) > deadband;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.sum();
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+}
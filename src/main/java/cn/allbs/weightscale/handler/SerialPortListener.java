@@ -1,82 +1,381 @@
 package cn.allbs.weightscale.handler;
 
-import cn.allbs.weightscale.constants.CommonConstants;
+import cn.allbs.weightscale.archive.WeightArchive;
+import cn.allbs.weightscale.codec.ByteRingBuffer;
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.enums.ReceptionMode;
+import cn.allbs.weightscale.enums.StreamType;
+import cn.allbs.weightscale.enums.WeightEventType;
+import cn.allbs.weightscale.model.WeightEvent;
+import cn.allbs.weightscale.model.WeightSnapshot;
+import cn.allbs.weightscale.service.RecentWeightStore;
+import cn.allbs.weightscale.service.RedisWeightWriter;
+import cn.allbs.weightscale.service.WeightEventService;
+import cn.allbs.weightscale.service.WeightSnapshotStore;
+import cn.allbs.weightscale.service.WeightStreamService;
+import cn.allbs.weightscale.transport.SerialParameters;
+import cn.allbs.weightscale.transport.SerialTransport;
 import cn.allbs.weightscale.util.SerialPortUtil;
-import com.fazecast.jSerialComm.SerialPort;
+import cn.allbs.weightscale.transport.TransportListener;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 类 SerialPortListener
+ * </p>
+ * 连续发送方式下的串口接收，支持定时轮询和串口事件两种方式，断线检查和重连由 {@link PortSupervisor} 负责。
+ * 定时读取在共用的事件循环 {@link PortReactor} 上执行（事件方式下由传输层的事件线程读取），
+ * 读到的数据放入暂存缓冲区，解析和发布提交到有界的工作线程池，同一串口同一时间只有一个解析任务
+ *
+ * @author ChenQi
+ * @date 2024/6/27
+ */
 @Slf4j
-public class SerialPortListener implements Runnable {
+public class SerialPortListener {
 
-    private final SerialPort serialPort;
+    /**
+     * 轮询间隔（毫秒）
+     */
+    private static final long POLL_PERIOD_MS = 200;
+
+    /**
+     * 单次读取的缓冲区大小
+     */
+    private static final int READ_BUFFER_SIZE = 1024;
+
+    /**
+     * 暂存缓冲区大小，工作线程跟不上时覆盖最旧的数据
+     */
+    private static final int INBOUND_CAPACITY = 8192;
+
+    private final SerialTransport serialPort;
+    private final PortReactor reactor;
+    private final Executor workers;
+    private final Semaphore ioPermit;
     private final String portName;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final RedisWeightWriter redisWriter;
     private final String redisKey;
+    private final ReceptionMode mode;
+    private final WeightSnapshotStore.Holder snapshotHolder;
+    private final PublishPolicy publishPolicy;
+    private final StabilityDetector stabilityDetector;
+    private final WeightEventService weightEventService;
+    private final WeightStreamService.Channel streamChannel;
+    private final WeightArchive archive;
+    private final RecentWeightStore.Ring recent;
     private volatile boolean running = true;
+    private volatile long rejectedDecodes;
+    private volatile boolean resetDecoder;
+    /**
+     * 最近一次收到数据的时间戳（毫秒），作为暂存数据中最后一个字节的到达时间
+     */
+    private volatile long receivedAt;
+    /**
+     * 上一帧的时间戳（毫秒），只在解析任务中访问
+     */
+    private long lastFrameAt;
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private final byte[] decodeBuffer = new byte[READ_BUFFER_SIZE];
+    private final ByteRingBuffer inbound = new ByteRingBuffer(INBOUND_CAPACITY);
+    private final AtomicInteger pendingDecodes = new AtomicInteger();
+    private final FrameDecoder decoder = new FrameDecoder();
+    private final WeightReading reading = new WeightReading();
+    private final FrameLogger frameLogger;
+    private final PortSupervisor supervisor;
 
-    public SerialPortListener(SerialPort serialPort, String portName, RedisTemplate<String, Object> redisTemplate, String redisKey) {
+    public SerialPortListener(SerialTransport serialPort, PortSettings settings, PortReactor reactor, Executor workers,
+                              Executor blocking, Semaphore ioPermit, RedisWeightWriter redisWriter,
+                              WeightSnapshotStore.Holder snapshotHolder, WeightEventService weightEventService,
+                              WeightStreamService.Channel streamChannel, WeightArchive archive,
+                              RecentWeightStore.Ring recent) {
         this.serialPort = serialPort;
-        this.portName = portName;
-        this.redisTemplate = redisTemplate;
-        this.redisKey = redisKey;
+        this.reactor = reactor;
+        this.workers = workers;
+        this.ioPermit = ioPermit;
+        this.portName = settings.getPortName();
+        this.redisWriter = redisWriter;
+        this.redisKey = settings.getRedisKey();
+        this.mode = settings.getMode();
+        this.snapshotHolder = snapshotHolder;
+        this.publishPolicy = new PublishPolicy(settings.getPublish());
+        this.stabilityDetector = new StabilityDetector(settings.getStability());
+        this.weightEventService = weightEventService;
+        this.streamChannel = streamChannel;
+        this.archive = archive;
+        this.recent = recent;
+        this.frameLogger = new FrameLogger(settings, decoder);
+        this.supervisor = new PortSupervisor(serialPort, portName, reactor, blocking, settings.getReconnect(), this::onOpened);
     }
 
-    @Override
-    public void run() {
-        scheduler.scheduleAtFixedRate(this::processPort, 0, 200, TimeUnit.MILLISECONDS);
+    /**
+     * 在事件循环上开始接收
+     */
+    public void start() {
+        if (!running) {
+            // 波特率检测期间已被停止
+            return;
+        }
+        log.info("串口{}的接收方式为:{}，事件循环{}", portName, mode.getDescription(), reactor.getName());
+        reactor.execute(() -> {
+            if (mode == ReceptionMode.POLLING) {
+                processPort();
+            } else if (serialPort.isOpen()) {
+                registerDataListener();
+            }
+            supervisor.start();
+        });
     }
 
     private void processPort() {
+        if (!running) {
+            return;
+        }
         if (serialPort.isOpen()) {
             readFromPort();
-        } else {
-            tryReconnect();
         }
+        reactor.schedule(this::processPort, POLL_PERIOD_MS);
     }
 
+    /**
+     * 串口（重新）打开后丢弃断开前的残留数据，事件方式下重新注册事件监听
+     */
+    private void onOpened() {
+        synchronized (inbound) {
+            inbound.clear();
+        }
+        resetDecoder = true;
+        if (mode != ReceptionMode.POLLING) {
+            registerDataListener();
+        }
+    }
+
+    private void registerDataListener() {
+        serialPort.removeDataListener();
+        PortEventListener eventListener = new PortEventListener();
+        boolean registered = mode == ReceptionMode.DELIMITER
+                ? serialPort.addMessageListener(eventListener, FrameDecoder.ETX)
+                : serialPort.addDataListener(eventListener);
+        if (!registered) {
+            log.error("Failed to register data listener on serial port {}", portName);
+        }
+    }
+
+    /**
+     * 读完串口缓冲区中积压的全部数据，放入暂存缓冲区后提交解析
+     */
     private void readFromPort() {
+        // 指令事务执行期间不读取，避免读走应答
+        if (!ioPermit.tryAcquire()) {
+            return;
+        }
+        int total = 0;
         try {
-            if (serialPort.bytesAvailable() > 0) {
-                byte[] readBuffer = new byte[12]; // 根据实际数据长度调整缓冲区大小
-                int numRead = serialPort.readBytes(readBuffer, readBuffer.length);
-                if (numRead > 0) {
-                    String result = SerialPortUtil.parseWeightData(readBuffer);
-                    log.info("{}读取到串口{}的数据为:{}", LocalDateTime.now().format(DateTimeFormatter.ofPattern(CommonConstants.DATETIME_PATTERN)), portName, result);
-                    // 存入Redis
-                    redisTemplate.opsForValue().set(redisKey, result);
-                }
+            int numRead;
+            while ((numRead = serialPort.read(readBuffer, 0, readBuffer.length)) > 0) {
+                stage(readBuffer, 0, numRead);
+                total += numRead;
             }
         } catch (Exception e) {
             log.error("Error reading from serial port", e);
-            serialPort.closePort();
+            serialPort.close();
+        } finally {
+            ioPermit.release();
+        }
+        if (total > 0) {
+            scheduleDecode();
         }
     }
 
-    private void tryReconnect() {
-        try {
-            Thread.sleep(1000); // 等待1秒钟再尝试重新连接
-            if (serialPort.openPort()) {
-                log.info("Reconnected to serial port {}", portName);
+    private void stage(byte[] data, int off, int len) {
+        synchronized (inbound) {
+            inbound.write(data, off, len);
+            receivedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 提交解析任务，已有任务在排队或执行时只增加计数，由该任务继续处理
+     */
+    private void scheduleDecode() {
+        if (pendingDecodes.getAndIncrement() == 0) {
+            try {
+                workers.execute(this::decodePending);
+            } catch (RejectedExecutionException e) {
+                // 数据留在暂存缓冲区，下次读到数据时再提交
+                pendingDecodes.set(0);
+                rejectedDecodes++;
+            }
+        }
+    }
+
+    /**
+     * 在工作线程上解析暂存的数据，直到没有新的提交
+     */
+    private void decodePending() {
+        int pending = pendingDecodes.get();
+        do {
+            if (resetDecoder) {
+                resetDecoder = false;
+                decoder.reset();
+            }
+            int length;
+            while ((length = unstage()) > 0) {
+                decoder.feed(decodeBuffer, 0, length);
+            }
+            decodeFrames();
+        } while ((pending = pendingDecodes.addAndGet(-pending)) != 0);
+    }
+
+    private int unstage() {
+        synchronized (inbound) {
+            int length = Math.min(inbound.size(), decodeBuffer.length);
+            inbound.copyTo(0, decodeBuffer, 0, length);
+            inbound.skip(length);
+            return length;
+        }
+    }
+
+    /**
+     * 逐帧解析：每一帧都参与稳定判断，只有最新的一帧更新快照并写入Redis。
+     * 积压的一批数据中每帧的时间戳按其后还未解析的字节数和波特率从最后收到数据的时间往前推算，
+     * 不知道波特率的模拟和回放串口整批使用收到数据的时间
+     */
+    private void decodeFrames() {
+        long now = System.currentTimeMillis();
+        long lastByteAt = receivedAt;
+        SerialParameters parameters = serialPort.getParameters();
+        long nanosPerByte = parameters == null ? 0 : parameters.nanosPerByte();
+        long frameAt = lastFrameAt;
+        int frames = 0;
+        while (decoder.next()) {
+            int status = SerialPortUtil.decodeWeight(decoder.frame(), 0, decoder.frameLength(), reading);
+            if (status == WeightReading.OK) {
+                frames++;
+                // 时间戳不倒退
+                frameAt = Math.max(frameAt, lastByteAt - decoder.buffered() * nanosPerByte / 1_000_000);
+                frameLogger.frame(reading);
+                WeightEventType event = stabilityDetector.accept(reading);
+                recent.add(reading, frameAt, stabilityDetector.isStable());
+                if (event != null) {
+                    publishEvent(event, frameAt);
+                }
             } else {
-                log.error("Failed to reconnect to serial port {}", portName);
+                frameLogger.invalid(status);
             }
-        } catch (InterruptedException e) {
-            log.error("Reconnection attempt interrupted", e);
         }
+        if (frames > 0) {
+            lastFrameAt = frameAt;
+            WeightSnapshot snapshot = snapshotHolder.update(reading, frameAt, stabilityDetector.isStable());
+            boolean changed = publishPolicy.shouldPublish(reading, frameAt);
+            if (changed) {
+                publish(reading.toString(), frames - 1, frameAt);
+            }
+            if (streamChannel.hasSubscribers()) {
+                streamChannel.publish(StreamType.FRAMES, snapshot);
+                if (changed) {
+                    streamChannel.publish(StreamType.CHANGES, snapshot);
+                }
+            }
+        }
+        frameLogger.tick(now);
+    }
+
+    private void publishEvent(WeightEventType type, long now) {
+        String weight = type == WeightEventType.STABLE
+                ? SerialPortUtil.formatWeight(stabilityDetector.getStableValue(), stabilityDetector.getScale())
+                : reading.toString();
+        WeightEvent event = new WeightEvent(portName, type, weight, now);
+        weightEventService.publish(event, redisKey);
+        streamChannel.publish(StreamType.EVENTS, event);
+    }
+
+    /**
+     * 发布最新的称重数据
+     *
+     * @param result  重量
+     * @param skipped 本次被覆盖的旧帧数
+     * @param now     采集时间戳（毫秒）
+     */
+    private void publish(String result, int skipped, long now) {
+        frameLogger.published(reading, result, skipped);
+        if (archive != null) {
+            archive.append(now, reading.getValue(), reading.getScale(), stabilityDetector.isStable());
+        }
+        // 存入Redis，由写线程异步提交
+        redisWriter.set(redisKey, result);
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    public PublishPolicy getPublishPolicy() {
+        return publishPolicy;
+    }
+
+    public FrameDecoder getDecoder() {
+        return decoder;
+    }
+
+    public long getReconnectAttempts() {
+        return supervisor.getAttempts();
+    }
+
+    public long getReconnectFailures() {
+        return supervisor.getFailures();
+    }
+
+    public PortSupervisor getSupervisor() {
+        return supervisor;
+    }
+
+    /**
+     * 工作线程池队列已满、未能提交的解析次数
+     *
+     * @return 次数
+     */
+    public long getRejectedDecodes() {
+        return rejectedDecodes;
     }
 
     // 停止监听器的方法
     public void stop() {
         running = false;
-        scheduler.shutdown();
-        serialPort.closePort();
+        supervisor.stop();
+        serialPort.removeDataListener();
+        serialPort.close();
+    }
+
+    /**
+     * 事件方式：有数据到达时读取串口缓冲区中的全部数据；按结束符分包时每收到一个完整包解析一次
+     */
+    private class PortEventListener implements TransportListener {
+
+        @Override
+        public void dataAvailable() {
+            // 传输层的事件线程本身就在等待数据，直接读取可以少一次线程切换；读写许可不绑定线程，与事件循环上的指令事务互斥
+            if (running) {
+                readFromPort();
+            }
+        }
+
+        @Override
+        public void messageReceived(byte[] message) {
+            if (running) {
+                stage(message, 0, message.length);
+                scheduleDecode();
+            }
+        }
+
+        @Override
+        public void disconnected() {
+            supervisor.disconnected();
+        }
     }
 }
@@ -0,0 +1,156 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.enums.WeightEventType;
+
+import java.math.BigDecimal;
+
+/**
+ * 类 StabilityDetector
+ * </p>
+ * 增量式稳定判断：在最近N帧的滑动窗口上以O(1)维护和与平方和，标准差不超过容差即视为稳定。
+ * 重量超过空磅阈值时产生上磅事件，窗口内稳定时产生稳定事件，回落到阈值以下时产生下磅事件。
+ * 由单个监听线程调用。
+ *
+ * @author ChenQi
+ * @date 2026/9/12
+ */
+public class StabilityDetector {
+
+    /**
+     * 窗口最大帧数，保证平方和的计算不会溢出
+     */
+    private static final int MAX_WINDOW = 1024;
+
+    private final long[] window;
+
+    private final BigDecimal toleranceKg;
+
+    private final BigDecimal emptyThresholdKg;
+
+    private int count;
+
+    private int next;
+
+    private long sum;
+
+    private long sumOfSquares;
+
+    /**
+     * 窗口内数值的小数位数，变化时清空窗口
+     */
+    private int scale = -1;
+
+    private long tolerance;
+
+    private long emptyThreshold;
+
+    private boolean loaded;
+
+    private boolean stable;
+
+    private long stableValue;
+
+    public StabilityDetector(PortSettings.Stability settings) {
+        this.window = new long[Math.max(2, Math.min(settings.getWindow(), MAX_WINDOW))];
+        this.toleranceKg = settings.getTolerance();
+        this.emptyThresholdKg = settings.getEmptyThreshold();
+    }
+
+    /**
+     * 输入一帧重量
+     *
+     * @param reading 解析结果
+     * @return 产生的事件，没有事件时返回null
+     */
+    public WeightEventType accept(WeightReading reading) {
+        if (reading.getScale() != scale) {
+            rescale(reading.getScale());
+        }
+        long value = reading.getValue();
+        add(value);
+        if (Math.abs(value) < emptyThreshold) {
+            reset();
+            if (loaded) {
+                loaded = false;
+                stable = false;
+                return WeightEventType.UNLOADED;
+            }
+            return null;
+        }
+        if (!loaded) {
+            loaded = true;
+            return WeightEventType.LOADED;
+        }
+        if (count < window.length) {
+            return null;
+        }
+        if (!withinTolerance()) {
+            stable = false;
+            return null;
+        }
+        long mean = Math.round((double) sum / count);
+        if (stable && Math.abs(mean - stableValue) <= tolerance) {
+            return null;
+        }
+        stable = true;
+        stableValue = mean;
+        return WeightEventType.STABLE;
+    }
+
+    private void add(long value) {
+        if (count == window.length) {
+            long old = window[next];
+            sum -= old;
+            sumOfSquares -= old * old;
+        } else {
+            count++;
+        }
+        window[next] = value;
+        sum += value;
+        sumOfSquares += value * value;
+        next = next + 1 == window.length ? 0 : next + 1;
+    }
+
+    /**
+     * 方差 = (n*Σx² - (Σx)²) / n²，与 tolerance² 比较，避免开方和浮点误差
+     */
+    private boolean withinTolerance() {
+        long n = count;
+        long scaledVariance = n * sumOfSquares - sum * sum;
+        return scaledVariance <= tolerance * tolerance * n * n;
+    }
+
+    private void rescale(int newScale) {
+        scale = newScale;
+        tolerance = toleranceKg.movePointRight(newScale).longValue();
+        emptyThreshold = emptyThresholdKg.movePointRight(newScale).longValue();
+        reset();
+        stable = false;
+    }
+
+    private void reset() {
+        count = 0;
+        next = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+
+    public boolean isStable() {
+        return stable;
+    }
+
+    /**
+     * 最近一次稳定时的平均重量（未缩放）
+     *
+     * @return 数值
+     */
+    public long getStableValue() {
+        return stableValue;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+}
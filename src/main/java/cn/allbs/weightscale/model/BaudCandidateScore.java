@@ -0,0 +1,40 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 BaudCandidateScore
+ * </p>
+ * 波特率自动检测中一组候选参数的得分
+ *
+ * @author ChenQi
+ * @date 2026/10/17
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "候选串口参数得分")
+public class BaudCandidateScore {
+
+    @Schema(description = "串口参数，如 9600 8N1")
+    private String parameters;
+
+    @Schema(description = "波特率")
+    private int baudRate;
+
+    @Schema(description = "校验位")
+    private String parity;
+
+    @Schema(description = "采样期间收到的字节数")
+    private long bytes;
+
+    @Schema(description = "校验通过的帧数")
+    private long frames;
+
+    @Schema(description = "校验失败的帧数")
+    private long checksumFailures;
+
+    @Schema(description = "每秒校验通过的帧数")
+    private double framesPerSecond;
+}
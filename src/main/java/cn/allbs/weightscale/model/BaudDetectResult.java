@@ -0,0 +1,43 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 类 BaudDetectResult
+ * </p>
+ * 串口最近一次波特率自动检测的过程和结果
+ *
+ * @author ChenQi
+ * @date 2026/10/17
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "波特率自动检测结果")
+public class BaudDetectResult {
+
+    @Schema(description = "串口名称")
+    private String portName;
+
+    @Schema(description = "是否正在检测")
+    private volatile boolean running;
+
+    @Schema(description = "开始检测的时间戳（毫秒）")
+    private long startedAt;
+
+    @Schema(description = "检测结束的时间戳（毫秒），未结束时为0")
+    private volatile long finishedAt;
+
+    @Schema(description = "配置的串口参数")
+    private String configured;
+
+    @Schema(description = "采用的串口参数，为null时表示没有合适的参数，保留配置的参数")
+    private volatile String selected;
+
+    @Schema(description = "各组候选参数的得分，按尝试顺序")
+    private List<BaudCandidateScore> candidates = new CopyOnWriteArrayList<>();
+}
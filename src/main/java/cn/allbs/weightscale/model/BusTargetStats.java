@@ -0,0 +1,43 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 BusTargetStats
+ * </p>
+ * 总线轮询中单个地址和操作码的统计
+ *
+ * @author ChenQi
+ * @date 2026/9/22
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "总线轮询统计")
+public class BusTargetStats {
+
+    @Schema(description = "快照标识，格式为 串口:地址:操作码")
+    private String id;
+
+    @Schema(description = "地址")
+    private String address;
+
+    @Schema(description = "操作码")
+    private String operation;
+
+    @Schema(description = "轮询权重")
+    private int weight;
+
+    @Schema(description = "当前轮询间隔（毫秒）")
+    private long interval;
+
+    @Schema(description = "轮询次数")
+    private long polls;
+
+    @Schema(description = "失败次数")
+    private long failures;
+
+    @Schema(description = "是否因连续无应答被暂时跳过")
+    private boolean skipped;
+}
@@ -0,0 +1,34 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 CapturedFrame
+ * </p>
+ * 串口收到的一帧原始数据
+ *
+ * @author ChenQi
+ * @date 2026/10/3
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "原始帧")
+public class CapturedFrame {
+
+    @Schema(description = "序号，同一串口内递增")
+    private long sequence;
+
+    @Schema(description = "接收时间戳（毫秒）")
+    private long receivedAt;
+
+    @Schema(description = "解析结果：OK 正常，BAD_CHECKSUM 校验失败，MISALIGNED 帧边界错位被丢弃的字节")
+    private String status;
+
+    @Schema(description = "原始长度")
+    private int length;
+
+    @Schema(description = "十六进制内容，超过保存长度的部分被截断")
+    private String hex;
+}
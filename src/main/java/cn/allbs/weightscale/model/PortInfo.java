@@ -0,0 +1,58 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 PortInfo
+ * </p>
+ * 串口登记表中单个串口的配置和状态
+ *
+ * @author ChenQi
+ * @date 2026/10/13
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "串口配置和状态")
+public class PortInfo {
+
+    @Schema(description = "串口名称")
+    private String portName;
+
+    @Schema(description = "串口描述")
+    private String description;
+
+    @Schema(description = "缓存到redis中的key")
+    private String redisKey;
+
+    @Schema(description = "接收方式")
+    private String mode;
+
+    @Schema(description = "波特率")
+    private int baudRate;
+
+    @Schema(description = "当前使用的串口参数，如 9600 8N1")
+    private String parameters;
+
+    @Schema(description = "串口参数是否由自动检测得到")
+    private boolean detected;
+
+    @Schema(description = "是否正在检测波特率")
+    private boolean detecting;
+
+    @Schema(description = "帧格式")
+    private String codec;
+
+    @Schema(description = "是否已打开")
+    private boolean open;
+
+    @Schema(description = "连接状态: closed/opening/open/failed")
+    private String state;
+
+    @Schema(description = "是否启用总线轮询")
+    private boolean bus;
+
+    @Schema(description = "开始监听的时间戳（毫秒）")
+    private long startedAt;
+}
@@ -0,0 +1,37 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 类 PortReloadResult
+ * </p>
+ * 重新加载串口登记表的结果
+ *
+ * @author ChenQi
+ * @date 2026/10/13
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "重新加载串口登记表的结果")
+public class PortReloadResult {
+
+    @Schema(description = "新增的串口")
+    private List<String> added = new ArrayList<>();
+
+    @Schema(description = "移除的串口")
+    private List<String> removed = new ArrayList<>();
+
+    @Schema(description = "配置变化后重新启动的串口")
+    private List<String> restarted = new ArrayList<>();
+
+    @Schema(description = "未变化的串口")
+    private List<String> unchanged = new ArrayList<>();
+
+    @Schema(description = "登记了但当前找不到的串口")
+    private List<String> missing = new ArrayList<>();
+}
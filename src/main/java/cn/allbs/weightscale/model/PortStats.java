@@ -0,0 +1,49 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 PortStats
+ * </p>
+ * 单个串口的运行统计
+ *
+ * @author ChenQi
+ * @date 2026/9/9
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "串口运行统计")
+public class PortStats {
+
+    @Schema(description = "串口名称")
+    private String portName;
+
+    @Schema(description = "解析成功的帧数")
+    private long framesDecoded;
+
+    @Schema(description = "校验失败的帧数")
+    private long checksumFailures;
+
+    @Schema(description = "重新对齐时丢弃的字节数")
+    private long resyncBytes;
+
+    @Schema(description = "写入Redis的次数")
+    private long published;
+
+    @Schema(description = "被过滤未写入Redis的次数")
+    private long suppressed;
+
+    @Schema(description = "排队中的指令数")
+    private int pendingCommands;
+
+    @Schema(description = "最近一次指令往返耗时（微秒）")
+    private long lastRoundTripMicros;
+
+    @Schema(description = "指令平均往返耗时（微秒）")
+    private long avgRoundTripMicros;
+
+    @Schema(description = "指令最大往返耗时（微秒）")
+    private long maxRoundTripMicros;
+}
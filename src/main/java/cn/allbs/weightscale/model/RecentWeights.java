@@ -0,0 +1,37 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 RecentWeights
+ * </p>
+ * 最近一段时间的重量曲线，按列存放在基本类型数组中，同一下标为同一个采样点或时间段
+ *
+ * @author ChenQi
+ * @date 2026/10/9
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "最近重量曲线")
+public class RecentWeights {
+
+    @Schema(description = "串口名称")
+    private String portName;
+
+    @Schema(description = "时间戳（毫秒），聚合时为时间段开始时间")
+    private long[] timestamps;
+
+    @Schema(description = "重量（Kg），聚合时为平均重量")
+    private double[] weights;
+
+    @Schema(description = "时间段内的最小重量（Kg），不聚合时为空")
+    private double[] min;
+
+    @Schema(description = "时间段内的最大重量（Kg），不聚合时为空")
+    private double[] max;
+
+    @Schema(description = "是否稳定，聚合时为时间段内最后一个采样点的状态")
+    private boolean[] stable;
+}
@@ -0,0 +1,46 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 RedisWriterStats
+ * </p>
+ * 异步写入Redis的统计
+ *
+ * @author ChenQi
+ * @date 2026/9/11
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Redis写入统计")
+public class RedisWriterStats {
+
+    @Schema(description = "Redis是否可用")
+    private boolean connected;
+
+    @Schema(description = "队列中待写入的数量")
+    private int queueDepth;
+
+    @Schema(description = "写入成功的命令数")
+    private long written;
+
+    @Schema(description = "因队列或缓冲已满被丢弃的数量")
+    private long dropped;
+
+    @Schema(description = "写入失败的批次数")
+    private long failures;
+
+    @Schema(description = "写入成功的批次数")
+    private long batches;
+
+    @Schema(description = "最近一次批量写入耗时（微秒）")
+    private long lastLatencyMicros;
+
+    @Schema(description = "批量写入最大耗时（微秒）")
+    private long maxLatencyMicros;
+
+    @Schema(description = "批量写入平均耗时（微秒）")
+    private long avgLatencyMicros;
+}
@@ -0,0 +1,34 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 ScaleQueryStats
+ * </p>
+ * 指令查询的合并与缓存统计
+ *
+ * @author ChenQi
+ * @date 2026/9/20
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "指令查询统计")
+public class ScaleQueryStats {
+
+    @Schema(description = "命中缓存的查询数")
+    private long hits;
+
+    @Schema(description = "实际发送到串口的查询数")
+    private long misses;
+
+    @Schema(description = "合并到进行中查询的数量")
+    private long coalesced;
+
+    @Schema(description = "进行中的查询数")
+    private int inFlight;
+
+    @Schema(description = "缓存的结果数")
+    private int cached;
+}
@@ -0,0 +1,34 @@
+package cn.allbs.weightscale.model;
+
+import cn.allbs.weightscale.enums.WeightEventType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 类 WeightEvent
+ * </p>
+ * 称重事件：上磅、稳定、下磅
+ *
+ * @author ChenQi
+ * @date 2026/9/12
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "称重事件")
+public class WeightEvent {
+
+    @Schema(description = "串口名称")
+    private String portName;
+
+    @Schema(description = "事件类型")
+    private WeightEventType type;
+
+    @Schema(description = "重量，稳定事件为窗口内的平均重量")
+    private String weight;
+
+    @Schema(description = "事件时间戳（毫秒）")
+    private long timestamp;
+}
@@ -0,0 +1,34 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 WeightHistoryBucket
+ * </p>
+ * 历史重量按时间段的聚合
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "历史重量聚合")
+public class WeightHistoryBucket {
+
+    @Schema(description = "时间段开始时间戳（毫秒）")
+    private long start;
+
+    @Schema(description = "记录数")
+    private long count;
+
+    @Schema(description = "最小重量（Kg）")
+    private String min;
+
+    @Schema(description = "最大重量（Kg）")
+    private String max;
+
+    @Schema(description = "平均重量（Kg）")
+    private String avg;
+}
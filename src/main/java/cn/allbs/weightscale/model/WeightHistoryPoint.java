@@ -0,0 +1,28 @@
+package cn.allbs.weightscale.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 WeightHistoryPoint
+ * </p>
+ * 历史归档中的一条重量记录
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "历史重量")
+public class WeightHistoryPoint {
+
+    @Schema(description = "时间戳（毫秒）")
+    private long timestamp;
+
+    @Schema(description = "重量（Kg）")
+    private String weight;
+
+    @Schema(description = "是否稳定")
+    private boolean stable;
+}
@@ -0,0 +1,77 @@
+package cn.allbs.weightscale.model;
+
+import cn.allbs.weightscale.util.SerialPortUtil;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 类 WeightSnapshot
+ * </p>
+ * 串口最新一次解析出的重量快照，不可变对象，由监听线程整体替换
+ *
+ * @author ChenQi
+ * @date 2026/9/7
+ */
+@Getter
+@AllArgsConstructor
+@Schema(description = "最新称重快照")
+public class WeightSnapshot {
+
+    /**
+     * 串口名称
+     */
+    @Schema(description = "串口名称")
+    private final String portName;
+
+    /**
+     * 未缩放的重量数值
+     */
+    @JsonIgnore
+    private final long value;
+
+    /**
+     * 小数位数
+     */
+    @JsonIgnore
+    private final int scale;
+
+    /**
+     * 序号，每次更新加一
+     */
+    @Schema(description = "序号，每次更新加一")
+    private final long sequence;
+
+    /**
+     * 采集时间戳（毫秒）
+     */
+    @Schema(description = "采集时间戳（毫秒）")
+    private final long capturedAt;
+
+    /**
+     * 是否稳定
+     */
+    @Schema(description = "是否稳定")
+    private final boolean stable;
+
+    /**
+     * 重量
+     *
+     * @return 重量
+     */
+    @Schema(description = "重量")
+    public String getWeight() {
+        return SerialPortUtil.formatWeight(value, scale);
+    }
+
+    /**
+     * 快照距今的时间
+     *
+     * @param now 当前时间戳（毫秒）
+     * @return 毫秒数
+     */
+    public long ageMillis(long now) {
+        return now - capturedAt;
+    }
+}
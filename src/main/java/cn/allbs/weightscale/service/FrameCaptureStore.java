@@ -0,0 +1,80 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.codec.FrameCapture;
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.model.CapturedFrame;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类 FrameCaptureStore
+ * </p>
+ * 各串口的原始帧记录。解码器只复制字节，十六进制内容在查询时才生成
+ *
+ * @author ChenQi
+ * @date 2026/10/3
+ */
+@Component
+public class FrameCaptureStore {
+
+    private final Map<String, FrameCapture> captures = new ConcurrentHashMap<>();
+
+    /**
+     * 获取串口的原始帧记录，同一串口的监听器和指令执行器共用
+     *
+     * @param settings 串口配置
+     * @return 原始帧记录，未启用时返回null
+     */
+    public FrameCapture capture(PortSettings settings) {
+        PortSettings.Capture capture = settings.getCapture();
+        if (capture.getFrames() <= 0) {
+            return null;
+        }
+        // 重新加载后记录条数变化时重建
+        return captures.compute(settings.getPortName(), (k, existing) ->
+                existing != null && existing.getFrames() == capture.getFrames() && existing.getMalformed() == capture.getMalformed()
+                        ? existing : new FrameCapture(capture.getFrames(), capture.getMalformed(), FrameDecoder.DEFAULT_MAX_FRAME_LENGTH));
+    }
+
+    /**
+     * 移除串口的原始帧记录
+     *
+     * @param portName 串口名称
+     */
+    public void remove(String portName) {
+        captures.remove(portName);
+    }
+
+    /**
+     * 查询最近的原始帧
+     *
+     * @param portName  串口名称
+     * @param malformed 是否只查询异常帧
+     * @param limit     数量
+     * @return 按时间倒序的原始帧
+     */
+    public List<CapturedFrame> latest(String portName, boolean malformed, int limit) {
+        FrameCapture capture = captures.get(portName);
+        if (capture == null) {
+            throw new BhudyException("串口" + portName + "没有原始帧记录");
+        }
+        List<FrameCapture.Entry> entries = capture.latest(malformed, limit);
+        List<CapturedFrame> frames = new ArrayList<>(entries.size());
+        for (FrameCapture.Entry entry : entries) {
+            frames.add(new CapturedFrame()
+                    .setSequence(entry.sequence())
+                    .setReceivedAt(entry.receivedAt())
+                    .setStatus(FrameCapture.statusName(entry.status()))
+                    .setLength(entry.length())
+                    .setHex(SerialPortUtil.toHexString(entry.data(), 0, entry.data().length)));
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,135 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.handler.PortReactor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 类 PortReactorGroup
+ * </p>
+ * 所有串口共用的事件循环线程、解析工作线程池和阻塞调用线程池。
+ * 同一串口的监听、指令执行和总线轮询固定在同一个事件循环上，彼此之间不需要加锁；
+ * 工作线程池的队列有界，满时由调用方放弃本次提交，数据留在串口的暂存缓冲区中等下一次提交；
+ * 打开、关闭和重新枚举串口等可能长时间阻塞的系统调用在阻塞调用线程池上执行，每个串口同一时间最多一个，线程空闲后回收
+ *
+ * @author ChenQi
+ * @date 2026/10/11
+ */
+@Slf4j
+@Component
+public class PortReactorGroup {
+
+    /**
+     * 事件循环线程数，0表示按CPU核数取，最多2个
+     */
+    @Value("${serial.reactor.threads:0}")
+    private int threads;
+
+    /**
+     * 解析工作线程数，0表示按CPU核数取，最多2个
+     */
+    @Value("${serial.reactor.workers:0}")
+    private int workers;
+
+    /**
+     * 解析工作线程池的队列长度
+     */
+    @Value("${serial.reactor.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private PortReactor[] reactors;
+
+    private ThreadPoolExecutor workerPool;
+
+    private ExecutorService blockingPool;
+
+    private final Map<String, PortReactor> assignments = new ConcurrentHashMap<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int reactorCount = threads > 0 ? threads : Math.min(2, cores);
+        reactors = new PortReactor[reactorCount];
+        for (int i = 0; i < reactorCount; i++) {
+            reactors[i] = new PortReactor("scale-reactor-" + (i + 1));
+        }
+        int workerCount = workers > 0 ? workers : Math.min(2, cores);
+        AtomicInteger index = new AtomicInteger();
+        workerPool = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread thread = new Thread(r, "scale-worker-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("scale.worker.queue", workerPool, pool -> pool.getQueue().size())
+                .description("排队中的解析任务数")
+                .register(meterRegistry);
+        Gauge.builder("scale.worker.active", workerPool, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的解析任务数")
+                .register(meterRegistry);
+        AtomicInteger blockingIndex = new AtomicInteger();
+        blockingPool = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "scale-blocking-" + blockingIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("串口事件循环线程{}个，解析工作线程{}个", reactorCount, workerCount);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (PortReactor reactor : reactors) {
+            reactor.stop();
+        }
+        workerPool.shutdownNow();
+        blockingPool.shutdownNow();
+    }
+
+    /**
+     * 串口所在的事件循环，首次获取时按轮转分配，之后固定不变
+     *
+     * @param portName 串口名称
+     * @return 事件循环
+     */
+    public PortReactor reactor(String portName) {
+        return assignments.computeIfAbsent(portName, k -> reactors[Math.floorMod(next.getAndIncrement(), reactors.length)]);
+    }
+
+    /**
+     * 解析和发布使用的有界工作线程池，队列满时提交抛出 {@link java.util.concurrent.RejectedExecutionException}
+     *
+     * @return 线程池
+     */
+    public ThreadPoolExecutor workers() {
+        return workerPool;
+    }
+
+    /**
+     * 执行打开、关闭串口等阻塞系统调用的线程池，不能在事件循环上直接调用这些方法
+     *
+     * @return 线程池
+     */
+    public ExecutorService blocking() {
+        return blockingPool;
+    }
+}
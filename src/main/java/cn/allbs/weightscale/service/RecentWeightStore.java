@@ -0,0 +1,217 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.model.RecentWeights;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类 RecentWeightStore
+ * </p>
+ * 各串口最近的重量曲线，保存在堆外的定长环中，不写磁盘和Redis。
+ * 每个采样点16字节：时间戳(8) + 重量定点数(4) + 小数位数和稳定标志(4)，堆内存占用与串口数和采样数无关；
+ * 查询结果直接写入基本类型数组，不为每个采样点创建对象
+ *
+ * @author ChenQi
+ * @date 2026/10/9
+ */
+@Component
+public class RecentWeightStore {
+
+    private static final int RECORD_SIZE = 16;
+
+    private static final int STABLE_FLAG = 0x100;
+
+    /**
+     * 单次查询的最大时间段数
+     */
+    private static final int MAX_BUCKETS = 10000;
+
+    /**
+     * 每个串口保存的采样点数
+     */
+    @Value("${serial.recent.capacity:8192}")
+    private int capacity;
+
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * 获取串口的采样环，监听线程持有后直接写入
+     *
+     * @param portName 串口名称，总线轮询为 串口:地址:操作码
+     * @return 采样环
+     */
+    public Ring ring(String portName) {
+        return rings.computeIfAbsent(portName, k -> new Ring(Math.max(1, capacity)));
+    }
+
+    /**
+     * 移除串口及其总线轮询序列的采样环，堆外内存随采样环一起回收
+     *
+     * @param portName 串口名称
+     */
+    public void remove(String portName) {
+        rings.keySet().removeIf(key -> key.equals(portName) || key.startsWith(portName + ':'));
+    }
+
+    /**
+     * 查询最近一段时间的重量
+     *
+     * @param portName 串口名称
+     * @param seconds  时长（秒）
+     * @param step     聚合的时间段长度（毫秒），0表示返回每个采样点
+     * @return 重量曲线
+     */
+    public RecentWeights recent(String portName, long seconds, long step) {
+        Ring ring = rings.get(portName);
+        if (ring == null) {
+            throw new BhudyException("串口" + portName + "没有最近的重量数据");
+        }
+        long to = System.currentTimeMillis();
+        long from = to - seconds * 1000;
+        if (step > 0 && (to - from) / step >= MAX_BUCKETS) {
+            throw new BhudyException("时间段长度过小，单次最多聚合" + MAX_BUCKETS + "个时间段");
+        }
+        RecentWeights result = step > 0 ? ring.buckets(from, step) : ring.samples(from);
+        return result.setPortName(portName);
+    }
+
+    /**
+     * 单个串口的堆外采样环，只有一个写线程。读取方从最新的采样点向前读取，
+     * 读完后根据写入计数丢弃读取期间可能被覆盖的采样点
+     */
+    public static class Ring {
+
+        private final ByteBuffer buffer;
+
+        private final int capacity;
+
+        /**
+         * 已写入的采样点数，写入采样点后才增加
+         */
+        private volatile long count;
+
+        private Ring(int capacity) {
+            this.capacity = capacity;
+            this.buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+        }
+
+        /**
+         * 写入一个采样点
+         *
+         * @param reading   重量
+         * @param timestamp 采集时间戳（毫秒）
+         * @param stable    是否稳定
+         */
+        public void add(WeightReading reading, long timestamp, boolean stable) {
+            long n = count;
+            int offset = (int) (n % capacity) * RECORD_SIZE;
+            buffer.putLong(offset, timestamp);
+            buffer.putInt(offset + 8, (int) reading.getValue());
+            buffer.putInt(offset + 12, reading.getScale() | (stable ? STABLE_FLAG : 0));
+            count = n + 1;
+        }
+
+        /**
+         * 找出不早于 from 的最早采样点序号，返回 [first, end)。
+         * 最旧的一个槽位随时会被下一次写入覆盖，不在读取范围内
+         */
+        private long[] window(long from) {
+            long end = count;
+            long oldest = Math.max(0, end - capacity + 1);
+            long first = end;
+            while (first > oldest && timestamp(first - 1) >= from) {
+                first--;
+            }
+            return new long[]{first, end};
+        }
+
+        /**
+         * 读取期间写线程是否已经覆盖了 first 开始的采样点
+         */
+        private boolean overwritten(long first) {
+            return count - capacity >= first;
+        }
+
+        private long timestamp(long index) {
+            return buffer.getLong((int) (index % capacity) * RECORD_SIZE);
+        }
+
+        private double weight(long index) {
+            int offset = (int) (index % capacity) * RECORD_SIZE;
+            return buffer.getInt(offset + 8) / Math.pow(10, buffer.getInt(offset + 12) & 0xFF);
+        }
+
+        private boolean stable(long index) {
+            return (buffer.getInt((int) (index % capacity) * RECORD_SIZE + 12) & STABLE_FLAG) != 0;
+        }
+
+        private RecentWeights samples(long from) {
+            while (true) {
+                long[] window = window(from);
+                int n = (int) (window[1] - window[0]);
+                long[] timestamps = new long[n];
+                double[] weights = new double[n];
+                boolean[] stable = new boolean[n];
+                for (int i = 0; i < n; i++) {
+                    long index = window[0] + i;
+                    timestamps[i] = timestamp(index);
+                    weights[i] = weight(index);
+                    stable[i] = stable(index);
+                }
+                if (!overwritten(window[0])) {
+                    return new RecentWeights().setTimestamps(timestamps).setWeights(weights).setStable(stable);
+                }
+            }
+        }
+
+        private RecentWeights buckets(long from, long step) {
+            while (true) {
+                long[] window = window(from);
+                int size = (int) ((System.currentTimeMillis() - from) / step + 1);
+                double[] sums = new double[size];
+                double[] min = new double[size];
+                double[] max = new double[size];
+                boolean[] stable = new boolean[size];
+                int[] counts = new int[size];
+                int n = 0;
+                for (long index = window[0]; index < window[1]; index++) {
+                    int bucket = (int) Math.min(size - 1, Math.max(0, (timestamp(index) - from) / step));
+                    double weight = weight(index);
+                    if (counts[bucket]++ == 0) {
+                        min[bucket] = weight;
+                        max[bucket] = weight;
+                        n++;
+                    } else {
+                        min[bucket] = Math.min(min[bucket], weight);
+                        max[bucket] = Math.max(max[bucket], weight);
+                    }
+                    sums[bucket] += weight;
+                    stable[bucket] = stable(index);
+                }
+                if (overwritten(window[0])) {
+                    continue;
+                }
+                RecentWeights result = new RecentWeights().setTimestamps(new long[n]).setWeights(new double[n])
+                        .setMin(new double[n]).setMax(new double[n]).setStable(new boolean[n]);
+                int j = 0;
+                for (int i = 0; i < size; i++) {
+                    if (counts[i] > 0) {
+                        result.getTimestamps()[j] = from + i * step;
+                        result.getWeights()[j] = sums[i] / counts[i];
+                        result.getMin()[j] = min[i];
+                        result.getMax()[j] = max[i];
+                        result.getStable()[j] = stable[i];
+                        j++;
+                    }
+                }
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.model.RedisWriterStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类 RedisWeightWriter
+ * </p>
+ * 异步写入Redis，串口线程只负责入队，不会被Redis的超时或断线阻塞。
+ * 同一个key的多次写入只保留最新值，写线程把待写数据合并为流水线批量提交；
+ * Redis不可用时数据保留在有界缓冲中，恢复后重新提交。
+ *
+ * @author ChenQi
+ * @date 2026/9/11
+ */
+@Slf4j
+@Component
+public class RedisWeightWriter {
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 待写入队列容量
+     */
+    @Value("${serial.redis-writer.queue-capacity:1024}")
+    private int queueCapacity;
+
+    /**
+     * 单次流水线提交的最大命令数
+     */
+    @Value("${serial.redis-writer.batch-size:64}")
+    private int batchSize;
+
+    /**
+     * Redis不可用时最多缓存的列表追加数
+     */
+    @Value("${serial.redis-writer.outage-capacity:4096}")
+    private int outageCapacity;
+
+    /**
+     * Redis不可用时的重试间隔（毫秒）
+     */
+    @Value("${serial.redis-writer.retry-interval:1000}")
+    private long retryInterval;
+
+    private BlockingQueue<PendingWrite> queue;
+
+    /**
+     * 等待写入的最新值，key只在第一次变为待写入时入队
+     */
+    private final Map<String, Object> pendingValues = new ConcurrentHashMap<>();
+
+    /**
+     * 以下两个集合只由写线程访问：已出队但尚未写入成功的数据
+     */
+    private final Map<String, Object> unsentValues = new LinkedHashMap<>();
+
+    private final ArrayDeque<PendingWrite> unsentAppends = new ArrayDeque<>();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder totalLatencyNanos = new LongAdder();
+
+    private volatile long lastLatencyNanos;
+
+    private volatile long maxLatencyNanos;
+
+    private volatile boolean connected = true;
+
+    private volatile boolean running;
+
+    private long nextRetryAt;
+
+    private Thread writerThread;
+
+    /**
+     * 批量写入耗时直方图
+     */
+    private Timer writeTimer;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        registerMeters();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "redis-weight-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写入key的最新值，未写入前的多次更新只保留最后一次
+     *
+     * @param key   key
+     * @param value 值
+     */
+    public void set(String key, Object value) {
+        if (key == null) {
+            return;
+        }
+        if (pendingValues.put(key, value) == null && !queue.offer(new PendingWrite(key, null, 0))) {
+            // 无条件移除：期间其他线程可能已覆盖为新值且因为有旧值而没有入队，留下的值没有对应的队列项，该key就再也不会入队
+            pendingValues.remove(key);
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 向列表头部追加一个值，并只保留最新的maxLength个元素
+     *
+     * @param key       key
+     * @param value     值
+     * @param maxLength 列表最大长度
+     */
+    public void append(String key, Object value, int maxLength) {
+        if (key == null) {
+            return;
+        }
+        if (!queue.offer(new PendingWrite(key, value, maxLength))) {
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> drained = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(retryInterval, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    drained.add(first);
+                    queue.drainTo(drained, batchSize - 1);
+                    collect(drained);
+                    drained.clear();
+                }
+                if ((!unsentValues.isEmpty() || !unsentAppends.isEmpty()) && (connected || System.currentTimeMillis() >= nextRetryAt)) {
+                    flush();
+                }
+            } catch (InterruptedException e) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("Redis写线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 把出队的数据合并到未发送集合中
+     */
+    private void collect(List<PendingWrite> drained) {
+        for (PendingWrite write : drained) {
+            if (write.maxLength() > 0) {
+                if (unsentAppends.size() >= outageCapacity) {
+                    unsentAppends.pollFirst();
+                    dropped.increment();
+                }
+                unsentAppends.addLast(write);
+            } else {
+                Object value = pendingValues.remove(write.key());
+                if (value != null) {
+                    unsentValues.put(write.key(), value);
+                }
+            }
+        }
+    }
+
+    private void flush() {
+        while (!unsentValues.isEmpty() || !unsentAppends.isEmpty()) {
+            List<PendingWrite> batch = nextBatch();
+            long start = System.nanoTime();
+            try {
+                redisTemplate.executePipelined(new PipelineCallback(batch));
+            } catch (RuntimeException e) {
+                failures.increment();
+                nextRetryAt = System.currentTimeMillis() + retryInterval;
+                if (connected) {
+                    connected = false;
+                    log.error("写入Redis失败，数据将在恢复后重新写入:{}", e.getMessage());
+                }
+                restore(batch);
+                return;
+            }
+            recordLatency(System.nanoTime() - start);
+            written.add(batch.size());
+            batches.increment();
+            if (!connected) {
+                connected = true;
+                log.info("Redis连接已恢复，重新写入缓存的数据");
+            }
+        }
+    }
+
+    private List<PendingWrite> nextBatch() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        Iterator<Map.Entry<String, Object>> values = unsentValues.entrySet().iterator();
+        while (batch.size() < batchSize && values.hasNext()) {
+            Map.Entry<String, Object> entry = values.next();
+            batch.add(new PendingWrite(entry.getKey(), entry.getValue(), 0));
+            values.remove();
+        }
+        while (batch.size() < batchSize && !unsentAppends.isEmpty()) {
+            batch.add(unsentAppends.pollFirst());
+        }
+        return batch;
+    }
+
+    /**
+     * 写入失败时放回未发送集合，已有更新值的key不覆盖
+     */
+    private void restore(List<PendingWrite> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            PendingWrite write = batch.get(i);
+            if (write.maxLength() > 0) {
+                if (unsentAppends.size() < outageCapacity) {
+                    unsentAppends.addFirst(write);
+                } else {
+                    dropped.increment();
+                }
+            } else {
+                unsentValues.putIfAbsent(write.key(), write.value());
+            }
+        }
+    }
+
+    private void registerMeters() {
+        writeTimer = Timer.builder("scale.redis.write")
+                .description("流水线批量写入Redis的耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        FunctionCounter.builder("scale.redis.written", written, LongAdder::sum).description("写入成功的命令数").register(meterRegistry);
+        FunctionCounter.builder("scale.redis.dropped", dropped, LongAdder::sum).description("因队列或缓冲已满被丢弃的数量").register(meterRegistry);
+        FunctionCounter.builder("scale.redis.failures", failures, LongAdder::sum).description("写入失败的批次数").register(meterRegistry);
+        Gauge.builder("scale.redis.queue", this, writer -> writer.queue.size()).description("队列中待写入的数量").register(meterRegistry);
+        Gauge.builder("scale.redis.connected", this, writer -> writer.connected ? 1 : 0).description("Redis是否可用").register(meterRegistry);
+    }
+
+    private void recordLatency(long nanos) {
+        writeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        lastLatencyNanos = nanos;
+        totalLatencyNanos.add(nanos);
+        if (nanos > maxLatencyNanos) {
+            maxLatencyNanos = nanos;
+        }
+    }
+
+    /**
+     * 写入统计
+     *
+     * @return 统计
+     */
+    public RedisWriterStats getStats() {
+        long batchCount = batches.sum();
+        return new RedisWriterStats()
+                .setConnected(connected)
+                .setQueueDepth(queue.size())
+                .setWritten(written.sum())
+                .setDropped(dropped.sum())
+                .setFailures(failures.sum())
+                .setBatches(batchCount)
+                .setLastLatencyMicros(TimeUnit.NANOSECONDS.toMicros(lastLatencyNanos))
+                .setMaxLatencyMicros(TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos))
+                .setAvgLatencyMicros(batchCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.sum() / batchCount));
+    }
+
+    /**
+     * 待写入的数据，maxLength大于0表示列表追加，否则为覆盖写入
+     */
+    private record PendingWrite(String key, Object value, int maxLength) {
+    }
+
+    private record PipelineCallback(List<PendingWrite> batch) implements SessionCallback<Object> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+            RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+            for (PendingWrite write : batch) {
+                if (write.maxLength() > 0) {
+                    ops.opsForList().leftPush(write.key(), write.value());
+                    ops.opsForList().trim(write.key(), 0, write.maxLength() - 1);
+                } else {
+                    ops.opsForValue().set(write.key(), write.value());
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.handler.CommandExecutor;
+import cn.allbs.weightscale.handler.PublishPolicy;
+import cn.allbs.weightscale.handler.SerialPortListener;
+import cn.allbs.weightscale.model.WeightSnapshot;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 类 ScaleMetrics
+ * </p>
+ * 串口相关的Micrometer指标，串口启动时一次性注册，采集时才读取监听线程和执行器中的计数，
+ * 每帧处理不创建标签或指标对象。串口关闭时移除该串口的全部指标。
+ *
+ * @author ChenQi
+ * @date 2026/9/29
+ */
+@Component
+public class ScaleMetrics {
+
+    private static final String PORT = "port";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private WeightSnapshotStore weightSnapshotStore;
+
+    private final Map<String, List<Meter>> portMeters = new ConcurrentHashMap<>();
+
+    /**
+     * 注册串口接收、解码、重连、写入过滤和快照时长的指标
+     *
+     * @param listener 串口监听
+     */
+    public void bindListener(SerialPortListener listener) {
+        String portName = listener.getPortName();
+        Tags tags = Tags.of(PORT, portName);
+        FrameDecoder decoder = listener.getDecoder();
+        PublishPolicy publishPolicy = listener.getPublishPolicy();
+        WeightSnapshotStore.Holder holder = weightSnapshotStore.holder(portName);
+        List<Meter> meters = meters(portName);
+        meters.add(counter("scale.bytes.received", "串口收到的字节数", tags, decoder, FrameDecoder::getBytesReceived));
+        meters.add(counter("scale.frames.decoded", "校验通过的帧数", tags, decoder, FrameDecoder::getFramesDecoded));
+        meters.add(counter("scale.frames.checksum.failures", "校验失败的帧数", tags, decoder, FrameDecoder::getChecksumFailures));
+        meters.add(counter("scale.bytes.resync", "重新对齐时丢弃的字节数", tags, decoder, FrameDecoder::getResyncBytes));
+        meters.add(counter("scale.bytes.overflow", "接收缓冲区溢出丢弃的字节数", tags, decoder, FrameDecoder::getOverflowBytes));
+        meters.add(counter("scale.reconnect.attempts", "重连次数", tags, listener, SerialPortListener::getReconnectAttempts));
+        meters.add(counter("scale.reconnect.failures", "重连失败次数", tags, listener, SerialPortListener::getReconnectFailures));
+        meters.add(Gauge.builder("scale.port.state", listener, l -> l.getSupervisor().getState().ordinal())
+                .description("串口连接状态(0关闭,1打开中,2已打开,3失败)")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(counter("scale.decode.rejected", "工作线程池已满未能提交解析的次数", tags, listener, SerialPortListener::getRejectedDecodes));
+        meters.add(counter("scale.publish.published", "写入Redis的次数", tags, publishPolicy, PublishPolicy::getPublishedCount));
+        meters.add(counter("scale.publish.suppressed", "被过滤未写入Redis的次数", tags, publishPolicy, PublishPolicy::getSuppressedCount));
+        meters.add(TimeGauge.builder("scale.snapshot.age", holder, TimeUnit.MILLISECONDS, ScaleMetrics::snapshotAge)
+                .description("最新快照距今的时长")
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 创建串口指令往返耗时的直方图
+     *
+     * @param portName 串口名称
+     * @return 计时器
+     */
+    public Timer commandTimer(String portName) {
+        Timer timer = Timer.builder("scale.command.roundtrip")
+                .description("指令从写入到收到应答的耗时")
+                .tags(PORT, portName)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(2))
+                .register(meterRegistry);
+        meters(portName).add(timer);
+        return timer;
+    }
+
+    /**
+     * 注册指令执行器的失败数和排队数
+     *
+     * @param portName        串口名称
+     * @param commandExecutor 执行器
+     */
+    public void bindCommandExecutor(String portName, CommandExecutor commandExecutor) {
+        Tags tags = Tags.of(PORT, portName);
+        List<Meter> meters = meters(portName);
+        meters.add(counter("scale.command.failures", "指令超时或失败的次数", tags, commandExecutor, CommandExecutor::getFailures));
+        meters.add(Gauge.builder("scale.command.pending", commandExecutor, CommandExecutor::getQueueSize)
+                .description("排队中的指令数")
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 移除串口的全部指标
+     *
+     * @param portName 串口名称
+     */
+    public void unbind(String portName) {
+        List<Meter> meters = portMeters.remove(portName);
+        if (meters != null) {
+            for (Meter meter : meters) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+
+    private List<Meter> meters(String portName) {
+        return portMeters.computeIfAbsent(portName, k -> new CopyOnWriteArrayList<>());
+    }
+
+    private <T> FunctionCounter counter(String name, String description, Tags tags, T target, ToDoubleFunction<T> count) {
+        return FunctionCounter.builder(name, target, count)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    private static double snapshotAge(WeightSnapshotStore.Holder holder) {
+        WeightSnapshot snapshot = holder.get();
+        return snapshot == null ? Double.NaN : snapshot.ageMillis(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,273 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.archive.RecordVisitor;
+import cn.allbs.weightscale.archive.WeightArchive;
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.ArchiveSettings;
+import cn.allbs.weightscale.config.SerialPortConfig;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.model.WeightHistoryBucket;
+import cn.allbs.weightscale.model.WeightHistoryPoint;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 WeightArchiveService
+ * </p>
+ * 重量历史归档：写入Redis的每个重量同时追加到本地的压缩时序文件，Redis中的值被覆盖后仍可按时间查询。
+ * 后台线程定期刷盘并删除超过保留天数的文件。
+ *
+ * @author ChenQi
+ * @date 2026/10/7
+ */
+@Slf4j
+@Service
+public class WeightArchiveService {
+
+    /**
+     * 单次查询返回的最大记录数
+     */
+    private static final int MAX_POINTS = 100000;
+
+    /**
+     * 单次聚合查询的最大时间段数
+     */
+    private static final long MAX_BUCKETS = 10000;
+
+    @Resource
+    private SerialPortConfig serialPortConfig;
+
+    private ArchiveSettings settings;
+
+    private Path root;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<String, WeightArchive> archives = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService maintenance;
+
+    @PostConstruct
+    public void init() {
+        settings = serialPortConfig.getArchiveSettings();
+        root = Path.of(settings.getDir());
+        if (!settings.isEnabled()) {
+            return;
+        }
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "scale-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::flush, settings.getFlushInterval(), settings.getFlushInterval(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::applyRetention, 1, 60, TimeUnit.MINUTES);
+        log.info("重量历史归档目录{}，保留{}天", root.toAbsolutePath(), settings.getRetentionDays());
+    }
+
+    /**
+     * 获取序列的归档，发布重量的线程持有后直接追加
+     *
+     * @param series 序列名称，串口名称或 串口:地址:操作码
+     * @return 归档，未启用时返回null
+     */
+    public WeightArchive archive(String series) {
+        if (!settings.isEnabled()) {
+            return null;
+        }
+        return archives.computeIfAbsent(series, k -> new WeightArchive(k, seriesDir(k), settings.getMaxSegmentSize(), zone));
+    }
+
+    /**
+     * 关闭串口及其总线轮询序列的归档，释放映射的段文件，已归档的数据仍可查询
+     *
+     * @param portName 串口名称
+     */
+    public void release(String portName) {
+        archives.entrySet().removeIf(entry -> {
+            if (entry.getKey().equals(portName) || entry.getKey().startsWith(portName + ':')) {
+                entry.getValue().close();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 查询时间范围内的原始记录
+     *
+     * @param series 序列名称
+     * @param from   开始时间戳（毫秒，含）
+     * @param to     结束时间戳（毫秒，含）
+     * @param limit  最大记录数
+     * @return 按时间顺序的记录
+     */
+    public List<WeightHistoryPoint> history(String series, long from, long to, int limit) {
+        WeightArchive archive = existing(series, from, to);
+        int max = Math.min(Math.max(limit, 1), MAX_POINTS);
+        List<WeightHistoryPoint> points = new ArrayList<>();
+        scan(archive, from, to, (timestamp, value, flags) -> {
+            points.add(new WeightHistoryPoint()
+                    .setTimestamp(timestamp)
+                    .setWeight(SerialPortUtil.formatWeight(value, WeightArchive.scaleOf(flags)))
+                    .setStable(WeightArchive.isStable(flags)));
+            return points.size() < max;
+        });
+        return points;
+    }
+
+    /**
+     * 按时间段聚合时间范围内的记录，直接在解码时累计，不保留原始记录
+     *
+     * @param series 序列名称
+     * @param from   开始时间戳（毫秒，含）
+     * @param to     结束时间戳（毫秒，含）
+     * @param bucket 时间段长度（毫秒）
+     * @return 有记录的时间段
+     */
+    public List<WeightHistoryBucket> buckets(String series, long from, long to, long bucket) {
+        if (bucket <= 0 || (to - from) / bucket >= MAX_BUCKETS) {
+            throw new BhudyException("时间段长度过小，单次最多聚合" + MAX_BUCKETS + "个时间段");
+        }
+        WeightArchive archive = existing(series, from, to);
+        List<WeightHistoryBucket> buckets = new ArrayList<>();
+        Aggregate aggregate = new Aggregate();
+        scan(archive, from, to, (timestamp, value, flags) -> {
+            long start = from + (timestamp - from) / bucket * bucket;
+            if (aggregate.count > 0 && start != aggregate.start) {
+                buckets.add(aggregate.toBucket());
+                aggregate.count = 0;
+            }
+            aggregate.add(start, value, WeightArchive.scaleOf(flags));
+            return true;
+        });
+        if (aggregate.count > 0) {
+            buckets.add(aggregate.toBucket());
+        }
+        return buckets;
+    }
+
+    private WeightArchive existing(String series, long from, long to) {
+        if (from > to) {
+            throw new BhudyException("开始时间不能晚于结束时间");
+        }
+        WeightArchive archive = archives.get(series);
+        if (archive == null) {
+            if (!Files.isDirectory(seriesDir(series))) {
+                throw new BhudyException(series + "没有历史数据");
+            }
+            archive = new WeightArchive(series, seriesDir(series), settings.getMaxSegmentSize(), zone);
+        }
+        return archive;
+    }
+
+    private static void scan(WeightArchive archive, long from, long to, RecordVisitor visitor) {
+        try {
+            archive.scan(from, to, visitor);
+        } catch (IOException e) {
+            throw new BhudyException("读取历史数据失败:" + e.getMessage());
+        }
+    }
+
+    private Path seriesDir(String series) {
+        // 串口名称可能是/dev/ttyS0，总线序列含冒号
+        return root.resolve(series.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    private void flush() {
+        for (WeightArchive archive : archives.values()) {
+            archive.force();
+        }
+    }
+
+    private void applyRetention() {
+        if (settings.getRetentionDays() <= 0 || !Files.isDirectory(root)) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now(zone).minusDays(settings.getRetentionDays());
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                int deleted = WeightArchive.deleteBefore(dir, cutoff);
+                if (deleted > 0) {
+                    log.info("删除{}中{}之前的{}个历史归档文件", dir.getFileName(), cutoff, deleted);
+                }
+            }
+        } catch (IOException e) {
+            log.error("清理历史归档失败:{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        for (WeightArchive archive : archives.values()) {
+            archive.close();
+        }
+    }
+
+    /**
+     * 当前时间段的累计值。仪表的小数位数可能在时间段内变化，先统一换算到 {@link #AGGREGATE_SCALE} 位再累计，
+     * 输出时按时间段内出现过的最多小数位数显示
+     */
+    private static class Aggregate {
+
+        private static final int AGGREGATE_SCALE = 6;
+
+        private long start;
+
+        private long count;
+
+        private long min;
+
+        private long max;
+
+        private long sum;
+
+        private int scale;
+
+        private void add(long start, long value, int scale) {
+            long normalized = WeightReading.rescale(value, scale, AGGREGATE_SCALE);
+            if (count == 0) {
+                this.start = start;
+                min = normalized;
+                max = normalized;
+                sum = 0;
+                this.scale = scale;
+            }
+            min = Math.min(min, normalized);
+            max = Math.max(max, normalized);
+            sum += normalized;
+            this.scale = Math.max(this.scale, scale);
+            count++;
+        }
+
+        private WeightHistoryBucket toBucket() {
+            long avg = Math.round((double) sum / count / WeightReading.pow10(AGGREGATE_SCALE - scale));
+            return new WeightHistoryBucket()
+                    .setStart(start)
+                    .setCount(count)
+                    .setMin(SerialPortUtil.formatWeight(WeightReading.rescale(min, AGGREGATE_SCALE, scale), scale))
+                    .setMax(SerialPortUtil.formatWeight(WeightReading.rescale(max, AGGREGATE_SCALE, scale), scale))
+                    .setAvg(SerialPortUtil.formatWeight(avg, scale));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.model.WeightEvent;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类 WeightEventService
+ * </p>
+ * 称重事件的发布与查询：事件写入Redis列表 &lt;redisKey&gt;:events，稳定重量写入 &lt;redisKey&gt;:stable，
+ * 同时在内存中为每个串口保留最近的事件供接口查询
+ *
+ * @author ChenQi
+ * @date 2026/9/12
+ */
+@Slf4j
+@Service
+public class WeightEventService {
+
+    public static final String EVENTS_SUFFIX = ":events";
+
+    public static final String STABLE_SUFFIX = ":stable";
+
+    @Resource
+    private RedisWeightWriter redisWeightWriter;
+
+    /**
+     * 每个串口保留的事件数
+     */
+    @Value("${serial.events.history-size:100}")
+    private int historySize;
+
+    private final Map<String, ArrayDeque<WeightEvent>> histories = new ConcurrentHashMap<>();
+
+    /**
+     * 发布事件
+     *
+     * @param event    事件
+     * @param redisKey 串口对应的redis key
+     */
+    public void publish(WeightEvent event, String redisKey) {
+        log.info("串口{}称重事件:{} 重量:{}", event.getPortName(), event.getType().getDescription(), event.getWeight());
+        ArrayDeque<WeightEvent> history = histories.computeIfAbsent(event.getPortName(), k -> new ArrayDeque<>(historySize));
+        synchronized (history) {
+            if (history.size() >= historySize) {
+                history.pollFirst();
+            }
+            history.addLast(event);
+        }
+        if (redisKey != null) {
+            redisWeightWriter.append(redisKey + EVENTS_SUFFIX, event, historySize);
+            switch (event.getType()) {
+                case STABLE -> redisWeightWriter.set(redisKey + STABLE_SUFFIX, event.getWeight());
+                case UNLOADED -> redisWeightWriter.set(redisKey + STABLE_SUFFIX, "");
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除串口在内存中的事件记录
+     *
+     * @param portName 串口名称
+     */
+    public void remove(String portName) {
+        histories.remove(portName);
+    }
+
+    /**
+     * 查询最近的事件，按时间倒序
+     *
+     * @param portName 串口名称
+     * @param limit    数量
+     * @return 事件
+     */
+    public List<WeightEvent> recent(String portName, int limit) {
+        ArrayDeque<WeightEvent> history = histories.get(portName);
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        List<WeightEvent> events = new ArrayList<>(Math.min(limit, historySize));
+        synchronized (history) {
+            Iterator<WeightEvent> iterator = history.descendingIterator();
+            while (iterator.hasNext() && events.size() < limit) {
+                events.add(iterator.next());
+            }
+        }
+        return events;
+    }
+}
@@ -1,12 +1,31 @@
 package cn.allbs.weightscale.service;
 
+import cn.allbs.weightscale.config.PortSettings;
 import cn.allbs.weightscale.config.SerialPortManager;
+import cn.allbs.weightscale.enums.PortState;
 import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.model.ScaleQueryStats;
+import cn.allbs.weightscale.model.WeightSnapshot;
 import cn.allbs.weightscale.util.SerialPortUtil;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类 WeightScaleService
+ * </p>
+ * 地磅重量查询：实时重量读取内存快照，指令查询合并同一串口同一指令的并发请求并按串口配置缓存结果
+ *
+ * @author ChenQi
+ * @date 2024/6/11
+ */
 @Slf4j
 @Service
 public class WeightScaleService {
@@ -14,8 +33,33 @@ public class WeightScaleService {
     @Resource
     private SerialPortManager serialPortManager;
 
+    @Resource
+    private WeightSnapshotStore weightSnapshotStore;
+
+    /**
+     * /currentWeight 未传maxAge时快照的最大允许时长（毫秒）
+     */
+    @Value("${serial.snapshot.max-age:5000}")
+    private long defaultMaxAge;
+
+    /**
+     * 进行中的查询，相同的串口、地址和操作码共用一次串口往返
+     */
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 最近的查询结果
+     */
+    private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
     /**
      * 执行操作
+     * </p>
+     * 结果在缓存时间内直接返回；同时到达的相同查询只发送一次指令，其余等待同一个结果
      *
      * @param address       地址
      * @param portName      串口名称
@@ -23,6 +67,61 @@ public class WeightScaleService {
      * @return 结果
      */
     public String performOperation(String address, String portName, String operationCode) {
+        if (address == null || address.isEmpty() || operationCode == null || operationCode.isEmpty()) {
+            throw new BhudyException("地址和操作码不能为空");
+        }
+        String key = portName + ':' + address.charAt(0) + ':' + operationCode.charAt(0);
+        // 每次读取串口当前的配置，重新加载后立即生效
+        PortSettings settings = serialPortManager.getPortSettings(portName);
+        long ttl = settings == null ? 0 : settings.getCommand().getCacheTtl();
+        if (ttl > 0) {
+            CachedResult cached = results.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.capturedAt <= ttl) {
+                hits.increment();
+                return cached.value;
+            }
+        }
+        CompletableFuture<String> own = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        misses.increment();
+        try {
+            String result = sendOperation(address, portName, operationCode);
+            if (ttl > 0) {
+                results.put(key, new CachedResult(result, System.currentTimeMillis()));
+            }
+            own.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * 查询合并与缓存统计
+     *
+     * @return 统计
+     */
+    public ScaleQueryStats getQueryStats() {
+        return new ScaleQueryStats()
+                .setHits(hits.sum())
+                .setMisses(misses.sum())
+                .setCoalesced(coalesced.sum())
+                .setInFlight(inFlight.size())
+                .setCached(results.size());
+    }
+
+    private String sendOperation(String address, String portName, String operationCode) {
         try {
             // 检查串口是否已经打开
             if (serialPortManager.isPortOpen(portName)) {
@@ -45,19 +144,47 @@ public class WeightScaleService {
         }
     }
 
-    public String getCurrentWeight(String portName) {
-        try {
-            // 检查串口是否已经打开
-            if (serialPortManager.isPortOpen(portName)) {
-                log.info("串口未开，正在打开串口{}", portName);
-                serialPortManager.openPort(portName);
-            } else {
-                log.info("串口已经打开{}", portName);
-            }
+    /**
+     * 获取当前重量，串口已打开时优先读取监听线程更新的内存快照
+     *
+     * @param portName 串口名称
+     * @param maxAge   快照最大允许时长（毫秒），为空时取 serial.snapshot.max-age；快照不存在或超时才等待串口的下一帧
+     * @return 重量
+     */
+    public String getCurrentWeight(String portName, Long maxAge) {
+        PortState state = serialPortManager.getPortState(portName);
+        if (state != null && state != PortState.OPEN) {
+            // 串口断开后快照可能还在有效期内，不把最后一次重量当作当前重量返回
+            throw new BhudyException("串口" + portName + "当前" + state.getDescription() + "，没有最新重量");
+        }
+        WeightSnapshot snapshot = weightSnapshotStore.get(portName);
+        if (snapshot != null && snapshot.ageMillis(System.currentTimeMillis()) <= (maxAge != null ? maxAge : defaultMaxAge)) {
+            return snapshot.getWeight();
+        }
+        return readCurrentWeight(portName);
+    }
+
+    /**
+     * 获取串口最新快照
+     *
+     * @param portName 串口名称
+     * @return 快照
+     */
+    public WeightSnapshot getSnapshot(String portName) {
+        return weightSnapshotStore.get(portName);
+    }
 
+    private String readCurrentWeight(String portName) {
+        try {
+            // 串口的打开和重连由监听负责，这里只等待下一帧
             return serialPortManager.readWeightOnce(portName);
+        } catch (BhudyException e) {
+            throw e;
         } catch (Exception e) {
             throw new BhudyException("Error performing operation: " + e.getMessage(), e);
         }
     }
+
+    private record CachedResult(String value, long capturedAt) {
+    }
 }
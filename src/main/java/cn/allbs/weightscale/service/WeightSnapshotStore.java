@@ -0,0 +1,113 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.model.WeightSnapshot;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类 WeightSnapshotStore
+ * </p>
+ * 各串口最新重量快照，监听线程每解析出一帧更新一次，接口直接读取内存中的快照而不再访问串口
+ *
+ * @author ChenQi
+ * @date 2026/9/7
+ */
+@Component
+public class WeightSnapshotStore {
+
+    private final Map<String, Holder> holders = new ConcurrentHashMap<>();
+
+    /**
+     * 获取串口的快照持有者，监听线程持有该对象后直接更新
+     *
+     * @param portName 串口名称
+     * @return 快照持有者
+     */
+    public Holder holder(String portName) {
+        return holders.computeIfAbsent(portName, Holder::new);
+    }
+
+    /**
+     * 移除串口及其总线轮询序列（串口:地址:操作码）的快照，串口移除后不再返回最后的重量
+     *
+     * @param portName 串口名称
+     */
+    public void remove(String portName) {
+        holders.keySet().removeIf(key -> key.equals(portName) || key.startsWith(portName + ':'));
+    }
+
+    /**
+     * 获取串口最新快照
+     *
+     * @param portName 串口名称
+     * @return 快照，没有数据时返回null
+     */
+    public WeightSnapshot get(String portName) {
+        Holder holder = holders.get(portName);
+        return holder == null ? null : holder.current;
+    }
+
+    /**
+     * 单个串口的快照，只有一个写线程，读线程通过volatile读取整个不可变快照
+     */
+    public static class Holder {
+
+        private final String portName;
+
+        private volatile WeightSnapshot current;
+
+        private long sequence;
+
+        /**
+         * 等待下一次更新的请求，没有等待者时为null，监听线程每帧只多一次volatile读
+         */
+        private volatile CompletableFuture<WeightSnapshot> next;
+
+        private Holder(String portName) {
+            this.portName = portName;
+        }
+
+        /**
+         * 更新快照
+         *
+         * @param reading    解析结果
+         * @param capturedAt 采集时间戳（毫秒）
+         * @param stable     是否稳定
+         * @return 新快照
+         */
+        public WeightSnapshot update(WeightReading reading, long capturedAt, boolean stable) {
+            WeightSnapshot snapshot = new WeightSnapshot(portName, reading.getValue(), reading.getScale(), ++sequence, capturedAt, stable);
+            current = snapshot;
+            CompletableFuture<WeightSnapshot> waiting = next;
+            if (waiting != null) {
+                synchronized (this) {
+                    if (next == waiting) {
+                        next = null;
+                    }
+                }
+                waiting.complete(snapshot);
+            }
+            return snapshot;
+        }
+
+        /**
+         * 等待下一次更新，需要比当前快照更新的数据时使用，不用直接读取串口
+         *
+         * @return 下一次更新的快照
+         */
+        public synchronized CompletableFuture<WeightSnapshot> next() {
+            if (next == null) {
+                next = new CompletableFuture<>();
+            }
+            return next;
+        }
+
+        public WeightSnapshot get() {
+            return current;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.enums.StreamType;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.model.WeightSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 类 WeightStreamService
+ * </p>
+ * 基于SSE的实时重量推送。每个串口只有一个发布点，由监听线程调用，订阅者再多也不会增加串口读取；
+ * 重量订阅者只保留最新一条待发送的数据，发送慢的订阅者会跳过中间数据；称重事件逐条排队，不跳过。
+ * 单次发送超过 send-timeout 或事件积压超过 event-queue 的订阅者被断开，不会长期占用发送线程阻塞其他订阅者。
+ *
+ * @author ChenQi
+ * @date 2026/9/14
+ */
+@Slf4j
+@Service
+public class WeightStreamService {
+
+    @Resource
+    private WeightSnapshotStore weightSnapshotStore;
+
+    /**
+     * 订阅超时时间（毫秒），0表示不超时
+     */
+    @Value("${serial.stream.timeout:0}")
+    private long timeout;
+
+    /**
+     * 发送线程数
+     */
+    @Value("${serial.stream.sender-threads:2}")
+    private int senderThreads;
+
+    /**
+     * 单次发送的最长时间（毫秒），超过后断开该订阅者
+     */
+    @Value("${serial.stream.send-timeout:5000}")
+    private long sendTimeout;
+
+    /**
+     * 每个订阅者最多积压的称重事件数，超过后断开该订阅者
+     */
+    @Value("${serial.stream.event-queue:256}")
+    private int eventQueue;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    private ExecutorService sender;
+
+    /**
+     * 检查发送超时的线程，发送线程全部阻塞时也能执行
+     */
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger index = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "weight-stream-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "weight-stream-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, sendTimeout / 2);
+        watchdog.scheduleWithFixedDelay(this::dropStalled, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        watchdog.shutdownNow();
+        sender.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * 获取串口的发布点，由串口管理在开始监听时创建，串口移除时由 {@link #remove(String)} 移除
+     *
+     * @param portName 串口名称
+     * @return 发布点
+     */
+    public Channel channel(String portName) {
+        return channels.computeIfAbsent(portName, Channel::new);
+    }
+
+    /**
+     * 结束串口的全部订阅并移除发布点
+     *
+     * @param portName 串口名称
+     */
+    public void remove(String portName) {
+        Channel channel = channels.remove(portName);
+        if (channel != null) {
+            channel.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        }
+    }
+
+    /**
+     * 订阅串口的实时数据
+     *
+     * @param portName 串口名称
+     * @param type     内容类型
+     * @return SSE
+     */
+    public SseEmitter subscribe(String portName, StreamType type) {
+        Channel channel = channels.get(portName);
+        if (channel == null) {
+            throw new BhudyException("串口" + portName + "未登记或未开始监听");
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(channel, type, emitter);
+        emitter.onCompletion(() -> channel.remove(subscriber));
+        emitter.onTimeout(() -> channel.remove(subscriber));
+        emitter.onError(e -> channel.remove(subscriber));
+        channel.subscribers.add(subscriber);
+        log.info("串口{}新增{}订阅，当前订阅数{}", portName, type.getDescription(), channel.subscribers.size());
+        if (type != StreamType.EVENTS) {
+            WeightSnapshot snapshot = weightSnapshotStore.get(portName);
+            if (snapshot != null) {
+                subscriber.offer(snapshot);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * 断开单次发送超时的订阅者，结束SSE后容器关闭连接，阻塞的发送随之返回
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MILLISECONDS.toNanos(sendTimeout);
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                long since = subscriber.sendingSince;
+                if (since != 0 && now - since > limit) {
+                    subscriber.drop("发送超过" + sendTimeout + "毫秒");
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个串口的发布点
+     */
+    public class Channel {
+
+        private final String portName;
+
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        private Channel(String portName) {
+            this.portName = portName;
+        }
+
+        public boolean hasSubscribers() {
+            return !subscribers.isEmpty();
+        }
+
+        /**
+         * 推送数据给订阅了该类型的所有订阅者
+         *
+         * @param type 内容类型
+         * @param data 数据
+         */
+        public void publish(StreamType type, Object data) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.type == type) {
+                    subscriber.offer(data);
+                }
+            }
+        }
+
+        private void remove(Subscriber subscriber) {
+            if (subscribers.remove(subscriber)) {
+                log.info("串口{}移除{}订阅，当前订阅数{}", portName, subscriber.type.getDescription(), subscribers.size());
+            }
+        }
+    }
+
+    /**
+     * 订阅者，重量只保留最新一条待发送数据，称重事件按顺序排队
+     */
+    private class Subscriber {
+
+        private final Channel channel;
+
+        private final StreamType type;
+
+        private final SseEmitter emitter;
+
+        private final AtomicReference<Object> latest = new AtomicReference<>();
+
+        private final Queue<Object> events = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pendingEvents = new AtomicInteger();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * 当前发送开始的时间（纳秒），没有在发送时为0
+         */
+        private volatile long sendingSince;
+
+        private volatile boolean dropped;
+
+        private Subscriber(Channel channel, StreamType type, SseEmitter emitter) {
+            this.channel = channel;
+            this.type = type;
+            this.emitter = emitter;
+        }
+
+        private void offer(Object data) {
+            if (dropped) {
+                return;
+            }
+            if (type == StreamType.EVENTS) {
+                if (pendingEvents.incrementAndGet() > eventQueue) {
+                    drop("积压超过" + eventQueue + "条事件");
+                    return;
+                }
+                events.offer(data);
+            } else {
+                latest.set(data);
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private Object next() {
+            if (type != StreamType.EVENTS) {
+                return latest.getAndSet(null);
+            }
+            Object data = events.poll();
+            if (data != null) {
+                pendingEvents.decrementAndGet();
+            }
+            return data;
+        }
+
+        private boolean hasPending() {
+            return type == StreamType.EVENTS ? !events.isEmpty() : latest.get() != null;
+        }
+
+        private void drain() {
+            while (!dropped) {
+                Object data = next();
+                if (data == null) {
+                    scheduled.set(false);
+                    // 复查，避免在清除标记前刚好有新数据到达
+                    if (!hasPending() || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                sendingSince = System.nanoTime();
+                try {
+                    emitter.send(SseEmitter.event().name(type.getCode()).data(data));
+                } catch (IOException | IllegalStateException e) {
+                    channel.remove(this);
+                    emitter.completeWithError(e);
+                    dropped = true;
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        /**
+         * 断开发送跟不上的订阅者，客户端可以重新订阅并通过 /events 补齐事件
+         */
+        private synchronized void drop(String reason) {
+            if (dropped) {
+                return;
+            }
+            dropped = true;
+            channel.remove(this);
+            events.clear();
+            log.warn("串口{}的{}订阅{}，已断开", channel.portName, type.getDescription(), reason);
+            emitter.completeWithError(new BhudyException("串口" + channel.portName + "推送" + reason));
+        }
+    }
+}
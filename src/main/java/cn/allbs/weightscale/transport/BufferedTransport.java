@@ -0,0 +1,192 @@
+package cn.allbs.weightscale.transport;
+
+import cn.allbs.weightscale.codec.ByteRingBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 BufferedTransport
+ * </p>
+ * 进程内数据源的公共部分：数据由子类写入接收缓冲区，读取方与物理串口一样从缓冲区取走；
+ * 注册了监听器时按数据到达或结束符分包回调。缓冲区和打开状态由 this 加锁。
+ *
+ * @author ChenQi
+ * @date 2026/10/5
+ */
+public abstract class BufferedTransport implements SerialTransport {
+
+    private final String name;
+
+    /**
+     * 串口接收缓冲区
+     */
+    private final ByteRingBuffer received;
+
+    private volatile boolean open;
+
+    private volatile TransportListener listener;
+
+    /**
+     * 是否按结束符分包回调
+     */
+    private volatile boolean messageMode;
+
+    private volatile byte delimiter;
+
+    private long chunksDelivered;
+
+    protected BufferedTransport(String name, int bufferSize) {
+        this.name = name;
+        this.received = new ByteRingBuffer(bufferSize);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 标记为打开并清空接收缓冲区，由子类的 {@link #open()} 调用
+     */
+    protected synchronized void markOpen() {
+        open = true;
+        received.clear();
+    }
+
+    /**
+     * 标记为关闭并唤醒等待中的读写方，由子类的 {@link #close()} 调用
+     */
+    protected synchronized void markClosed() {
+        open = false;
+        received.clear();
+        notifyAll();
+    }
+
+    @Override
+    public synchronized int bytesAvailable() {
+        return open ? received.size() : -1;
+    }
+
+    @Override
+    public synchronized int read(byte[] buffer, int off, int len) {
+        if (!open) {
+            return -1;
+        }
+        int n = Math.min(len, received.size());
+        received.copyTo(0, buffer, off, n);
+        received.skip(n);
+        if (n > 0) {
+            // 唤醒等待缓冲区空间的写入方
+            notifyAll();
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized int read(byte[] buffer, int off, int len, int timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            while (open && received.size() == 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return 0;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        return read(buffer, off, len);
+    }
+
+    @Override
+    public boolean addDataListener(TransportListener listener) {
+        this.messageMode = false;
+        this.listener = listener;
+        return true;
+    }
+
+    @Override
+    public boolean addMessageListener(TransportListener listener, byte delimiter) {
+        this.delimiter = delimiter;
+        this.messageMode = true;
+        this.listener = listener;
+        return true;
+    }
+
+    @Override
+    public void removeDataListener() {
+        this.listener = null;
+    }
+
+    /**
+     * 放入接收缓冲区并通知监听器
+     *
+     * @param data  数据
+     * @param off   起始位置
+     * @param len   长度
+     * @param block 缓冲区空间不足时是否等待读取方取走数据，否则覆盖最旧的字节
+     * @return 是否放入，已关闭时返回false
+     */
+    protected boolean deliver(byte[] data, int off, int len, boolean block) throws InterruptedException {
+        TransportListener current;
+        synchronized (this) {
+            while (block && open && received.capacity() - received.size() < len) {
+                wait();
+            }
+            if (!open) {
+                return false;
+            }
+            received.write(data, off, len);
+            chunksDelivered++;
+            notifyAll();
+            current = listener;
+        }
+        if (current == null) {
+            return true;
+        }
+        if (messageMode) {
+            deliverMessages(current);
+        } else {
+            current.dataAvailable();
+        }
+        return true;
+    }
+
+    private void deliverMessages(TransportListener current) {
+        while (true) {
+            byte[] message;
+            synchronized (this) {
+                int end = -1;
+                for (int i = 0; i < received.size(); i++) {
+                    if (received.get(i) == delimiter) {
+                        end = i;
+                        break;
+                    }
+                }
+                if (end < 0) {
+                    return;
+                }
+                message = new byte[end + 1];
+                received.copyTo(0, message, 0, message.length);
+                received.skip(message.length);
+            }
+            current.messageReceived(message);
+        }
+    }
+
+    /**
+     * 已放入接收缓冲区的数据块数
+     *
+     * @return 数量
+     */
+    protected synchronized long getChunksDelivered() {
+        return chunksDelivered;
+    }
+}
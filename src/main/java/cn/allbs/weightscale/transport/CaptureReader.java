@@ -0,0 +1,145 @@
+package cn.allbs.weightscale.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 类 CaptureReader
+ * </p>
+ * 按顺序读取 {@link CaptureWriter} 写入的录制文件，文件以只读方式映射到内存，
+ * 每块数据复制到复用的数组中，见 {@link #data()}。文件末尾不完整的数据块（录制时进程退出）被忽略。
+ *
+ * @author ChenQi
+ * @date 2026/10/5
+ */
+public class CaptureReader implements Closeable {
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int dataStart;
+
+    private final String portName;
+
+    private final long startedAt;
+
+    private byte[] data = new byte[256];
+
+    private int length;
+
+    /**
+     * 当前块距录制开始的时间（微秒）
+     */
+    private long offsetMicros;
+
+    public CaptureReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Capture file too large: " + file);
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        try {
+            byte[] magic = new byte[CaptureWriter.MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, CaptureWriter.MAGIC) || buffer.get() != CaptureWriter.VERSION) {
+                throw new IOException("Not a capture file: " + file);
+            }
+            this.startedAt = buffer.getLong();
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            this.portName = new String(name, StandardCharsets.UTF_8);
+        } catch (BufferUnderflowException e) {
+            channel.close();
+            throw new IOException("Truncated capture file: " + file);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.dataStart = buffer.position();
+    }
+
+    /**
+     * 读取下一块
+     *
+     * @return 是否还有完整的数据块
+     */
+    public boolean next() {
+        int mark = buffer.position();
+        long delta = readVarint();
+        long len = delta < 0 ? -1 : readVarint();
+        if (len < 0 || len > buffer.remaining()) {
+            buffer.position(mark);
+            return false;
+        }
+        length = (int) len;
+        if (data.length < length) {
+            data = new byte[Math.max(length, data.length * 2)];
+        }
+        buffer.get(data, 0, length);
+        offsetMicros += delta;
+        return true;
+    }
+
+    /**
+     * 回到第一块
+     */
+    public void rewind() {
+        buffer.position(dataStart);
+        offsetMicros = 0;
+        length = 0;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    /**
+     * 录制开始时间戳（毫秒）
+     *
+     * @return 时间戳
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public long offsetMicros() {
+        return offsetMicros;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
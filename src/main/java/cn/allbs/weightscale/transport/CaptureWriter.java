@@ -0,0 +1,121 @@
+package cn.allbs.weightscale.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 CaptureWriter
+ * </p>
+ * 串口接收数据的录制文件，只追加写入。文件格式：
+ * <pre>
+ * 文件头: "WSCAP" + 版本(1字节) + 开始时间戳(8字节,毫秒) + 串口名称长度(2字节) + 串口名称(UTF-8)
+ * 数据块: 距上一块的时间间隔(varint,微秒) + 长度(varint) + 原始字节
+ * </pre>
+ * 每块额外占用2~4个字节。写入经过缓冲，距上次刷盘超过1秒时刷出。
+ *
+ * @author ChenQi
+ * @date 2026/10/5
+ */
+@Slf4j
+public class CaptureWriter implements Closeable {
+
+    static final byte[] MAGIC = {'W', 'S', 'C', 'A', 'P'};
+
+    static final byte VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Path file;
+
+    private final OutputStream out;
+
+    private long lastChunkAt;
+
+    private long lastFlushAt;
+
+    private long chunks;
+
+    private long bytes;
+
+    private boolean failed;
+
+    public CaptureWriter(Path file, String portName) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.file = file;
+        this.out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        byte[] name = portName.getBytes(StandardCharsets.UTF_8);
+        DataOutputStream header = new DataOutputStream(out);
+        header.write(MAGIC);
+        header.writeByte(VERSION);
+        header.writeLong(System.currentTimeMillis());
+        header.writeShort(name.length);
+        header.write(name);
+        lastChunkAt = System.nanoTime();
+        lastFlushAt = lastChunkAt;
+    }
+
+    /**
+     * 追加一块收到的数据
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     */
+    public synchronized void append(byte[] data, int off, int len) {
+        if (failed || len <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        try {
+            writeVarint(TimeUnit.NANOSECONDS.toMicros(now - lastChunkAt));
+            writeVarint(len);
+            out.write(data, off, len);
+            lastChunkAt = now;
+            chunks++;
+            bytes += len;
+            if (now - lastFlushAt > FLUSH_INTERVAL_NANOS) {
+                out.flush();
+                lastFlushAt = now;
+            }
+        } catch (IOException e) {
+            failed = true;
+            log.error("写入录制文件{}失败，停止录制:{}", file, e.getMessage());
+        }
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            out.close();
+            log.info("录制文件{}已关闭，共{}块{}字节", file, chunks, bytes);
+        } catch (IOException e) {
+            log.error("关闭录制文件{}失败:{}", file, e.getMessage());
+        }
+    }
+}
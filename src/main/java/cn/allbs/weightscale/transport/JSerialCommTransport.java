@@ -0,0 +1,261 @@
+package cn.allbs.weightscale.transport;
+
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+import com.fazecast.jSerialComm.SerialPortMessageListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 类 JSerialCommTransport
+ * </p>
+ * 基于jSerialComm的物理串口。打开后使用半阻塞读取，按需调整读超时，
+ * 读取已到达数据时先取 bytesAvailable，因此不会阻塞。每次打开都重新设置波特率、数据位、校验位、停止位和超时。
+ * USB转串口设备重新插入后系统名称可能改变，按序列号或USB位置在最近一次枚举结果中重新查找设备，串口名称保持不变。
+ *
+ * @author ChenQi
+ * @date 2026/9/24
+ */
+@Slf4j
+public class JSerialCommTransport implements SerialTransport {
+
+    /**
+     * 枚举结果的缓存时间（毫秒），多个串口同时查找时只枚举一次
+     */
+    private static final long SCAN_CACHE_MS = 1000;
+
+    private static SerialPort[] lastScan = new SerialPort[0];
+
+    private static long lastScanAt;
+
+    private final String name;
+
+    /**
+     * 设备序列号，没有时为null
+     */
+    private final String serialNumber;
+
+    /**
+     * USB位置（总线-端口路径），没有时为null
+     */
+    private final String location;
+
+    private volatile SerialPort serialPort;
+
+    /**
+     * 当前设置的读超时，避免每次读取都重新设置
+     */
+    private int readTimeout = -1;
+
+    private volatile SerialParameters parameters = new SerialParameters();
+
+    public JSerialCommTransport(SerialPort serialPort) {
+        this.serialPort = serialPort;
+        this.name = serialPort.getSystemPortName();
+        this.serialNumber = identity(serialPort.getSerialNumber());
+        this.location = identity(serialPort.getPortLocation());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        SerialPort port = serialPort;
+        String description = port.getDescriptivePortName() + " - " + port.getPortDescription();
+        return port.getSystemPortName().equals(name) ? description : description + " (" + port.getSystemPortName() + ")";
+    }
+
+    @Override
+    public synchronized void setParameters(SerialParameters parameters) {
+        this.parameters = parameters.copy();
+        if (serialPort.isOpen()) {
+            apply();
+        }
+    }
+
+    @Override
+    public SerialParameters getParameters() {
+        return parameters.copy();
+    }
+
+    @Override
+    public synchronized boolean open() {
+        if (serialPort.isOpen()) {
+            return true;
+        }
+        log.debug("Pre-setting RTS: {}", serialPort.setRTS() ? "Success" : "Failure");
+        if (!serialPort.openPort()) {
+            return false;
+        }
+        serialPort.setFlowControl(SerialPort.FLOW_CONTROL_DISABLED);
+        apply();
+        return true;
+    }
+
+    private void apply() {
+        SerialParameters current = parameters;
+        serialPort.setComPortParameters(current.getBaudRate(), current.getDataBits(),
+                current.getStopBits() == 2 ? SerialPort.TWO_STOP_BITS : SerialPort.ONE_STOP_BIT, parity(current));
+        readTimeout = -1;
+        setReadTimeout(current.getReadTimeout());
+    }
+
+    private static int parity(SerialParameters parameters) {
+        return switch (parameters.getParity()) {
+            case ODD -> SerialPort.ODD_PARITY;
+            case EVEN -> SerialPort.EVEN_PARITY;
+            case MARK -> SerialPort.MARK_PARITY;
+            case SPACE -> SerialPort.SPACE_PARITY;
+            default -> SerialPort.NO_PARITY;
+        };
+    }
+
+    @Override
+    public synchronized boolean relocate() {
+        if (serialPort.isOpen() || (serialNumber == null && location == null)) {
+            return false;
+        }
+        String current = serialPort.getSystemPortName();
+        SerialPort match = null;
+        for (SerialPort candidate : scan()) {
+            if (candidate.getSystemPortName().equals(current)) {
+                // 设备仍在原来的位置
+                return false;
+            }
+            if (serialNumber != null ? serialNumber.equals(identity(candidate.getSerialNumber()))
+                    : location.equals(identity(candidate.getPortLocation()))) {
+                match = candidate;
+            }
+        }
+        if (match == null) {
+            return false;
+        }
+        log.info("串口{}的设备重新插入为{}", name, match.getSystemPortName());
+        serialPort = match;
+        readTimeout = -1;
+        return true;
+    }
+
+    /**
+     * 枚举本机串口，缓存时间内直接返回上一次的结果
+     */
+    private static synchronized SerialPort[] scan() {
+        long now = System.currentTimeMillis();
+        if (now - lastScanAt >= SCAN_CACHE_MS) {
+            lastScan = SerialPort.getCommPorts();
+            lastScanAt = now;
+        }
+        return lastScan;
+    }
+
+    /**
+     * 序列号和位置为空或未知时视为没有
+     */
+    private static String identity(String value) {
+        if (value == null || value.isBlank() || "Unknown".equalsIgnoreCase(value.trim())) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return serialPort.isOpen();
+    }
+
+    @Override
+    public boolean close() {
+        return serialPort.closePort();
+    }
+
+    @Override
+    public int bytesAvailable() {
+        return serialPort.bytesAvailable();
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len) {
+        int available = serialPort.bytesAvailable();
+        if (available <= 0) {
+            return available;
+        }
+        return serialPort.readBytes(buffer, Math.min(available, len), off);
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len, int timeoutMs) {
+        setReadTimeout(Math.max(1, timeoutMs));
+        return serialPort.readBytes(buffer, len, off);
+    }
+
+    private void setReadTimeout(int timeoutMs) {
+        if (timeoutMs != readTimeout) {
+            serialPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING, timeoutMs, parameters.getWriteTimeout());
+            readTimeout = timeoutMs;
+        }
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) {
+        return serialPort.writeBytes(data, len, off);
+    }
+
+    @Override
+    public boolean addDataListener(TransportListener listener) {
+        return serialPort.addDataListener(new SerialPortDataListener() {
+
+            @Override
+            public int getListeningEvents() {
+                return SerialPort.LISTENING_EVENT_DATA_AVAILABLE | SerialPort.LISTENING_EVENT_PORT_DISCONNECTED;
+            }
+
+            @Override
+            public void serialEvent(SerialPortEvent event) {
+                if (event.getEventType() == SerialPort.LISTENING_EVENT_PORT_DISCONNECTED) {
+                    listener.disconnected();
+                } else {
+                    listener.dataAvailable();
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean addMessageListener(TransportListener listener, byte delimiter) {
+        byte[] messageDelimiter = {delimiter};
+        return serialPort.addDataListener(new SerialPortMessageListener() {
+
+            @Override
+            public int getListeningEvents() {
+                return SerialPort.LISTENING_EVENT_DATA_RECEIVED | SerialPort.LISTENING_EVENT_PORT_DISCONNECTED;
+            }
+
+            @Override
+            public byte[] getMessageDelimiter() {
+                return messageDelimiter;
+            }
+
+            @Override
+            public boolean delimiterIndicatesEndOfMessage() {
+                return true;
+            }
+
+            @Override
+            public void serialEvent(SerialPortEvent event) {
+                if (event.getEventType() == SerialPort.LISTENING_EVENT_PORT_DISCONNECTED) {
+                    listener.disconnected();
+                } else {
+                    listener.messageReceived(event.getReceivedData());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void removeDataListener() {
+        serialPort.removeDataListener();
+    }
+}
@@ -0,0 +1,146 @@
+package cn.allbs.weightscale.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 类 RecordingTransport
+ * </p>
+ * 录制串口收到的数据：读取和分包回调的数据原样追加到录制文件，其余操作直接转发。
+ * 每次打开串口新建一个文件 &lt;目录&gt;/&lt;串口&gt;-&lt;时间&gt;.wscap，关闭串口时关闭文件。
+ *
+ * @author ChenQi
+ * @date 2026/10/5
+ */
+@Slf4j
+public class RecordingTransport implements SerialTransport {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final SerialTransport delegate;
+
+    private final Path dir;
+
+    private volatile CaptureWriter writer;
+
+    public RecordingTransport(SerialTransport delegate, Path dir) {
+        this.delegate = delegate;
+        this.dir = dir;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription() + " (recording)";
+    }
+
+    @Override
+    public void setParameters(SerialParameters parameters) {
+        delegate.setParameters(parameters);
+    }
+
+    @Override
+    public SerialParameters getParameters() {
+        return delegate.getParameters();
+    }
+
+    @Override
+    public synchronized boolean open() {
+        if (!delegate.open()) {
+            return false;
+        }
+        if (writer == null) {
+            // 串口名称可能是/dev/ttyS0
+            String fileName = getName().replaceAll("[^A-Za-z0-9._-]", "_") + "-" + LocalDateTime.now().format(FILE_TIME) + ".wscap";
+            try {
+                writer = new CaptureWriter(dir.resolve(fileName), getName());
+                log.info("串口{}开始录制到{}", getName(), writer.getFile());
+            } catch (IOException e) {
+                log.error("串口{}创建录制文件失败:{}", getName(), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean relocate() {
+        return delegate.relocate();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public synchronized boolean close() {
+        boolean closed = delegate.close();
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        return closed;
+    }
+
+    @Override
+    public int bytesAvailable() {
+        return delegate.bytesAvailable();
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len) {
+        return record(buffer, off, delegate.read(buffer, off, len));
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len, int timeoutMs) {
+        return record(buffer, off, delegate.read(buffer, off, len, timeoutMs));
+    }
+
+    private int record(byte[] buffer, int off, int numRead) {
+        CaptureWriter current = writer;
+        if (numRead > 0 && current != null) {
+            current.append(buffer, off, numRead);
+        }
+        return numRead;
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) {
+        return delegate.write(data, off, len);
+    }
+
+    @Override
+    public boolean addDataListener(TransportListener listener) {
+        return delegate.addDataListener(listener);
+    }
+
+    @Override
+    public boolean addMessageListener(TransportListener listener, byte delimiter) {
+        return delegate.addMessageListener(new TransportListener() {
+            @Override
+            public void messageReceived(byte[] message) {
+                record(message, 0, message.length);
+                listener.messageReceived(message);
+            }
+
+            @Override
+            public void disconnected() {
+                listener.disconnected();
+            }
+        }, delimiter);
+    }
+
+    @Override
+    public void removeDataListener() {
+        delegate.removeDataListener();
+    }
+}
@@ -0,0 +1,109 @@
+package cn.allbs.weightscale.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 类 ReplayTransport
+ * </p>
+ * 回放 {@link RecordingTransport} 录制的文件，按录制时的时间间隔把数据块放入接收缓冲区，
+ * 与物理串口一样由监听线程读取和解析。speed 为回放倍速，0表示不等待、读取方取走数据后立即放入下一块，
+ * 此时回放耗时即为整条接收链路处理现场数据的耗时。写入的指令被忽略。
+ *
+ * @author ChenQi
+ * @date 2026/10/5
+ */
+@Slf4j
+public class ReplayTransport extends BufferedTransport {
+
+    private static final int RECEIVE_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    private final double speed;
+
+    private final boolean loop;
+
+    private Thread worker;
+
+    public ReplayTransport(String name, Path file, double speed, boolean loop) {
+        super(name, RECEIVE_BUFFER_SIZE);
+        this.file = file;
+        this.speed = speed;
+        this.loop = loop;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Replay " + file + (speed > 0 ? " x" + speed : " max speed") + (loop ? " loop" : "");
+    }
+
+    @Override
+    public synchronized boolean open() {
+        if (isOpen()) {
+            return true;
+        }
+        markOpen();
+        worker = new Thread(this::replay, "scale-replay-" + getName());
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean close() {
+        markClosed();
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+        return true;
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) {
+        return isOpen() ? len : -1;
+    }
+
+    private void replay() {
+        try (CaptureReader reader = new CaptureReader(file)) {
+            do {
+                reader.rewind();
+                long chunks = 0;
+                long bytes = 0;
+                long startedAt = System.nanoTime();
+                while (isOpen() && reader.next()) {
+                    if (speed > 0) {
+                        waitUntil(startedAt + (long) (TimeUnit.MICROSECONDS.toNanos(reader.offsetMicros()) / speed));
+                    }
+                    if (!deliver(reader.data(), 0, reader.length(), true)) {
+                        return;
+                    }
+                    chunks++;
+                    bytes += reader.length();
+                }
+                long elapsed = Math.max(1, System.nanoTime() - startedAt);
+                log.info("串口{}回放{}完成，{}块{}字节，耗时{}毫秒，{}字节/秒", getName(), file, chunks, bytes,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), bytes * TimeUnit.SECONDS.toNanos(1) / elapsed);
+            } while (loop && isOpen());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("串口{}读取回放文件{}失败:{}", getName(), file, e.getMessage());
+        }
+    }
+
+    private static void waitUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package cn.allbs.weightscale.transport;
+
+import cn.allbs.weightscale.enums.Parity;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 类 SerialParameters
+ * </p>
+ * 串口通信参数：波特率、数据位、校验位、停止位和读写超时，默认为9600 8N1
+ *
+ * @author ChenQi
+ * @date 2026/10/17
+ */
+@Data
+@Accessors(chain = true)
+public class SerialParameters {
+
+    /**
+     * 波特率
+     */
+    private int baudRate = 9600;
+
+    /**
+     * 数据位，5~8
+     */
+    private int dataBits = 8;
+
+    /**
+     * 校验位
+     */
+    private Parity parity = Parity.NONE;
+
+    /**
+     * 停止位，1或2
+     */
+    private int stopBits = 1;
+
+    /**
+     * 打开后的默认读超时（毫秒）
+     */
+    private int readTimeout = 1000;
+
+    /**
+     * 写超时（毫秒）
+     */
+    private int writeTimeout = 1000;
+
+    /**
+     * 复制一份，自动检测时在副本上修改波特率和校验位
+     *
+     * @return 副本
+     */
+    public SerialParameters copy() {
+        return new SerialParameters()
+                .setBaudRate(baudRate)
+                .setDataBits(dataBits)
+                .setParity(parity)
+                .setStopBits(stopBits)
+                .setReadTimeout(readTimeout)
+                .setWriteTimeout(writeTimeout);
+    }
+
+    /**
+     * 传输一个字节的时间：起始位、数据位、校验位和停止位
+     *
+     * @return 纳秒
+     */
+    public long nanosPerByte() {
+        int bits = 1 + dataBits + (parity == Parity.NONE ? 0 : 1) + stopBits;
+        return baudRate <= 0 ? 0 : bits * 1_000_000_000L / baudRate;
+    }
+
+    /**
+     * 简写，如 9600 8N1
+     */
+    @Override
+    public String toString() {
+        return baudRate + " " + dataBits + parity.getSymbol() + stopBits;
+    }
+}
@@ -0,0 +1,121 @@
+package cn.allbs.weightscale.transport;
+
+/**
+ * 类 SerialTransport
+ * </p>
+ * 串口传输层，监听线程、指令执行器和串口管理只通过该接口读写，
+ * 物理串口由 {@link JSerialCommTransport} 实现，模拟仪表由 {@link SimulatedScaleTransport} 实现。
+ *
+ * @author ChenQi
+ * @date 2026/9/24
+ */
+public interface SerialTransport {
+
+    /**
+     * 串口名称，如COM3
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 串口描述，用于日志
+     *
+     * @return 描述
+     */
+    String getDescription();
+
+    /**
+     * 设置通信参数，已打开时立即生效，否则在下次打开时生效；模拟和回放串口忽略
+     *
+     * @param parameters 通信参数
+     */
+    default void setParameters(SerialParameters parameters) {
+    }
+
+    /**
+     * 当前的通信参数，模拟和回放串口返回null
+     *
+     * @return 通信参数
+     */
+    default SerialParameters getParameters() {
+        return null;
+    }
+
+    /**
+     * 打开串口，已打开时直接返回true
+     *
+     * @return 是否成功
+     */
+    boolean open();
+
+    boolean isOpen();
+
+    /**
+     * 设备拔出后重新插入时系统名称可能改变，按设备标识重新查找，找到时切换到新设备，串口名称不变。只在串口关闭时调用
+     *
+     * @return 是否切换了设备
+     */
+    default boolean relocate() {
+        return false;
+    }
+
+    boolean close();
+
+    /**
+     * 已到达未读取的字节数
+     *
+     * @return 字节数，串口未打开时返回-1
+     */
+    int bytesAvailable();
+
+    /**
+     * 非阻塞读取已到达的数据
+     *
+     * @param buffer 缓冲区
+     * @param off    写入位置
+     * @param len    最多读取的字节数
+     * @return 读取的字节数，没有数据时返回0，出错时返回-1
+     */
+    int read(byte[] buffer, int off, int len);
+
+    /**
+     * 半阻塞读取：有数据到达即返回，最多等待指定时间
+     *
+     * @param buffer    缓冲区
+     * @param off       写入位置
+     * @param len       最多读取的字节数
+     * @param timeoutMs 最长等待时间（毫秒）
+     * @return 读取的字节数，超时返回0，出错时返回-1
+     */
+    int read(byte[] buffer, int off, int len, int timeoutMs);
+
+    /**
+     * 写入数据
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     * @return 写入的字节数，出错时返回-1
+     */
+    int write(byte[] data, int off, int len);
+
+    /**
+     * 注册数据到达事件，同一时间只有一个监听器
+     *
+     * @param listener 监听器
+     * @return 是否成功
+     */
+    boolean addDataListener(TransportListener listener);
+
+    /**
+     * 注册按结束符分包的事件，每收到一个以结束符结尾的完整包回调一次 {@link TransportListener#messageReceived(byte[])}
+     *
+     * @param listener  监听器
+     * @param delimiter 结束符
+     * @return 是否成功
+     */
+    boolean addMessageListener(TransportListener listener, byte delimiter);
+
+    void removeDataListener();
+}
@@ -0,0 +1,161 @@
+package cn.allbs.weightscale.transport;
+
+import cn.allbs.weightscale.config.CaptureSettings;
+import cn.allbs.weightscale.config.SerialPortConfig;
+import cn.allbs.weightscale.config.SimulatorSettings;
+import com.fazecast.jSerialComm.SerialPort;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 类 SerialTransportFactory
+ * </p>
+ * 按 serial.transport 枚举可用的串口：serial 为本机物理串口（默认），simulated 为进程内模拟仪表，
+ * replay 为回放录制文件；serial.record.enabled 为true时在外层包装 {@link RecordingTransport} 录制收到的数据
+ *
+ * @author ChenQi
+ * @date 2026/9/24
+ */
+@Slf4j
+@Component
+public class SerialTransportFactory {
+
+    public static final String SIMULATED = "simulated";
+
+    public static final String REPLAY = "replay";
+
+    @Value("${serial.transport:serial}")
+    private String transport;
+
+    @Resource
+    private SerialPortConfig serialPortConfig;
+
+    private Map<String, SimulatedScaleTransport> simulatedPorts;
+
+    private ScheduledExecutorService simulatorScheduler;
+
+    private Map<String, ReplayTransport> replayPorts;
+
+    /**
+     * 枚举当前可用的串口
+     *
+     * @return 串口
+     */
+    public List<SerialTransport> discover() {
+        List<SerialTransport> transports = new ArrayList<>();
+        if (isSimulated()) {
+            transports.addAll(simulatedPorts().values());
+        } else if (REPLAY.equalsIgnoreCase(transport)) {
+            transports.addAll(replayPorts().values());
+        } else {
+            for (SerialPort port : SerialPort.getCommPorts()) {
+                transports.add(new JSerialCommTransport(port));
+            }
+        }
+        return withRecording(transports);
+    }
+
+    /**
+     * 按名称查找串口
+     *
+     * @param portName 串口名称
+     * @return 串口，不存在时返回null
+     */
+    public SerialTransport find(String portName) {
+        for (SerialTransport transport : discover()) {
+            if (transport.getName().equals(portName)) {
+                return transport;
+            }
+        }
+        return null;
+    }
+
+    public boolean isSimulated() {
+        return SIMULATED.equalsIgnoreCase(transport);
+    }
+
+    /**
+     * 模拟串口只创建一次，多次枚举返回同一批实例
+     */
+    private synchronized Map<String, SimulatedScaleTransport> simulatedPorts() {
+        if (simulatedPorts == null) {
+            SimulatorSettings settings = serialPortConfig.getSimulatorSettings();
+            AtomicInteger threadIndex = new AtomicInteger();
+            simulatorScheduler = Executors.newScheduledThreadPool(Math.max(1, settings.getThreads()), r -> {
+                Thread thread = new Thread(r, "scale-simulator-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            List<String> names = new ArrayList<>(settings.getNames());
+            if (names.isEmpty()) {
+                for (int i = 1; i <= settings.getPorts(); i++) {
+                    names.add(settings.getNamePrefix() + i);
+                }
+            }
+            settings.setPorts(names.size());
+            Map<String, SimulatedScaleTransport> ports = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                ports.put(names.get(i), new SimulatedScaleTransport(names.get(i), i, settings, simulatorScheduler));
+            }
+            log.info("使用{}个模拟仪表: {}", ports.size(), ports.keySet());
+            simulatedPorts = Collections.unmodifiableMap(ports);
+        }
+        return simulatedPorts;
+    }
+
+    /**
+     * 回放串口只创建一次，串口名称取自录制文件头
+     */
+    private synchronized Map<String, ReplayTransport> replayPorts() {
+        if (replayPorts == null) {
+            CaptureSettings settings = serialPortConfig.getCaptureSettings();
+            Map<String, ReplayTransport> ports = new LinkedHashMap<>();
+            for (String file : settings.getReplayFiles()) {
+                Path path = Path.of(file);
+                try (CaptureReader reader = new CaptureReader(path)) {
+                    ports.put(reader.getPortName(), new ReplayTransport(reader.getPortName(), path, settings.getReplaySpeed(), settings.isReplayLoop()));
+                } catch (IOException e) {
+                    log.error("无法读取回放文件{}:{}", file, e.getMessage());
+                }
+            }
+            log.info("回放{}个串口: {}", ports.size(), ports.keySet());
+            replayPorts = Collections.unmodifiableMap(ports);
+        }
+        return replayPorts;
+    }
+
+    private List<SerialTransport> withRecording(List<SerialTransport> transports) {
+        CaptureSettings settings = serialPortConfig.getCaptureSettings();
+        if (!settings.isRecord()) {
+            return transports;
+        }
+        Path dir = Path.of(settings.getRecordDir());
+        List<SerialTransport> wrapped = new ArrayList<>(transports.size());
+        for (SerialTransport port : transports) {
+            boolean record = settings.getRecordPorts().isEmpty() || settings.getRecordPorts().contains(port.getName());
+            wrapped.add(record ? new RecordingTransport(port, dir) : port);
+        }
+        return wrapped;
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (simulatorScheduler != null) {
+            simulatorScheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package cn.allbs.weightscale.transport;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.config.SimulatorSettings;
+import cn.allbs.weightscale.util.SerialPortUtil;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类 SimulatedScaleTransport
+ * </p>
+ * 进程内模拟的DS10仪表。连续发送方式按帧率发送12字节的重量帧；指令应答方式解析写入的指令，
+ * 对配置的地址延迟应答14字节的帧（不回显地址和命令时为12字节）。发送的每一帧都可以按概率丢字节、错校验或只发一部分，
+ * 收到的数据放入接收缓冲区，与物理串口一样由读取方取走。
+ *
+ * @author ChenQi
+ * @date 2026/9/24
+ */
+public class SimulatedScaleTransport extends BufferedTransport {
+
+    private static final int RECEIVE_BUFFER_SIZE = 4096;
+
+    private final SimulatorSettings settings;
+
+    private final SimulatedWeightProfile profile;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Random random;
+
+    private final Set<Byte> addresses = new HashSet<>();
+
+    /**
+     * 尚未组成完整指令的写入数据
+     */
+    private final byte[] commandBuffer = new byte[64];
+
+    private int commandLength;
+
+    private ScheduledFuture<?> emitter;
+
+    /**
+     * 下一帧的计划发送时间（纳秒），按计划时间而不是上一帧的实际时间推算，避免帧率漂移
+     */
+    private long nextFrameAt;
+
+    public SimulatedScaleTransport(String name, int index, SimulatorSettings settings, ScheduledExecutorService scheduler) {
+        super(name, RECEIVE_BUFFER_SIZE);
+        this.settings = settings;
+        this.scheduler = scheduler;
+        this.random = new Random(settings.getSeed() * 31 + index);
+        SimulatedWeightProfile base = new SimulatedWeightProfile(settings, 0);
+        // 各串口的循环错开，避免所有模拟仪表同时上磅
+        this.profile = new SimulatedWeightProfile(settings, base.period() * index / Math.max(1, settings.getPorts()));
+        for (String address : settings.getAddresses()) {
+            if (!address.isEmpty()) {
+                addresses.add((byte) address.charAt(0));
+            }
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Simulated DS10 - " + (settings.isContinuous() ? settings.getFrameRate() + " frames/s" : "command " + settings.getAddresses());
+    }
+
+    @Override
+    public synchronized boolean open() {
+        if (isOpen()) {
+            return true;
+        }
+        markOpen();
+        commandLength = 0;
+        if (settings.isContinuous() && settings.getFrameRate() > 0) {
+            nextFrameAt = System.nanoTime();
+            scheduleNextFrame();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean close() {
+        if (emitter != null) {
+            emitter.cancel(false);
+            emitter = null;
+        }
+        markClosed();
+        return true;
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) {
+        if (!isOpen()) {
+            return -1;
+        }
+        if (!settings.isContinuous()) {
+            acceptCommand(data, off, len);
+        }
+        return len;
+    }
+
+    /**
+     * 立即发送一帧指定重量的数据，压测程序用来控制发送时间和内容
+     *
+     * @param weight 重量（Kg）
+     */
+    public void emitWeight(long weight) {
+        emit(continuousFrame(weight));
+    }
+
+    public long getFramesSent() {
+        return getChunksDelivered();
+    }
+
+    private synchronized void scheduleNextFrame() {
+        if (!isOpen()) {
+            return;
+        }
+        nextFrameAt += TimeUnit.SECONDS.toNanos(1) / Math.max(1, settings.getFrameRate());
+        long delay = nextFrameAt - System.nanoTime();
+        if (settings.getJitter() > 0) {
+            long jitter = TimeUnit.MILLISECONDS.toNanos(settings.getJitter());
+            delay += random.nextLong(-jitter, jitter + 1);
+        }
+        emitter = scheduler.schedule(() -> {
+            emit(continuousFrame(profile.weightAt(System.currentTimeMillis(), random)));
+            scheduleNextFrame();
+        }, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 从写入的数据中找出完整的指令 STX + 地址 + 命令 + 校验高四位 + 校验低四位 + ETX
+     */
+    private synchronized void acceptCommand(byte[] data, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            byte b = data[i];
+            if (b == FrameDecoder.STX) {
+                commandLength = 0;
+            }
+            if (commandLength < commandBuffer.length) {
+                commandBuffer[commandLength++] = b;
+            }
+            if (b == FrameDecoder.ETX) {
+                if (commandLength == 6 && commandBuffer[0] == FrameDecoder.STX && addresses.contains(commandBuffer[1])) {
+                    byte address = commandBuffer[1];
+                    byte command = commandBuffer[2];
+                    scheduler.schedule(() -> emit(respond(address, command, profile.weightAt(System.currentTimeMillis(), random))),
+                            settings.getResponseLatency(), TimeUnit.MILLISECONDS);
+                }
+                commandLength = 0;
+            }
+        }
+    }
+
+    private byte[] respond(byte address, byte command, long weight) {
+        if (settings.isEcho()) {
+            return responseFrame(address, command, weight);
+        }
+        return continuousFrame(command == 'C' ? 0 : weight);
+    }
+
+    /**
+     * 按概率注入故障后放入接收缓冲区，并通知监听器
+     */
+    private void emit(byte[] frame) {
+        byte[] data = injectFaults(frame);
+        try {
+            deliver(data, 0, data.length, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] injectFaults(byte[] frame) {
+        byte[] data = frame;
+        if (settings.getBadXorRate() > 0 && random.nextDouble() < settings.getBadXorRate()) {
+            data[data.length - 2] ^= 0x01;
+        }
+        if (settings.getDropRate() > 0 && random.nextDouble() < settings.getDropRate()) {
+            int drop = random.nextInt(data.length);
+            byte[] dropped = new byte[data.length - 1];
+            System.arraycopy(data, 0, dropped, 0, drop);
+            System.arraycopy(data, drop + 1, dropped, drop, data.length - drop - 1);
+            data = dropped;
+        }
+        if (settings.getPartialRate() > 0 && random.nextDouble() < settings.getPartialRate()) {
+            data = Arrays.copyOf(data, 1 + random.nextInt(data.length - 1));
+        }
+        return data;
+    }
+
+    /**
+     * 连续发送方式的帧：STX + 符号 + 6位数字 + 小数位数 + 校验 + ETX
+     *
+     * @param weight 重量（Kg）
+     * @return 帧
+     */
+    public static byte[] continuousFrame(long weight) {
+        byte[] frame = new byte[12];
+        frame[0] = FrameDecoder.STX;
+        writeWeight(frame, 1, weight);
+        return seal(frame);
+    }
+
+    /**
+     * 指令应答方式的帧：STX + 地址 + 命令 + 符号 + 6位数字 + 小数位数 + 校验 + ETX
+     *
+     * @param address 地址
+     * @param command 命令
+     * @param weight  重量（Kg）
+     * @return 帧
+     */
+    public static byte[] responseFrame(byte address, byte command, long weight) {
+        byte[] frame = new byte[14];
+        frame[0] = FrameDecoder.STX;
+        frame[1] = address;
+        frame[2] = command;
+        // 读皮重返回0
+        writeWeight(frame, 3, command == 'C' ? 0 : weight);
+        return seal(frame);
+    }
+
+    private static void writeWeight(byte[] frame, int off, long weight) {
+        long value = Math.min(Math.abs(weight), 999999);
+        frame[off] = (byte) (weight < 0 ? '-' : '+');
+        for (int i = off + 6; i > off; i--) {
+            frame[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        frame[off + 7] = '0';
+    }
+
+    private static byte[] seal(byte[] frame) {
+        int len = frame.length;
+        byte xor = SerialPortUtil.calculateXorChecksum(frame, 1, len - 4);
+        frame[len - 3] = SerialPortUtil.toAsciiHex((xor >> 4) & 0x0F);
+        frame[len - 2] = SerialPortUtil.toAsciiHex(xor & 0x0F);
+        frame[len - 1] = FrameDecoder.ETX;
+        return frame;
+    }
+}
@@ -0,0 +1,85 @@
+package cn.allbs.weightscale.transport;
+
+import cn.allbs.weightscale.config.SimulatorSettings;
+
+import java.util.Random;
+
+/**
+ * 类 SimulatedWeightProfile
+ * </p>
+ * 模拟仪表的重量曲线：固定重量，或车辆上磅、停留、下磅、空磅的循环，叠加随机噪声
+ *
+ * @author ChenQi
+ * @date 2026/9/24
+ */
+public class SimulatedWeightProfile {
+
+    private final boolean truck;
+
+    private final long weight;
+
+    private final long rampTime;
+
+    private final long holdTime;
+
+    private final long emptyTime;
+
+    private final long noise;
+
+    /**
+     * 循环起点，不同串口错开
+     */
+    private final long origin;
+
+    public SimulatedWeightProfile(SimulatorSettings settings, long origin) {
+        this.truck = "truck".equalsIgnoreCase(settings.getProfile());
+        this.weight = settings.getWeight();
+        this.rampTime = Math.max(1, settings.getRampTime());
+        this.holdTime = settings.getHoldTime();
+        this.emptyTime = settings.getEmptyTime();
+        this.noise = settings.getNoise();
+        this.origin = origin;
+    }
+
+    /**
+     * 指定时刻的重量（Kg）
+     *
+     * @param now    时间戳（毫秒）
+     * @param random 随机数
+     * @return 重量
+     */
+    public long weightAt(long now, Random random) {
+        long value = truck ? truckWeight(now) : weight;
+        if (noise > 0 && value > 0) {
+            value += random.nextLong(-noise, noise + 1);
+        }
+        return value;
+    }
+
+    private long truckWeight(long now) {
+        long period = emptyTime + rampTime + holdTime + rampTime;
+        long t = Math.floorMod(now - origin, period);
+        if (t < emptyTime) {
+            return 0;
+        }
+        t -= emptyTime;
+        if (t < rampTime) {
+            return weight * t / rampTime;
+        }
+        t -= rampTime;
+        if (t < holdTime) {
+            return weight;
+        }
+        t -= holdTime;
+        return weight * (rampTime - t) / rampTime;
+    }
+
+    /**
+     * 循环周期（毫秒），固定重量时为0
+     *
+     * @return 周期
+     */
+    public long period() {
+        return truck ? emptyTime + rampTime + holdTime + rampTime : 0;
+    }
+}
@@ -0,0 +1,31 @@
+package cn.allbs.weightscale.transport;
+
+/**
+ * 类 TransportListener
+ * </p>
+ * 串口事件回调，由传输层的事件线程调用
+ *
+ * @author ChenQi
+ * @date 2026/9/24
+ */
+public interface TransportListener {
+
+    /**
+     * 有新数据到达
+     */
+    default void dataAvailable() {
+    }
+
+    /**
+     * 收到以结束符结尾的完整包
+     *
+     * @param message 包内容，包含结束符
+     */
+    default void messageReceived(byte[] message) {
+    }
+
+    /**
+     * 串口断开
+     */
+    void disconnected();
+}
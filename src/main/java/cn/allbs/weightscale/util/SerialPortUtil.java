@@ -1,9 +1,12 @@
 package cn.allbs.weightscale.util;
 
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.codec.WeightReading;
 import cn.allbs.weightscale.exception.BhudyException;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -16,6 +19,20 @@ import java.util.Arrays;
 @UtilityClass
 public class SerialPortUtil {
 
+    /**
+     * 连续发送方式的帧长度
+     */
+    private static final int FRAME_LENGTH = FrameDecoder.CONTINUOUS_FRAME_LENGTH;
+
+    /**
+     * 十六进制字符表
+     */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final ByteAccessor<byte[]> ARRAY_ACCESSOR = (data, index) -> data[index];
+
+    private static final ByteAccessor<ByteBuffer> BUFFER_ACCESSOR = ByteBuffer::get;
+
     /**
      * 十六进制数的字符串转换为对应的字节数组
      *
@@ -51,12 +68,32 @@ public class SerialPortUtil {
      * @return 十六进制字符串
      */
     public static String byteArrayToHexString(byte[] byteArray) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : byteArray) {
-            hexString.append(String.format("%02X ", b));
+        return toHexString(byteArray, 0, byteArray.length);
+    }
+
+    /**
+     * 查表把字节转换为以空格分隔的十六进制字符串
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     * @return 十六进制字符串，如 "02 2B 30"
+     */
+    public static String toHexString(byte[] data, int off, int len) {
+        if (len <= 0) {
+            return "";
         }
-        // 去掉最后一个空格
-        return hexString.toString().trim();
+        char[] chars = new char[len * 3 - 1];
+        for (int i = 0; i < len; i++) {
+            int b = data[off + i];
+            int pos = i * 3;
+            chars[pos] = HEX_DIGITS[(b >> 4) & 0x0F];
+            chars[pos + 1] = HEX_DIGITS[b & 0x0F];
+            if (i < len - 1) {
+                chars[pos + 2] = ' ';
+            }
+        }
+        return new String(chars);
     }
 
     /**
@@ -66,69 +103,146 @@ public class SerialPortUtil {
      * @return 重量
      */
     public static String parseWeightData(byte[] data) {
-        if (data.length < 12) {
-            throw new BhudyException("串口未接收到数据或者数据长度不够，返回数据内容为" + Arrays.toString(data));
-        }
-        if (data[0] != 0x02 || data[data.length - 1] != 0x03) {
-            throw new IllegalArgumentException("Invalid data format");
+        WeightReading reading = new WeightReading();
+        int status = data == null ? WeightReading.TOO_SHORT : decodeWeight(data, 0, data.length, reading);
+        switch (status) {
+            case WeightReading.TOO_SHORT ->
+                    throw new BhudyException("串口未接收到数据或者数据长度不够，返回数据内容为" + Arrays.toString(data));
+            case WeightReading.BAD_FRAMING -> throw new IllegalArgumentException("Invalid data format");
+            case WeightReading.MALFORMED -> throw new IllegalArgumentException("Invalid payload length for weight data");
+            case WeightReading.BAD_CHECKSUM -> {
+                int len = data.length;
+                byte calculatedXor = calculateXorChecksum(data, 1, len - 4);
+                log.info("校验失败，报文中高四位{},低四位{};主动校验后的高四位:{},低四位{};", data[len - 3], data[len - 2],
+                        toAsciiHex((calculatedXor >> 4) & 0x0F), toAsciiHex(calculatedXor & 0x0F));
+            }
+            default -> {
+            }
         }
+        return formatWeight(reading.getValue(), reading.getScale());
+    }
 
-        byte[] payload = Arrays.copyOfRange(data, 1, data.length - 3);
-        byte xorHigh = data[data.length - 3];
-        byte xorLow = data[data.length - 2];
-        byte end = data[data.length - 1];
+    /**
+     * 无对象分配地解析一帧重量数据
+     * </p>
+     * 连续发送方式：STX + 符号 + 6位数字 + 小数位数 + 异或校验高四位 + 异或校验低四位 + ETX，共12字节；
+     * 指令应答方式的应答在符号前多了地址和命令两个字节，共14字节。异或校验覆盖STX之后、校验位之前的所有字节。
+     *
+     * @param data 数据
+     * @param off  帧起始位置
+     * @param len  帧长度
+     * @param out  解析结果
+     * @return 状态码，见 {@link WeightReading}
+     */
+    public static int decodeWeight(byte[] data, int off, int len, WeightReading out) {
+        return decodeWeight(data, ARRAY_ACCESSOR, off, len, out);
+    }
 
-        // 校验异或
-        byte calculatedXor = 0;
-        for (int i = 1; i < data.length - 3; i++) { // 从第2位到异或校验前一位
-            calculatedXor ^= data[i];
+    /**
+     * 无对象分配地解析 {@link ByteBuffer} 中 position 到 limit 之间的一帧重量数据，不改变 position
+     *
+     * @param buffer 数据
+     * @param out    解析结果
+     * @return 状态码，见 {@link WeightReading}
+     */
+    public static int decodeWeight(ByteBuffer buffer, WeightReading out) {
+        int off = buffer.position();
+        int len = buffer.remaining();
+        if (buffer.hasArray()) {
+            return decodeWeight(buffer.array(), ARRAY_ACCESSOR, buffer.arrayOffset() + off, len, out);
         }
+        return decodeWeight(buffer, BUFFER_ACCESSOR, off, len, out);
+    }
 
-        byte expectedXorHigh = (byte) ((calculatedXor >> 4) & 0x0F);
-        byte expectedXorLow = (byte) (calculatedXor & 0x0F);
-
-        // Convert XOR values to ASCII
-        expectedXorHigh += (byte) ((expectedXorHigh <= 9) ? 0x30 : 0x37);
-        expectedXorLow += (byte) ((expectedXorLow <= 9) ? 0x30 : 0x37);
-
-        if (expectedXorHigh != xorHigh || expectedXorLow != xorLow) {
-            log.info("校验失败，报文中高四位{},低四位{};主动校验后的高四位:{},低四位{};", xorHigh, xorLow, expectedXorHigh, expectedXorLow);
+    private static <T> int decodeWeight(T source, ByteAccessor<T> accessor, int off, int len, WeightReading out) {
+        if (len < FRAME_LENGTH) {
+            out.setStatus(WeightReading.TOO_SHORT);
+            return WeightReading.TOO_SHORT;
         }
-
-        return parseWeight(payload);
+        if (accessor.get(source, off) != FrameDecoder.STX || accessor.get(source, off + len - 1) != FrameDecoder.ETX) {
+            out.setStatus(WeightReading.BAD_FRAMING);
+            return WeightReading.BAD_FRAMING;
+        }
+        int payload = off + 1 + weightOffset(accessor.get(source, off + 1), len);
+        if (payload < 0) {
+            out.setStatus(WeightReading.MALFORMED);
+            return WeightReading.MALFORMED;
+        }
+        byte sign = accessor.get(source, payload);
+        int scale = accessor.get(source, payload + 7) - '0';
+        if ((sign != '+' && sign != '-' && sign != ' ') || scale < 0 || scale > 5) {
+            out.setStatus(WeightReading.MALFORMED);
+            return WeightReading.MALFORMED;
+        }
+        long value = 0;
+        for (int i = payload + 1; i < payload + 7; i++) {
+            byte b = accessor.get(source, i);
+            int digit = b == ' ' ? 0 : b - '0';
+            if (digit < 0 || digit > 9) {
+                out.setStatus(WeightReading.MALFORMED);
+                return WeightReading.MALFORMED;
+            }
+            value = value * 10 + digit;
+        }
+        byte xor = 0;
+        for (int i = off + 1; i < off + len - 3; i++) {
+            xor ^= accessor.get(source, i);
+        }
+        int status = accessor.get(source, off + len - 3) == toAsciiHex((xor >> 4) & 0x0F)
+                && accessor.get(source, off + len - 2) == toAsciiHex(xor & 0x0F) ? WeightReading.OK : WeightReading.BAD_CHECKSUM;
+        out.set(sign == '-' ? -value : value, scale, status);
+        return status;
     }
 
     /**
-     * 解析重量数据
+     * 重量数据相对STX之后第一个字节的偏移
      *
-     * @param payload 数据
-     * @return 重量
+     * @param first STX之后的第一个字节
+     * @param len   帧长度
+     * @return 偏移，帧长度与格式不符时返回一个足够小的负数
      */
-    private static String parseWeight(byte[] payload) {
-        if (payload.length != 8) {
-            throw new IllegalArgumentException("Invalid payload length for weight data");
+    private static int weightOffset(byte first, int len) {
+        if (len == FRAME_LENGTH) {
+            return 0;
         }
-
-        char sign = (char) payload[0];
-        String weightValue = new String(Arrays.copyOfRange(payload, 1, 7)).trim();
-        int decimalPointPosition = payload[7] - '0';
-
-        // 插入小数点
-        StringBuilder weight = new StringBuilder(weightValue);
-        if (decimalPointPosition > 0 && decimalPointPosition < weight.length()) {
-            weight.insert(weight.length() - decimalPointPosition, '.');
+        if (len == FRAME_LENGTH + 2 && isAddress(first)) {
+            return 2;
         }
+        return Integer.MIN_VALUE / 2;
+    }
 
-        // 转换为实际数值
-        String weightString = sign + weight.toString();
+    /**
+     * 是否为地址字节（A~Z）
+     *
+     * @param b 字节
+     * @return 结果
+     */
+    public static boolean isAddress(byte b) {
+        return b >= 'A' && b <= 'Z';
+    }
 
-        // 去掉小数位为0的部分
-        double weightNumber = Double.parseDouble(weightString);
-        if (decimalPointPosition == 0) {
-            return String.valueOf((int) weightNumber); // 如果小数位为0，返回整数
-        } else {
-            return String.valueOf(weightNumber);
+    /**
+     * 定点数重量格式化，与原先的解析结果保持一致：没有小数位时返回整数，否则返回浮点数
+     *
+     * @param value 未缩放的数值
+     * @param scale 小数位数
+     * @return 重量
+     */
+    public static String formatWeight(long value, int scale) {
+        if (scale == 0) {
+            return Long.toString(value);
         }
+        return String.valueOf((double) value / WeightReading.pow10(scale));
+    }
+
+    /**
+     * 半字节转为ASCII形式的十六进制字符
+     *
+     * @param nibble 0~15
+     * @return ASCII字符
+     */
+    public static byte toAsciiHex(int nibble) {
+        return (byte) (nibble + (nibble <= 9 ? 0x30 : 0x37));
     }
 
     /**
@@ -145,6 +259,22 @@ public class SerialPortUtil {
         return xor;
     }
 
+    /**
+     * 计算数组中一段数据的异或校验和
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     * @return 校验和
+     */
+    public static byte calculateXorChecksum(byte[] data, int off, int len) {
+        byte xor = 0;
+        for (int i = off; i < off + len; i++) {
+            xor ^= data[i];
+        }
+        return xor;
+    }
+
     /**
      * 生成指令
      *
@@ -184,4 +314,12 @@ public class SerialPortUtil {
         String result = parseWeightData(data);
         System.out.println(result);
     }
+
+    /**
+     * 按下标读取字节，数组和 {@link ByteBuffer} 共用同一份解析逻辑
+     */
+    private interface ByteAccessor<T> {
+
+        byte get(T source, int index);
+    }
 }
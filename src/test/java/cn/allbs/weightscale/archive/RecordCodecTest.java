@@ -0,0 +1,104 @@
+package cn.allbs.weightscale.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordCodecTest {
+
+	@Test
+	void bitBufferRoundTripsUnalignedWrites() {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		BitBuffer out = new BitBuffer().reset(buffer, 3, 0);
+		out.writeBit(true);
+		out.writeBits(0b101, 3);
+		out.writeBits(-1L, 64);
+		out.writeBits(0x1234, 13);
+		out.writeBits(Long.MIN_VALUE, 64);
+		assertEquals(1 + 3 + 64 + 13 + 64, out.position());
+
+		BitBuffer in = new BitBuffer().reset(buffer, 3, 0);
+		assertTrue(in.readBit());
+		assertEquals(0b101, in.readBits(3));
+		assertEquals(-1L, in.readBits(64));
+		assertEquals(0x1234 & 0x1FFF, in.readBits(13));
+		assertEquals(Long.MIN_VALUE, in.readBits(64));
+		assertEquals(0, buffer.get(0));
+	}
+
+	@Test
+	void bitBufferOverwritesStaleBits() {
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		buffer.put(0, (byte) 0xFF);
+		buffer.put(1, (byte) 0xFF);
+		BitBuffer out = new BitBuffer().reset(buffer, 0, 0);
+		out.writeBits(0, 3);
+		assertEquals(0, buffer.get(0) & 0xFF);
+		out.writeBits(1, 6);
+		assertEquals(0x00, buffer.get(0) & 0xFF);
+		assertEquals(0x80, buffer.get(1) & 0xFF);
+	}
+
+	@Test
+	void roundTripsEveryTimestampAndValueBranch() {
+		long[] timestamps = {
+				1_700_000_000_000L, 1_700_000_000_100L, 1_700_000_000_200L, 1_700_000_000_264L, 1_700_000_000_264L,
+				1_700_000_000_500L, 1_700_000_002_000L, 1_700_000_002_001L, 1_700_000_900_000L, 1_700_000_900_000L
+		};
+		long[] values = {0, 0, 12000, 12010, -12010, -12010, 999999, 1, Long.MAX_VALUE / 4, Long.MIN_VALUE / 4};
+		int[] flags = {0, 0x10, 0x10, 0x12, 0x12, 0, 0x03, 0x03, 0x13, 0};
+		assertRoundTrip(timestamps, values, flags);
+	}
+
+	@Test
+	void roundTripsRandomSeries() {
+		Random random = new Random(20261017L);
+		int n = 5000;
+		long[] timestamps = new long[n];
+		long[] values = new long[n];
+		int[] flags = new int[n];
+		long ts = 1_700_000_000_000L;
+		long value = 50000;
+		for (int i = 0; i < n; i++) {
+			ts += random.nextInt(10) == 0 ? random.nextInt(100_000) : 100 + random.nextInt(5);
+			value += random.nextInt(10) == 0 ? random.nextInt(2_000_000) - 1_000_000 : random.nextInt(21) - 10;
+			timestamps[i] = ts;
+			values[i] = value;
+			flags[i] = random.nextInt(4) == 0 ? 0x12 : 0x02;
+		}
+		assertRoundTrip(timestamps, values, flags);
+	}
+
+	@Test
+	void compressesSteadyReadings() {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		BitBuffer out = new BitBuffer().reset(buffer, 0, 0);
+		RecordCodec encoder = new RecordCodec();
+		for (int i = 0; i < 100; i++) {
+			encoder.encode(out, 1_700_000_000_000L + i * 100L, 25000, 0x10);
+		}
+		// 首条不压缩，第二条时间差从0变为100占12位，之后每条3位
+		assertEquals(RecordCodec.MAX_RECORD_BITS + 12 + 1 + 1 + 98 * 3, out.position());
+	}
+
+	private static void assertRoundTrip(long[] timestamps, long[] values, int[] flags) {
+		ByteBuffer buffer = ByteBuffer.allocate(timestamps.length * RecordCodec.MAX_RECORD_BITS / 8 + 8);
+		BitBuffer out = new BitBuffer().reset(buffer, 0, 0);
+		RecordCodec encoder = new RecordCodec();
+		for (int i = 0; i < timestamps.length; i++) {
+			encoder.encode(out, timestamps[i], values[i], flags[i]);
+		}
+		BitBuffer in = new BitBuffer().reset(buffer, 0, 0);
+		RecordCodec decoder = new RecordCodec();
+		for (int i = 0; i < timestamps.length; i++) {
+			decoder.decode(in);
+			assertEquals(timestamps[i], decoder.timestamp(), "timestamp #" + i);
+			assertEquals(values[i], decoder.value(), "value #" + i);
+			assertEquals(flags[i], decoder.flags(), "flags #" + i);
+		}
+		assertEquals(out.position(), in.position());
+	}
+}
@@ -0,0 +1,129 @@
+package cn.allbs.weightscale.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightArchiveTest {
+
+	/**
+	 * 与段文件初始映射大小相同，数据区写满16KB即切换到下一个段文件
+	 */
+	private static final long SEGMENT_SIZE = ArchiveSegment.DATA_START + 16 * 1024;
+
+	private static final long DAY_START = Instant.parse("2026-10-17T00:00:00Z").toEpochMilli();
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rollsOverFullSegmentsAndScansInOrder() throws IOException {
+		List<long[]> written = new ArrayList<>();
+		try (WeightArchive archive = new WeightArchive("COM1", dir, SEGMENT_SIZE, ZoneOffset.UTC)) {
+			append(archive, written, DAY_START, 6000, new Random(1));
+		}
+		assertTrue(segmentFiles().size() > 1, "expected more than one segment: " + segmentFiles());
+
+		try (WeightArchive archive = new WeightArchive("COM1", dir, SEGMENT_SIZE, ZoneOffset.UTC)) {
+			assertRecords(written, scan(archive, 0, Long.MAX_VALUE));
+
+			long from = written.get(1000)[0];
+			long to = written.get(4999)[0];
+			List<long[]> range = scan(archive, from, to);
+			assertEquals(4000, range.size());
+			assertArrayEquals(written.get(1000), range.get(0));
+			assertArrayEquals(written.get(4999), range.get(range.size() - 1));
+		}
+	}
+
+	@Test
+	void continuesExistingSegmentAfterReopen() throws IOException {
+		List<long[]> written = new ArrayList<>();
+		Random random = new Random(2);
+		try (WeightArchive archive = new WeightArchive("COM1", dir, SEGMENT_SIZE, ZoneOffset.UTC)) {
+			append(archive, written, DAY_START, 300, random);
+		}
+		try (WeightArchive archive = new WeightArchive("COM1", dir, SEGMENT_SIZE, ZoneOffset.UTC)) {
+			append(archive, written, written.get(written.size() - 1)[0] + 100, 300, random);
+			assertRecords(written, scan(archive, 0, Long.MAX_VALUE));
+		}
+		assertEquals(List.of("20261017-0.wsts"), segmentFiles());
+	}
+
+	@Test
+	void startsNewSegmentOnNextDay() throws IOException {
+		try (WeightArchive archive = new WeightArchive("COM1", dir, SEGMENT_SIZE, ZoneOffset.UTC)) {
+			archive.append(DAY_START + 1000, 100, 0, false);
+			archive.append(DAY_START + 86_400_000L + 1000, 200, 1, true);
+			List<long[]> records = scan(archive, DAY_START, DAY_START + 2 * 86_400_000L);
+			assertEquals(2, records.size());
+			assertEquals(200, records.get(1)[1]);
+			assertEquals(1, WeightArchive.scaleOf((int) records.get(1)[2]));
+			assertTrue(WeightArchive.isStable((int) records.get(1)[2]));
+		}
+		assertEquals(List.of("20261017-0.wsts", "20261018-0.wsts"), segmentFiles());
+	}
+
+	@Test
+	void stopsScanWhenVisitorDeclines() throws IOException {
+		try (WeightArchive archive = new WeightArchive("COM1", dir, SEGMENT_SIZE, ZoneOffset.UTC)) {
+			append(archive, new ArrayList<>(), DAY_START, 6000, new Random(3));
+			int[] visited = new int[1];
+			archive.scan(0, Long.MAX_VALUE, (timestamp, value, flags) -> ++visited[0] < 10);
+			assertEquals(10, visited[0]);
+		}
+	}
+
+	@Test
+	void ignoresAppendAfterClose() throws IOException {
+		WeightArchive archive = new WeightArchive("COM1", dir, SEGMENT_SIZE, ZoneOffset.UTC);
+		archive.append(DAY_START, 100, 0, false);
+		archive.close();
+		archive.append(DAY_START + 1000, 200, 0, false);
+		assertEquals(1, scan(archive, 0, Long.MAX_VALUE).size());
+	}
+
+	private static void append(WeightArchive archive, List<long[]> written, long start, int count, Random random) {
+		long ts = start;
+		long value = 0;
+		for (int i = 0; i < count; i++) {
+			ts += 90 + random.nextInt(20);
+			// 大幅跳变使记录难以压缩，尽快写满段文件
+			value = random.nextInt(4) == 0 ? random.nextInt(1_000_000) : value + random.nextInt(11) - 5;
+			int scale = random.nextInt(3);
+			boolean stable = random.nextBoolean();
+			archive.append(ts, value, scale, stable);
+			written.add(new long[]{ts, value, scale | (stable ? 0x10 : 0)});
+		}
+	}
+
+	private static List<long[]> scan(WeightArchive archive, long from, long to) throws IOException {
+		List<long[]> records = new ArrayList<>();
+		archive.scan(from, to, (timestamp, value, flags) -> records.add(new long[]{timestamp, value, flags}));
+		return records;
+	}
+
+	private static void assertRecords(List<long[]> expected, List<long[]> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(expected.get(i), actual.get(i), "record #" + i);
+		}
+	}
+
+	private List<String> segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.map(file -> file.getFileName().toString()).sorted().toList();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package cn.allbs.weightscale.codec;
+
+import cn.allbs.weightscale.transport.SimulatedScaleTransport;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameDecoderTest {
+
+	@Test
+	void decodesFramesSplitAcrossReads() {
+		FrameDecoder decoder = new FrameDecoder();
+		byte[] data = concat(SimulatedScaleTransport.continuousFrame(1200), SimulatedScaleTransport.continuousFrame(1300));
+		decoder.feed(data, 0, 5);
+		assertFalse(decoder.next());
+		assertEquals(5, decoder.buffered());
+		decoder.feed(data, 5, data.length - 5);
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(1200));
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(1300));
+		assertFalse(decoder.next());
+		assertEquals(0, decoder.buffered());
+		assertEquals(2, decoder.getFramesDecoded());
+	}
+
+	@Test
+	void resyncsAfterLeadingGarbage() {
+		FrameDecoder decoder = new FrameDecoder();
+		feed(decoder, new byte[]{'1', '2', FrameDecoder.ETX, 0x7F}, SimulatedScaleTransport.continuousFrame(500));
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(500));
+		assertEquals(4, decoder.getResyncBytes());
+		assertEquals(0, decoder.getChecksumFailures());
+	}
+
+	@Test
+	void dropsFrameWithMissingByte() {
+		FrameDecoder decoder = new FrameDecoder();
+		byte[] broken = SimulatedScaleTransport.continuousFrame(1234);
+		byte[] dropped = concat(Arrays.copyOf(broken, 4), Arrays.copyOfRange(broken, 5, broken.length));
+		feed(decoder, dropped, SimulatedScaleTransport.continuousFrame(1250));
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(1250));
+		assertEquals(1, decoder.getChecksumFailures());
+		assertFalse(decoder.next());
+	}
+
+	@Test
+	void resyncsWhenEndOfFrameIsLost() {
+		FrameDecoder decoder = new FrameDecoder();
+		byte[] truncated = Arrays.copyOf(SimulatedScaleTransport.continuousFrame(800), 7);
+		feed(decoder, truncated, SimulatedScaleTransport.continuousFrame(900));
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(900));
+		assertEquals(truncated.length, decoder.getResyncBytes());
+	}
+
+	@Test
+	void rejectsCorruptedChecksum() {
+		FrameDecoder decoder = new FrameDecoder();
+		byte[] corrupted = SimulatedScaleTransport.continuousFrame(1000);
+		corrupted[corrupted.length - 2] ^= 0x01;
+		feed(decoder, corrupted, SimulatedScaleTransport.continuousFrame(1010));
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(1010));
+		assertEquals(1, decoder.getChecksumFailures());
+		assertEquals(1, decoder.getFramesDecoded());
+	}
+
+	@Test
+	void discardsRunsLongerThanMaxFrameLength() {
+		FrameDecoder decoder = new FrameDecoder(256, 16);
+		byte[] noise = new byte[40];
+		Arrays.fill(noise, (byte) '5');
+		noise[0] = FrameDecoder.STX;
+		feed(decoder, noise, SimulatedScaleTransport.continuousFrame(42));
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(42));
+		assertEquals(noise.length, decoder.getResyncBytes());
+	}
+
+	@Test
+	void waitsForMoreBytesBelowMaxFrameLength() {
+		FrameDecoder decoder = new FrameDecoder(256, 16);
+		byte[] partial = new byte[10];
+		Arrays.fill(partial, (byte) '5');
+		partial[0] = FrameDecoder.STX;
+		decoder.feed(partial, 0, partial.length);
+		assertFalse(decoder.next());
+		assertEquals(partial.length, decoder.buffered());
+		assertEquals(0, decoder.getResyncBytes());
+	}
+
+	@Test
+	void latestKeepsNewestFrame() {
+		FrameDecoder decoder = new FrameDecoder();
+		feed(decoder, SimulatedScaleTransport.continuousFrame(1), SimulatedScaleTransport.continuousFrame(2),
+				SimulatedScaleTransport.continuousFrame(3));
+		assertTrue(decoder.latest());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(3));
+		assertEquals(2, decoder.skipped());
+		assertFalse(decoder.latest());
+	}
+
+	@Test
+	void decodesResponseFrames() {
+		FrameDecoder decoder = new FrameDecoder();
+		byte[] response = SimulatedScaleTransport.responseFrame((byte) 'A', (byte) 'B', 15000);
+		feed(decoder, response);
+		assertTrue(decoder.next());
+		assertEquals(FrameDecoder.RESPONSE_FRAME_LENGTH, decoder.frameLength());
+		assertFrame(decoder, response);
+	}
+
+	@Test
+	void countsOverflowWhenBufferIsFull() {
+		FrameDecoder decoder = new FrameDecoder(16, 16);
+		feed(decoder, SimulatedScaleTransport.continuousFrame(1), SimulatedScaleTransport.continuousFrame(2));
+		assertEquals(2 * FrameDecoder.CONTINUOUS_FRAME_LENGTH - 16, decoder.getOverflowBytes());
+		assertTrue(decoder.next());
+		assertFrame(decoder, SimulatedScaleTransport.continuousFrame(2));
+	}
+
+	private static void feed(FrameDecoder decoder, byte[]... chunks) {
+		byte[] data = concat(chunks);
+		decoder.feed(data, 0, data.length);
+	}
+
+	private static byte[] concat(byte[]... chunks) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] chunk : chunks) {
+			out.writeBytes(chunk);
+		}
+		return out.toByteArray();
+	}
+
+	private static void assertFrame(FrameDecoder decoder, byte[] expected) {
+		assertArrayEquals(expected, Arrays.copyOf(decoder.frame(), decoder.frameLength()));
+	}
+}
@@ -0,0 +1,204 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.config.SimulatorSettings;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.transport.SimulatedScaleTransport;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandExecutorTest {
+
+	private final Semaphore ioPermit = new Semaphore(1);
+
+	private ScheduledExecutorService scheduler;
+
+	private PortReactor reactor;
+
+	private SimulatorSettings simulator;
+
+	private PortSettings.Command command;
+
+	private SimulatedScaleTransport transport;
+
+	private CommandExecutor executor;
+
+	@BeforeEach
+	void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		reactor = new PortReactor("test-reactor");
+		simulator = new SimulatorSettings();
+		simulator.setContinuous(false);
+		simulator.setAddresses(List.of("A", "B", "C"));
+		simulator.setProfile("constant");
+		simulator.setNoise(0);
+		simulator.setResponseLatency(5);
+		command = new PortSettings.Command();
+		command.setTimeout(300);
+		command.setResponseTimeout(200);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (executor != null) {
+			executor.stop();
+		}
+		if (transport != null) {
+			transport.close();
+		}
+		reactor.stop();
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void acceptsEchoedResponse() {
+		start();
+		byte[] response = executor.execute(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH);
+		assertEquals(FrameDecoder.RESPONSE_FRAME_LENGTH, response.length);
+		assertEquals('A', response[1]);
+		assertEquals('B', response[2]);
+		assertEquals("30000", SerialPortUtil.parseWeightData(response));
+		assertEquals(0, executor.getFailures());
+	}
+
+	@Test
+	void acceptsResponseWithoutEcho() {
+		simulator.setEcho(false);
+		command.setEcho(false);
+		start();
+		byte[] handshake = executor.execute(SerialPortUtil.generateCommand("A", 'A'), CommandExecutor.PRIORITY_HIGH);
+		assertEquals(FrameDecoder.CONTINUOUS_FRAME_LENGTH, handshake.length);
+		byte[] response = executor.execute(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH);
+		assertEquals(FrameDecoder.CONTINUOUS_FRAME_LENGTH, response.length);
+		assertEquals("30000", SerialPortUtil.parseWeightData(response));
+		assertEquals(0, executor.getFailures());
+	}
+
+	@Test
+	void ignoresUnechoedFrameWhenEchoExpected() {
+		simulator.setEcho(false);
+		start();
+		assertThrows(BhudyException.class,
+				() -> executor.execute(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH));
+		assertEquals(1, executor.getFailures());
+	}
+
+	@Test
+	void skipsResponseForAnotherAddress() throws Exception {
+		start();
+		// 总线上其他主站发给地址B的指令，B的应答先于A到达
+		byte[] other = SerialPortUtil.generateCommand("B", 'B');
+		transport.write(other, 0, other.length);
+		byte[] response = executor.submit(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH)
+				.get(1, TimeUnit.SECONDS);
+		assertEquals('A', response[1]);
+		assertEquals(0, executor.getFailures());
+	}
+
+	@Test
+	void failsAndReleasesPortWhenAddressDoesNotAnswer() {
+		start();
+		BhudyException error = assertThrows(BhudyException.class,
+				() -> executor.execute(SerialPortUtil.generateCommand("Z", 'B'), CommandExecutor.PRIORITY_HIGH));
+		assertTrue(error.getMessage().contains("应答超时"), error.getMessage());
+		assertEquals(1, executor.getFailures());
+		assertEquals(1, ioPermit.availablePermits());
+		byte[] response = executor.execute(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH);
+		assertEquals('A', response[1]);
+		assertEquals(1, executor.getFailures());
+	}
+
+	@Test
+	void failsIncompleteResponseAfterInterByteTimeout() {
+		simulator.setPartialRate(1);
+		command.setInterByteTimeout(20);
+		start();
+		BhudyException error = assertThrows(BhudyException.class,
+				() -> executor.execute(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH));
+		assertTrue(error.getMessage().contains("应答不完整"), error.getMessage());
+		assertEquals(1, executor.getFailures());
+	}
+
+	@Test
+	void runsHigherPriorityFirstThenInSubmitOrder() throws Exception {
+		start();
+		// 持有读写许可，指令只能排队
+		ioPermit.acquire();
+		List<Character> order = Collections.synchronizedList(new ArrayList<>());
+		List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+		futures.add(submit("A", CommandExecutor.PRIORITY_LOW, order));
+		futures.add(submit("B", CommandExecutor.PRIORITY_LOW, order));
+		futures.add(submit("C", CommandExecutor.PRIORITY_HIGH, order));
+		Thread.sleep(50);
+		assertEquals(3, executor.getQueueSize());
+		ioPermit.release();
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(2, TimeUnit.SECONDS);
+		assertEquals(List.of('C', 'A', 'B'), order);
+	}
+
+	@Test
+	void expiresCommandsWaitingInQueue() throws Exception {
+		start();
+		ioPermit.acquire();
+		CompletableFuture<byte[]> future = executor.submit(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH);
+		Thread.sleep(command.getTimeout() + 50);
+		ioPermit.release();
+		ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+		assertTrue(error.getCause().getMessage().contains("排队超时"), error.getCause().getMessage());
+		assertEquals(1, executor.getFailures());
+	}
+
+	@Test
+	void backsOffPollingWhileWaitingForResponse() {
+		simulator.setResponseLatency(40);
+		start();
+		executor.execute(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH);
+		long before = reactor.getTasksRun();
+		executor.execute(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH);
+		long tasks = reactor.getTasksRun() - before;
+		// 读取间隔按1、2、4、8毫秒递增，40毫秒的应答约读取十次，固定1毫秒间隔时约四十次
+		assertTrue(tasks < 20, "reactor tasks: " + tasks);
+		assertTrue(executor.getLastRoundTripMicros() >= TimeUnit.MILLISECONDS.toMicros(40));
+	}
+
+	@Test
+	void failsQueuedCommandsOnStop() throws Exception {
+		start();
+		ioPermit.acquire();
+		CompletableFuture<byte[]> future = executor.submit(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH);
+		executor.stop();
+		ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+		assertInstanceOf(BhudyException.class, error.getCause());
+		assertTrue(executor.submit(SerialPortUtil.generateCommand("A", 'B'), CommandExecutor.PRIORITY_HIGH)
+				.isCompletedExceptionally());
+		ioPermit.release();
+	}
+
+	private CompletableFuture<byte[]> submit(String address, int priority, List<Character> order) {
+		return executor.submit(SerialPortUtil.generateCommand(address, 'B'), priority)
+				.whenComplete((response, error) -> order.add((char) response[1]));
+	}
+
+	private void start() {
+		transport = new SimulatedScaleTransport("SIM1", 0, simulator, scheduler);
+		transport.open();
+		executor = new CommandExecutor(transport, "SIM1", reactor, ioPermit, command,
+				new SimpleMeterRegistry().timer("scale.command.round-trip"));
+	}
+}
@@ -0,0 +1,136 @@
+package cn.allbs.weightscale.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortReactorTest {
+
+	private final PortReactor reactor = new PortReactor("test-reactor");
+
+	@AfterEach
+	void tearDown() {
+		reactor.stop();
+	}
+
+	@Test
+	void runsTimersByDeadlineThenScheduleOrder() throws InterruptedException {
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(5);
+		reactor.execute(() -> {
+			assertTrue(reactor.inLoop());
+			schedule(order, done, "30", 30);
+			schedule(order, done, "10a", 10);
+			schedule(order, done, "0", 0);
+			schedule(order, done, "10b", 10);
+			schedule(order, done, "20", 20);
+		});
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+		assertEquals(List.of("0", "10a", "10b", "20", "30"), order);
+	}
+
+	@Test
+	void firesTimerNoEarlierThanItsDelay() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		long[] firedAt = new long[1];
+		long start = System.nanoTime();
+		reactor.schedule(() -> {
+			firedAt[0] = System.nanoTime();
+			done.countDown();
+		}, 50);
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+		assertTrue(firedAt[0] - start >= TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	@Test
+	void skipsCancelledTimer() throws InterruptedException {
+		AtomicBoolean cancelledRan = new AtomicBoolean();
+		CountDownLatch done = new CountDownLatch(1);
+		PortReactor.Timeout timeout = reactor.schedule(() -> cancelledRan.set(true), 20);
+		reactor.schedule(done::countDown, 40);
+		timeout.cancel();
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+		assertFalse(cancelledRan.get());
+	}
+
+	@Test
+	void wakesUpForTaskSubmittedFromAnotherThread() throws InterruptedException {
+		// 没有任务和定时器时循环线程无限期挂起，不空转
+		Thread.sleep(50);
+		long loops = reactor.getLoops();
+		Thread.sleep(100);
+		assertEquals(loops, reactor.getLoops());
+
+		for (int i = 0; i < 100; i++) {
+			CountDownLatch done = new CountDownLatch(1);
+			reactor.execute(done::countDown);
+			assertTrue(done.await(100, TimeUnit.MILLISECONDS), "task #" + i + " not run");
+		}
+	}
+
+	@Test
+	void wakesUpEarlierForNewTimerWhileWaitingOnLaterOne() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		reactor.schedule(() -> {
+		}, 10_000);
+		Thread.sleep(20);
+		long start = System.nanoTime();
+		reactor.schedule(done::countDown, 10);
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+	@Test
+	void keepsRunningAfterTaskThrows() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		reactor.execute(() -> {
+			throw new IllegalStateException("boom");
+		});
+		reactor.execute(done::countDown);
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void dropsPendingTasksAndTimersOnStop() throws InterruptedException {
+		AtomicBoolean timerRan = new AtomicBoolean();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch stopped = new CountDownLatch(1);
+		reactor.schedule(() -> timerRan.set(true), 50);
+		reactor.execute(() -> {
+			started.countDown();
+			try {
+				stopped.await(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+		AtomicBoolean taskRan = new AtomicBoolean();
+		reactor.execute(() -> taskRan.set(true));
+		reactor.stop();
+		stopped.countDown();
+		Thread.sleep(100);
+		assertFalse(taskRan.get());
+		assertFalse(timerRan.get());
+		long loops = reactor.getLoops();
+		reactor.execute(() -> taskRan.set(true));
+		Thread.sleep(50);
+		assertFalse(taskRan.get());
+		assertEquals(loops, reactor.getLoops());
+	}
+
+	private void schedule(List<String> order, CountDownLatch done, String name, long delayMs) {
+		reactor.schedule(() -> {
+			order.add(name);
+			done.countDown();
+		}, delayMs);
+	}
+}
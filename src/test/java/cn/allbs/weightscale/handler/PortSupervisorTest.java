@@ -0,0 +1,258 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.enums.PortState;
+import cn.allbs.weightscale.transport.SerialTransport;
+import cn.allbs.weightscale.transport.TransportListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortSupervisorTest {
+
+	/**
+	 * 定时误差的上限（毫秒）
+	 */
+	private static final long SLACK_MS = 150;
+
+	private final PortReactor reactor = new PortReactor("test-reactor");
+
+	private final ExecutorService blocking = Executors.newSingleThreadExecutor();
+
+	private final FakeTransport transport = new FakeTransport();
+
+	private final AtomicInteger opened = new AtomicInteger();
+
+	private PortSettings.Reconnect settings;
+
+	private PortSupervisor supervisor;
+
+	@BeforeEach
+	void setUp() {
+		settings = new PortSettings.Reconnect();
+		settings.setInitialBackoff(20);
+		settings.setMaxBackoff(100);
+		settings.setJitter(0);
+		settings.setFailAfter(3);
+		settings.setScanInterval(0);
+		supervisor = new PortSupervisor(transport, "COM3", reactor, blocking, settings, opened::incrementAndGet);
+	}
+
+	@AfterEach
+	void tearDown() {
+		supervisor.stop();
+		// 放行仍在等待结果的打开调用
+		transport.results.offer(false);
+		reactor.stop();
+		blocking.shutdownNow();
+	}
+
+	@Test
+	void retriesWithExponentialBackoffUntilFailed() {
+		supervisor.start();
+		awaitOpenCalls(1);
+		assertEquals(PortState.OPENING, supervisor.getState());
+
+		// 第n次失败后等待 initialBackoff * 2^n，不超过maxBackoff
+		long[] expected = {40, 80, 100};
+		PortState[] states = {PortState.CLOSED, PortState.CLOSED, PortState.FAILED};
+		for (int i = 0; i < expected.length; i++) {
+			long failedAt = System.nanoTime();
+			transport.results.offer(false);
+			awaitState(states[i]);
+			awaitOpenCalls(i + 2);
+			long waited = TimeUnit.NANOSECONDS.toMillis(transport.openCalls.get(i + 1) - failedAt);
+			assertTrue(waited >= expected[i] && waited < expected[i] + SLACK_MS, "retry #" + (i + 1) + " after " + waited + "ms");
+			assertEquals(PortState.OPENING, supervisor.getState());
+		}
+		assertEquals(3, supervisor.getFailures());
+		// 第一次之后的每次尝试都重新枚举设备
+		assertEquals(3, transport.relocates.get());
+
+		transport.results.offer(true);
+		awaitState(PortState.OPEN);
+		assertEquals(1, opened.get());
+		assertEquals(4, supervisor.getAttempts());
+		assertEquals(3, supervisor.getFailures());
+	}
+
+	@Test
+	void reopensAfterDisconnectWithFreshBackoff() {
+		supervisor.start();
+		awaitOpenCalls(1);
+		transport.results.offer(false);
+		awaitOpenCalls(2);
+		transport.results.offer(true);
+		awaitState(PortState.OPEN);
+
+		transport.open = false;
+		long disconnectedAt = System.nanoTime();
+		supervisor.disconnected();
+		awaitOpenCalls(3);
+		assertEquals(1, transport.closes.get());
+		long waited = TimeUnit.NANOSECONDS.toMillis(transport.openCalls.get(2) - disconnectedAt);
+		assertTrue(waited >= 20 && waited < 20 + SLACK_MS, "reopened after " + waited + "ms");
+		transport.results.offer(true);
+		awaitState(PortState.OPEN);
+		assertEquals(2, opened.get());
+		// 断开后第一次打开不重新枚举设备
+		assertEquals(1, transport.relocates.get());
+	}
+
+	@Test
+	void detectsClosedPortWithoutDisconnectEvent() {
+		supervisor.start();
+		awaitOpenCalls(1);
+		transport.results.offer(true);
+		awaitState(PortState.OPEN);
+		transport.open = false;
+		awaitOpenCalls(2);
+		assertEquals(1, transport.closes.get());
+	}
+
+	@Test
+	void closesPortOpenedAfterStop() {
+		supervisor.start();
+		awaitOpenCalls(1);
+		supervisor.stop();
+		transport.results.offer(true);
+		await().atMost(Duration.ofSeconds(2)).until(() -> transport.closes.get() == 1);
+		assertEquals(PortState.CLOSED, supervisor.getState());
+		assertEquals(0, opened.get());
+	}
+
+	@Test
+	void spreadsRetriesWithJitter() {
+		settings.setInitialBackoff(1000);
+		settings.setMaxBackoff(30000);
+		settings.setJitter(0.2);
+		Set<Long> delays = new HashSet<>();
+		for (int i = 0; i < 200; i++) {
+			long delay = ReflectionTestUtils.invokeMethod(supervisor, "backoff", 0);
+			assertTrue(delay >= 800 && delay <= 1200, "delay " + delay);
+			delays.add(delay);
+			long capped = ReflectionTestUtils.invokeMethod(supervisor, "backoff", 40);
+			assertTrue(capped >= 24000 && capped <= 36000, "capped delay " + capped);
+		}
+		assertTrue(delays.size() > 50, "distinct delays: " + delays.size());
+	}
+
+	private void awaitOpenCalls(int count) {
+		await().atMost(Duration.ofSeconds(2)).until(() -> transport.openCalls.size() >= count);
+	}
+
+	private void awaitState(PortState state) {
+		// 失败后的状态只保持到下一次尝试，按1毫秒检查
+		await().pollInterval(Duration.ofMillis(1)).atMost(Duration.ofSeconds(2)).until(() -> supervisor.getState() == state);
+	}
+
+	/**
+	 * 打开结果由测试逐次给出的传输层，open() 阻塞到取得下一个结果
+	 */
+	private static class FakeTransport implements SerialTransport {
+
+		private final BlockingQueue<Boolean> results = new LinkedBlockingQueue<>();
+
+		/**
+		 * 每次调用 open() 的时间（纳秒）
+		 */
+		private final List<Long> openCalls = new CopyOnWriteArrayList<>();
+
+		private final AtomicInteger closes = new AtomicInteger();
+
+		private final AtomicInteger relocates = new AtomicInteger();
+
+		private volatile boolean open;
+
+		@Override
+		public String getName() {
+			return "COM3";
+		}
+
+		@Override
+		public String getDescription() {
+			return "fake";
+		}
+
+		@Override
+		public boolean open() {
+			openCalls.add(System.nanoTime());
+			try {
+				Boolean result = results.poll(5, TimeUnit.SECONDS);
+				open = result != null && result;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				open = false;
+			}
+			return open;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public boolean relocate() {
+			relocates.incrementAndGet();
+			return false;
+		}
+
+		@Override
+		public boolean close() {
+			closes.incrementAndGet();
+			open = false;
+			return true;
+		}
+
+		@Override
+		public int bytesAvailable() {
+			return 0;
+		}
+
+		@Override
+		public int read(byte[] buffer, int off, int len) {
+			return 0;
+		}
+
+		@Override
+		public int read(byte[] buffer, int off, int len, int timeoutMs) {
+			return 0;
+		}
+
+		@Override
+		public int write(byte[] data, int off, int len) {
+			return len;
+		}
+
+		@Override
+		public boolean addDataListener(TransportListener listener) {
+			return false;
+		}
+
+		@Override
+		public boolean addMessageListener(TransportListener listener, byte delimiter) {
+			return false;
+		}
+
+		@Override
+		public void removeDataListener() {
+		}
+	}
+}
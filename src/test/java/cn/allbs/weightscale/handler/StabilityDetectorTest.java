@@ -0,0 +1,100 @@
+package cn.allbs.weightscale.handler;
+
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.enums.WeightEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StabilityDetectorTest {
+
+	private StabilityDetector detector;
+
+	@BeforeEach
+	void setUp() {
+		PortSettings.Stability settings = new PortSettings.Stability();
+		settings.setWindow(3);
+		settings.setTolerance(BigDecimal.TEN);
+		settings.setEmptyThreshold(BigDecimal.valueOf(200));
+		detector = new StabilityDetector(settings);
+	}
+
+	@Test
+	void emitsLoadedStableUnloaded() {
+		assertNull(accept(0, 0));
+		assertEquals(WeightEventType.LOADED, accept(1000, 0));
+		assertNull(accept(1002, 0));
+		assertFalse(detector.isStable());
+		assertEquals(WeightEventType.STABLE, accept(998, 0));
+		assertTrue(detector.isStable());
+		assertEquals(1000, detector.getStableValue());
+		assertNull(accept(1001, 0));
+		assertEquals(WeightEventType.UNLOADED, accept(20, 0));
+		assertFalse(detector.isStable());
+		assertNull(accept(0, 0));
+	}
+
+	@Test
+	void leavesStableWhenSpreadExceedsTolerance() {
+		accept(1000, 0);
+		accept(1000, 0);
+		assertEquals(WeightEventType.STABLE, accept(1000, 0));
+		assertNull(accept(1100, 0));
+		assertFalse(detector.isStable());
+		assertNull(accept(1100, 0));
+		assertEquals(WeightEventType.STABLE, accept(1100, 0));
+		assertEquals(1100, detector.getStableValue());
+	}
+
+	@Test
+	void staysUnstableWhileNoisy() {
+		accept(1000, 0);
+		for (int i = 0; i < 10; i++) {
+			assertNull(accept(i % 2 == 0 ? 970 : 1030, 0));
+		}
+		assertFalse(detector.isStable());
+	}
+
+	@Test
+	void doesNotRepeatStableForSmallDrift() {
+		accept(1000, 0);
+		accept(1000, 0);
+		assertEquals(WeightEventType.STABLE, accept(1000, 0));
+		assertNull(accept(1005, 0));
+		assertNull(accept(1005, 0));
+		assertNull(accept(1005, 0));
+		assertEquals(1000, detector.getStableValue());
+	}
+
+	@Test
+	void emptyThresholdIsExclusive() {
+		assertEquals(WeightEventType.LOADED, accept(200, 0));
+		assertEquals(WeightEventType.UNLOADED, accept(199, 0));
+		assertEquals(WeightEventType.LOADED, accept(-250, 0));
+	}
+
+	@Test
+	void rescalesThresholdsWhenDecimalsChange() {
+		accept(1000, 0);
+		accept(1000, 0);
+		assertEquals(WeightEventType.STABLE, accept(1000, 0));
+		// 小数位数变化时清空窗口，容差和空磅阈值按新的小数位数换算
+		assertNull(accept(10000, 1));
+		assertFalse(detector.isStable());
+		assertEquals(1, detector.getScale());
+		assertNull(accept(10050, 1));
+		assertEquals(WeightEventType.STABLE, accept(9950, 1));
+		assertEquals(10000, detector.getStableValue());
+		assertEquals(WeightEventType.UNLOADED, accept(1500, 1));
+	}
+
+	private WeightEventType accept(long value, int scale) {
+		WeightReading reading = new WeightReading();
+		reading.set(value, scale, WeightReading.OK);
+		return detector.accept(reading);
+	}
+}
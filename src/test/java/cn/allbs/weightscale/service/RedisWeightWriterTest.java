@@ -0,0 +1,155 @@
+package cn.allbs.weightscale.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RedisWeightWriterTest {
+
+	/**
+	 * 按执行顺序记录写入Redis的命令
+	 */
+	private final List<String> commands = Collections.synchronizedList(new ArrayList<>());
+
+	private RedisTemplate<String, Object> redisTemplate;
+
+	private RedisWeightWriter writer;
+
+	/**
+	 * 不为null时流水线阻塞到计数归零，模拟写线程正忙
+	 */
+	private volatile CountDownLatch release;
+
+	private final CountDownLatch entered = new CountDownLatch(1);
+
+	/**
+	 * 模拟Redis不可用
+	 */
+	private volatile boolean down;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		redisTemplate = mock(RedisTemplate.class);
+		RedisOperations<String, Object> operations = mock(RedisOperations.class);
+		ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+		ListOperations<String, Object> listOperations = mock(ListOperations.class);
+		when(operations.opsForValue()).thenReturn(valueOperations);
+		when(operations.opsForList()).thenReturn(listOperations);
+		doAnswer(invocation -> commands.add("SET " + invocation.getArgument(0) + " " + invocation.getArgument(1)))
+				.when(valueOperations).set(any(), any());
+		doAnswer(invocation -> {
+			commands.add("LPUSH " + invocation.getArgument(0) + " " + invocation.getArgument(1));
+			return 1L;
+		}).when(listOperations).leftPush(any(), any());
+		when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+			entered.countDown();
+			CountDownLatch latch = release;
+			if (latch != null) {
+				latch.await(5, TimeUnit.SECONDS);
+			}
+			if (down) {
+				throw new RedisConnectionFailureException("Connection refused");
+			}
+			SessionCallback<Object> callback = invocation.getArgument(0);
+			callback.execute(operations);
+			return List.of();
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (writer != null) {
+			writer.stop();
+		}
+	}
+
+	@Test
+	void coalescesWritesToTheSameKey() throws InterruptedException {
+		start(1024);
+		release = new CountDownLatch(1);
+		writer.set("COM3", "1");
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+		for (int i = 2; i <= 100; i++) {
+			writer.set("COM3", Integer.toString(i));
+		}
+		release.countDown();
+		await().atMost(Duration.ofSeconds(5)).until(() -> commands.contains("SET COM3 100"));
+		assertEquals(List.of("SET COM3 1", "SET COM3 100"), commands);
+		assertEquals(2, writer.getStats().getWritten());
+		assertEquals(0, writer.getStats().getDropped());
+	}
+
+	@Test
+	void dropsWhenQueueIsFullWithoutStrandingTheKey() throws InterruptedException {
+		start(2);
+		release = new CountDownLatch(1);
+		writer.set("busy", "0");
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+		writer.set("COM3", "1");
+		writer.set("COM4", "1");
+		writer.set("COM5", "1");
+		assertEquals(1, writer.getStats().getDropped());
+		// 已入队的key只更新值，不占用队列
+		writer.set("COM3", "2");
+		assertEquals(1, writer.getStats().getDropped());
+		release.countDown();
+		await().atMost(Duration.ofSeconds(5)).until(() -> commands.contains("SET COM4 1"));
+		// 被丢弃的key之后的写入仍然能入队
+		writer.set("COM5", "2");
+		await().atMost(Duration.ofSeconds(5)).until(() -> commands.contains("SET COM5 2"));
+		assertTrue(commands.contains("SET COM3 2"));
+		assertFalse(commands.contains("SET COM3 1"));
+		assertFalse(commands.contains("SET COM5 1"));
+	}
+
+	@Test
+	void replaysBufferedWritesAfterOutage() throws InterruptedException {
+		start(1024);
+		down = true;
+		writer.set("COM3", "1");
+		writer.append("COM3:events", "LOADED", 10);
+		await().atMost(Duration.ofSeconds(5)).until(() -> !writer.getStats().isConnected());
+		writer.set("COM3", "2");
+		writer.append("COM3:events", "STABLE", 10);
+		writer.append("COM3:events", "UNLOADED", 10);
+		down = false;
+		await().atMost(Duration.ofSeconds(5)).until(() -> writer.getStats().isConnected() && commands.size() == 4);
+		// 恢复后只写入最新值，列表追加保持顺序
+		assertEquals(List.of("SET COM3 2", "LPUSH COM3:events LOADED", "LPUSH COM3:events STABLE", "LPUSH COM3:events UNLOADED"),
+				commands);
+		assertTrue(writer.getStats().getFailures() > 0);
+		assertEquals(0, writer.getStats().getDropped());
+	}
+
+	private void start(int queueCapacity) {
+		writer = new RedisWeightWriter();
+		ReflectionTestUtils.setField(writer, "redisTemplate", redisTemplate);
+		ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(writer, "queueCapacity", queueCapacity);
+		ReflectionTestUtils.setField(writer, "batchSize", 64);
+		ReflectionTestUtils.setField(writer, "outageCapacity", 16);
+		ReflectionTestUtils.setField(writer, "retryInterval", 20L);
+		writer.start();
+	}
+}
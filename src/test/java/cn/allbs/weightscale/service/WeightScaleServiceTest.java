@@ -0,0 +1,144 @@
+package cn.allbs.weightscale.service;
+
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.config.PortSettings;
+import cn.allbs.weightscale.config.SerialPortManager;
+import cn.allbs.weightscale.enums.PortState;
+import cn.allbs.weightscale.exception.BhudyException;
+import cn.allbs.weightscale.transport.SimulatedScaleTransport;
+import cn.allbs.weightscale.util.SerialPortUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WeightScaleServiceTest {
+
+	private static final int CALLERS = 8;
+
+	private static final long CACHE_TTL = 200;
+
+	private final byte[] response = SimulatedScaleTransport.responseFrame((byte) 'A', (byte) 'B', 12345);
+
+	private final AtomicInteger commands = new AtomicInteger();
+
+	private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+	private final WeightSnapshotStore snapshotStore = new WeightSnapshotStore();
+
+	private SerialPortManager serialPortManager;
+
+	private WeightScaleService service;
+
+	/**
+	 * 不为null时串口往返阻塞到计数归零，模拟等待仪表应答
+	 */
+	private volatile CountDownLatch release;
+
+	@BeforeEach
+	void setUp() {
+		serialPortManager = mock(SerialPortManager.class);
+		PortSettings settings = new PortSettings();
+		settings.getCommand().setCacheTtl(CACHE_TTL);
+		when(serialPortManager.getPortSettings("COM3")).thenReturn(settings);
+		when(serialPortManager.writeAndRead(eq("COM3"), any())).thenAnswer(invocation -> {
+			commands.incrementAndGet();
+			CountDownLatch latch = release;
+			if (latch != null) {
+				latch.await(5, TimeUnit.SECONDS);
+			}
+			return response;
+		});
+		service = new WeightScaleService();
+		ReflectionTestUtils.setField(service, "serialPortManager", serialPortManager);
+		ReflectionTestUtils.setField(service, "weightSnapshotStore", snapshotStore);
+		ReflectionTestUtils.setField(service, "defaultMaxAge", 5000L);
+	}
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void coalescesConcurrentQueriesIntoOneCommand() throws Exception {
+		release = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(callers.submit(() -> service.performOperation("A", "COM3", "B")));
+		}
+		await().atMost(Duration.ofSeconds(5)).until(() -> service.getQueryStats().getCoalesced() == CALLERS - 1);
+		release.countDown();
+		String expected = SerialPortUtil.parseWeightData(response);
+		for (Future<String> result : results) {
+			assertEquals(expected, result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, commands.get());
+		assertEquals(1, service.getQueryStats().getMisses());
+		assertEquals(0, service.getQueryStats().getInFlight());
+	}
+
+	@Test
+	void servesCachedResultUntilTtlExpires() throws InterruptedException {
+		String first = service.performOperation("A", "COM3", "B");
+		assertEquals(first, service.performOperation("A", "COM3", "B"));
+		assertEquals(1, commands.get());
+		assertEquals(1, service.getQueryStats().getHits());
+		// 其他地址和操作码不共用缓存
+		service.performOperation("A", "COM3", "C");
+		assertEquals(2, commands.get());
+
+		Thread.sleep(CACHE_TTL + 50);
+		service.performOperation("A", "COM3", "B");
+		assertEquals(3, commands.get());
+		assertEquals(1, service.getQueryStats().getHits());
+	}
+
+	@Test
+	void returnsFreshSnapshotWhilePortIsOpen() {
+		when(serialPortManager.getPortState("COM3")).thenReturn(PortState.OPEN);
+		updateSnapshot(12000, System.currentTimeMillis());
+		assertEquals("12000", service.getCurrentWeight("COM3", null));
+		verify(serialPortManager, never()).readWeightOnce(any());
+	}
+
+	@Test
+	void rejectsFreshSnapshotOfDisconnectedPort() {
+		when(serialPortManager.getPortState("COM3")).thenReturn(PortState.CLOSED);
+		updateSnapshot(12000, System.currentTimeMillis());
+		BhudyException error = assertThrows(BhudyException.class, () -> service.getCurrentWeight("COM3", null));
+		assertTrue(error.getMessage().contains(PortState.CLOSED.getDescription()), error.getMessage());
+		verify(serialPortManager, never()).readWeightOnce(any());
+	}
+
+	@Test
+	void readsNextFrameWhenSnapshotIsStale() {
+		when(serialPortManager.getPortState("COM3")).thenReturn(PortState.OPEN);
+		when(serialPortManager.readWeightOnce("COM3")).thenReturn("12500");
+		updateSnapshot(12000, System.currentTimeMillis() - 10_000);
+		assertEquals("12500", service.getCurrentWeight("COM3", null));
+		assertEquals("12000", service.getCurrentWeight("COM3", 60_000L));
+	}
+
+	private void updateSnapshot(long value, long capturedAt) {
+		WeightReading reading = new WeightReading();
+		reading.set(value, 0, WeightReading.OK);
+		snapshotStore.holder("COM3").update(reading, capturedAt, false);
+	}
+}
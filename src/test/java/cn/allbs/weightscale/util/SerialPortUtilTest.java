@@ -0,0 +1,134 @@
+package cn.allbs.weightscale.util;
+
+import cn.allbs.weightscale.codec.FrameDecoder;
+import cn.allbs.weightscale.codec.WeightReading;
+import cn.allbs.weightscale.exception.BhudyException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialPortUtilTest {
+
+	@Test
+	void decodesPositiveWeight() {
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.OK, decode(frame("+0123450"), reading));
+		assertEquals(12345, reading.getValue());
+		assertEquals(0, reading.getScale());
+		assertEquals("12345", SerialPortUtil.parseWeightData(frame("+0123450")));
+	}
+
+	@Test
+	void decodesNegativeWeightWithDecimals() {
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.OK, decode(frame("-0123452"), reading));
+		assertEquals(-12345, reading.getValue());
+		assertEquals(2, reading.getScale());
+		assertEquals(-123.45, reading.toDouble());
+		assertEquals("-123.45", SerialPortUtil.parseWeightData(frame("-0123452")));
+	}
+
+	@Test
+	void treatsSpacesAsZero() {
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.OK, decode(frame("   12001"), reading));
+		assertEquals(1200, reading.getValue());
+		assertEquals(1, reading.getScale());
+	}
+
+	@Test
+	void decodesResponseFrame() {
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.OK, decode(frame("AB+0005003"), reading));
+		assertEquals(500, reading.getValue());
+		assertEquals(3, reading.getScale());
+	}
+
+	@Test
+	void reportsTooShort() {
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.TOO_SHORT, SerialPortUtil.decodeWeight(new byte[5], 0, 5, reading));
+		assertThrows(BhudyException.class, () -> SerialPortUtil.parseWeightData(null));
+	}
+
+	@Test
+	void reportsBadFraming() {
+		byte[] data = frame("+0001000");
+		data[data.length - 1] = 0x0D;
+		assertEquals(WeightReading.BAD_FRAMING, decode(data, new WeightReading()));
+		assertThrows(IllegalArgumentException.class, () -> SerialPortUtil.parseWeightData(data));
+	}
+
+	@Test
+	void reportsMalformedPayload() {
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.MALFORMED, decode(frame("*0001000"), reading));
+		assertEquals(WeightReading.MALFORMED, decode(frame("+00A1000"), reading));
+		assertEquals(WeightReading.MALFORMED, decode(frame("+0001006"), reading));
+		// 14字节的帧第一个字节必须是地址
+		assertEquals(WeightReading.MALFORMED, decode(frame("1B+0005003"), reading));
+		assertEquals(WeightReading.MALFORMED, decode(frame("+00010000"), reading));
+	}
+
+	@Test
+	void keepsWeightOnBadChecksum() {
+		byte[] data = frame("+0020000");
+		data[data.length - 2] ^= 0x01;
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.BAD_CHECKSUM, decode(data, reading));
+		assertTrue(reading.hasValue());
+		assertFalse(reading.isOk());
+		assertEquals(2000, reading.getValue());
+		assertEquals("2000", SerialPortUtil.parseWeightData(data));
+	}
+
+	@Test
+	void decodesAtOffset() {
+		byte[] data = frame("+0004561");
+		byte[] padded = new byte[data.length + 6];
+		System.arraycopy(data, 0, padded, 3, data.length);
+		WeightReading reading = new WeightReading();
+		assertEquals(WeightReading.OK, SerialPortUtil.decodeWeight(padded, 3, data.length, reading));
+		assertEquals(456, reading.getValue());
+		assertEquals(1, reading.getScale());
+	}
+
+	@Test
+	void directBufferMatchesArray() {
+		for (String payload : new String[]{"+0123450", "-0000013", "AB+0005003", "+00A1000"}) {
+			byte[] data = frame(payload);
+			WeightReading fromArray = new WeightReading();
+			WeightReading fromBuffer = new WeightReading();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 2);
+			buffer.position(1);
+			buffer.put(data);
+			buffer.flip().position(1);
+			assertEquals(decode(data, fromArray), SerialPortUtil.decodeWeight(buffer, fromBuffer));
+			assertEquals(fromArray.getValue(), fromBuffer.getValue());
+			assertEquals(fromArray.getScale(), fromBuffer.getScale());
+			assertEquals(1, buffer.position());
+		}
+	}
+
+	private static int decode(byte[] data, WeightReading reading) {
+		return SerialPortUtil.decodeWeight(data, 0, data.length, reading);
+	}
+
+	/**
+	 * STX + 数据 + 异或校验 + ETX
+	 */
+	private static byte[] frame(String payload) {
+		byte[] body = payload.getBytes(StandardCharsets.US_ASCII);
+		byte[] data = new byte[body.length + 4];
+		data[0] = FrameDecoder.STX;
+		System.arraycopy(body, 0, data, 1, body.length);
+		byte xor = SerialPortUtil.calculateXorChecksum(body);
+		data[data.length - 3] = SerialPortUtil.toAsciiHex((xor >> 4) & 0x0F);
+		data[data.length - 2] = SerialPortUtil.toAsciiHex(xor & 0x0F);
+		data[data.length - 1] = FrameDecoder.ETX;
+		return data;
+	}
+}